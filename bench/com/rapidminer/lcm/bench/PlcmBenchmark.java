@@ -0,0 +1,58 @@
+package com.rapidminer.lcm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.lcm.PLCM;
+import com.rapidminer.lcm.bench.SyntheticTransactions.Profile;
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.CountingCollector;
+import com.rapidminer.lcm.util.MiningThreadsPool;
+
+/**
+ * Whole mining runs, as done by PlcmAlgo : counting pass, initial dataset and
+ * exploration. Patterns are only counted, so collectors' costs are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class PlcmBenchmark {
+
+	@Param({ "SPARSE", "DENSE" })
+	public Profile profile;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	private RMTransactions dataSet;
+
+	@Setup
+	public void generate() {
+		this.dataSet = SyntheticTransactions.generate(this.profile);
+	}
+
+	@Benchmark
+	public long lcm() {
+		CountingCollector collector = new CountingCollector(this.threads, 0, 0);
+		// a pool of its own, so other runs in this JVM can't take its threads
+		PLCM miner = new PLCM(collector, this.threads, new MiningThreadsPool(
+				this.threads));
+		miner.lcm(new ExplorationStep(this.profile.minSupport, this.dataSet));
+		return collector.close();
+	}
+}
@@ -0,0 +1,100 @@
+package com.rapidminer.lcm.bench;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Random;
+
+import com.rapidminer.lcm.internals.transactions.RMTransaction;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+
+/**
+ * Random transactions for benchmarks, always the same for a given profile and
+ * seed so runs can be compared.
+ */
+public final class SyntheticTransactions {
+
+	public static final long SEED = 42;
+
+	public enum Profile {
+		/**
+		 * many items, short transactions, a few items far more frequent than
+		 * others - like retail baskets or click streams
+		 */
+		SPARSE(50000, 10000, 12, 50),
+
+		/**
+		 * few items, each one in a large share of transactions - like
+		 * discretized measures
+		 */
+		DENSE(4000, 60, 30, 1400);
+
+		public final int transactions;
+		public final int items;
+		public final int averageLength;
+
+		/**
+		 * support giving a run of a few hundred milliseconds on one thread
+		 */
+		public final int minSupport;
+
+		private Profile(int transactions, int items, int averageLength,
+				int minSupport) {
+			this.transactions = transactions;
+			this.items = items;
+			this.averageLength = averageLength;
+			this.minSupport = minSupport;
+		}
+	}
+
+	private SyntheticTransactions() {
+	}
+
+	public static RMTransactions generate(Profile profile) {
+		return generate(profile, profile.transactions, SEED);
+	}
+
+	/**
+	 * @return [count] transactions of sorted distinct items
+	 */
+	public static RMTransactions generate(Profile profile, int count, long seed) {
+		Random random = new Random(seed);
+		RMTransactions dataSet = new RMTransactions();
+		boolean[] picked = new boolean[profile.items];
+
+		// in DENSE, item i is in a transaction with probability frequencies[i]
+		double[] frequencies = new double[profile.items];
+		for (int i = 0; i < profile.items; i++) {
+			frequencies[i] = 0.2 + 0.6 * random.nextDouble();
+		}
+
+		for (int t = 0; t < count; t++) {
+			TIntArrayList transaction = new TIntArrayList();
+			if (profile == Profile.SPARSE) {
+				int length = profile.averageLength / 2
+						+ random.nextInt(profile.averageLength + 1);
+				for (int j = 0; j < length; j++) {
+					// skewed towards small items
+					double r = random.nextDouble();
+					int item = (int) (profile.items * r * r * r);
+					if (!picked[item]) {
+						picked[item] = true;
+						transaction.add(item);
+					}
+				}
+				for (int j = 0; j < transaction.size(); j++) {
+					picked[transaction.getQuick(j)] = false;
+				}
+				transaction.sort();
+			} else {
+				for (int i = 0; i < profile.items; i++) {
+					if (random.nextDouble() < frequencies[i]) {
+						transaction.add(i);
+					}
+				}
+			}
+			dataSet.add(new RMTransaction(transaction));
+		}
+
+		return dataSet;
+	}
+}
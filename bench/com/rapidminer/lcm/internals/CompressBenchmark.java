@@ -0,0 +1,67 @@
+package com.rapidminer.lcm.internals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.lcm.bench.SyntheticTransactions;
+import com.rapidminer.lcm.bench.SyntheticTransactions.Profile;
+import com.rapidminer.lcm.internals.transactions.TransactionsList;
+
+/**
+ * TransactionsList.compress over the initial dataset : transactions sharing
+ * their items below prefixEnd are merged. compress modifies transactions, so
+ * each invocation works on a copy made beforehand, out of the measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CompressBenchmark {
+
+	@Param({ "SPARSE", "DENSE" })
+	public Profile profile;
+
+	/**
+	 * prefixEnd, as a fraction of frequent items
+	 */
+	@Param({ "0.1", "0.5", "1.0" })
+	public double prefix;
+
+	private TransactionsList transactions;
+	private int prefixEnd;
+
+	private TransactionsList copy;
+
+	@Setup
+	public void generate() {
+		ExplorationStep root = new ExplorationStep(this.profile.minSupport,
+				SyntheticTransactions.generate(this.profile));
+		this.transactions = root.dataset.transactions;
+		this.prefixEnd = (int) (this.prefix * (root.counters.getMaxFrequent() + 1));
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		this.copy = this.transactions.clone();
+	}
+
+	@Benchmark
+	public TransactionsList compress() {
+		this.copy.compress(this.prefixEnd);
+		return this.copy;
+	}
+}
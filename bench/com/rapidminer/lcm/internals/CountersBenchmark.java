@@ -0,0 +1,79 @@
+package com.rapidminer.lcm.internals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.lcm.bench.SyntheticTransactions;
+import com.rapidminer.lcm.bench.SyntheticTransactions.Profile;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.BinaryTransactionsFile;
+import com.rapidminer.lcm.io.RMAdapter;
+
+/**
+ * Counters construction : the initial counting pass, from operators' input or
+ * from compact transactions whose supports are known, and the counting of a
+ * projected dataset, done for each extension during exploration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CountersBenchmark {
+
+	@Param({ "SPARSE", "DENSE" })
+	public Profile profile;
+
+	private RMTransactions dataSet;
+	private RMCompactTransactions compact;
+	private ExplorationStep root;
+
+	/**
+	 * projected on, as by ExplorationStep.next() : the median frequent item
+	 */
+	private int extension;
+
+	@Setup
+	public void generate() {
+		this.dataSet = SyntheticTransactions.generate(this.profile);
+		this.compact = BinaryTransactionsFile.toCompact(this.dataSet);
+		this.root = new ExplorationStep(this.profile.minSupport, this.dataSet);
+		this.extension = this.root.counters.getMaxFrequent() / 2;
+	}
+
+	@Benchmark
+	public Counters initial() {
+		RMAdapter reader = new RMAdapter(this.dataSet);
+		Counters counters = new Counters(this.profile.minSupport, reader);
+		reader.close();
+		return counters;
+	}
+
+	@Benchmark
+	public Counters initialFromSupports() {
+		return new Counters(this.profile.minSupport,
+				this.compact.getTransactionsCount(), this.compact.getSupports(),
+				this.compact.getMaxItem());
+	}
+
+	@Benchmark
+	public Counters projected() {
+		return new Counters(this.root.counters.minSupport, this.root.dataset
+				.getSupport(this.extension).iterator(), this.extension,
+				this.root.dataset.getIgnoredItems(),
+				this.root.counters.maxFrequent);
+	}
+}
@@ -0,0 +1,239 @@
+package com.rapidminer.lcm.internals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.lcm.bench.SyntheticTransactions;
+import com.rapidminer.lcm.bench.SyntheticTransactions.Profile;
+import com.rapidminer.lcm.internals.tidlist.ByteConsecutiveItemsConcatenatedTidList;
+import com.rapidminer.lcm.internals.tidlist.IntConsecutiveItemsConcatenatedTidList;
+import com.rapidminer.lcm.internals.tidlist.ShortConsecutiveItemsConcatenatedTidList;
+import com.rapidminer.lcm.internals.tidlist.TidList;
+import com.rapidminer.lcm.internals.tidlist.UByteConsecutiveItemsConcatenatedTidList;
+import com.rapidminer.lcm.internals.tidlist.UShortConsecutiveItemsConcatenatedTidList;
+import com.rapidminer.lcm.internals.transactions.ByteIndexedTransactionsList;
+import com.rapidminer.lcm.internals.transactions.IntIndexedTransactionsList;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.ShortIndexedTransactionsList;
+import com.rapidminer.lcm.internals.transactions.TransactionsList;
+import com.rapidminer.lcm.internals.transactions.UByteIndexedTransactionsList;
+import com.rapidminer.lcm.internals.transactions.UShortIndexedTransactionsList;
+import com.rapidminer.lcm.internals.transactions.VIntIndexedTransactionsList;
+import com.rapidminer.lcm.io.BinaryTransactionsFile;
+
+/**
+ * Dataset construction with each transactions list and tid list
+ * implementation. Datasets built during exploration are projections, often
+ * small : by default transactions are as many as the narrowest tid lists
+ * (BYTE) can index. Wider variants can be compared on more transactions, with
+ * -p transactions=30000 -p tidList=SHORT,USHORT,INT for instance - a variant
+ * which can't store the dataset fails at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DatasetBenchmark {
+
+	public enum TransactionsListVariant {
+		BYTE {
+			@Override
+			boolean compatible(Counters c) {
+				return ByteIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new ByteIndexedTransactionsList(c);
+			}
+		},
+		UBYTE {
+			@Override
+			boolean compatible(Counters c) {
+				return UByteIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new UByteIndexedTransactionsList(c);
+			}
+		},
+		SHORT {
+			@Override
+			boolean compatible(Counters c) {
+				return ShortIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new ShortIndexedTransactionsList(c);
+			}
+		},
+		USHORT {
+			@Override
+			boolean compatible(Counters c) {
+				return UShortIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new UShortIndexedTransactionsList(c);
+			}
+		},
+		INT {
+			@Override
+			boolean compatible(Counters c) {
+				return IntIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new IntIndexedTransactionsList(c);
+			}
+		},
+		VINT {
+			@Override
+			boolean compatible(Counters c) {
+				return VIntIndexedTransactionsList.compatible(c);
+			}
+
+			@Override
+			TransactionsList create(Counters c) {
+				return new VIntIndexedTransactionsList(c);
+			}
+		};
+
+		abstract boolean compatible(Counters c);
+
+		abstract TransactionsList create(Counters c);
+	}
+
+	public enum TidListVariant {
+		BYTE {
+			@Override
+			boolean compatible(int maxTid) {
+				return ByteConsecutiveItemsConcatenatedTidList.compatible(maxTid);
+			}
+
+			@Override
+			TidList create(Counters c) {
+				return new ByteConsecutiveItemsConcatenatedTidList(c,
+						Integer.MAX_VALUE);
+			}
+		},
+		UBYTE {
+			@Override
+			boolean compatible(int maxTid) {
+				return UByteConsecutiveItemsConcatenatedTidList
+						.compatible(maxTid);
+			}
+
+			@Override
+			TidList create(Counters c) {
+				return new UByteConsecutiveItemsConcatenatedTidList(c,
+						Integer.MAX_VALUE);
+			}
+		},
+		SHORT {
+			@Override
+			boolean compatible(int maxTid) {
+				return ShortConsecutiveItemsConcatenatedTidList
+						.compatible(maxTid);
+			}
+
+			@Override
+			TidList create(Counters c) {
+				return new ShortConsecutiveItemsConcatenatedTidList(c,
+						Integer.MAX_VALUE);
+			}
+		},
+		USHORT {
+			@Override
+			boolean compatible(int maxTid) {
+				return UShortConsecutiveItemsConcatenatedTidList
+						.compatible(maxTid);
+			}
+
+			@Override
+			TidList create(Counters c) {
+				return new UShortConsecutiveItemsConcatenatedTidList(c,
+						Integer.MAX_VALUE);
+			}
+		},
+		INT {
+			@Override
+			boolean compatible(int maxTid) {
+				return IntConsecutiveItemsConcatenatedTidList.compatible(maxTid);
+			}
+
+			@Override
+			TidList create(Counters c) {
+				return new IntConsecutiveItemsConcatenatedTidList(c,
+						Integer.MAX_VALUE);
+			}
+		};
+
+		abstract boolean compatible(int maxTid);
+
+		abstract TidList create(Counters c);
+	}
+
+	@Param({ "DENSE" })
+	public Profile profile;
+
+	@Param({ "128" })
+	public int transactions;
+
+	@Param({ "BYTE", "UBYTE", "SHORT", "USHORT", "INT", "VINT" })
+	public TransactionsListVariant transactionsList;
+
+	@Param({ "BYTE", "UBYTE", "SHORT", "USHORT", "INT" })
+	public TidListVariant tidList;
+
+	private RMCompactTransactions compact;
+	private Counters counters;
+
+	@Setup
+	public void generate() {
+		this.compact = BinaryTransactionsFile.toCompact(SyntheticTransactions
+				.generate(this.profile, this.transactions,
+						SyntheticTransactions.SEED));
+
+		// the profile's support, relative to the transactions count
+		int minSupport = Math.max(1, (int) ((long) this.profile.minSupport
+				* this.transactions / this.profile.transactions));
+		this.counters = new Counters(minSupport,
+				this.compact.getTransactionsCount(),
+				this.compact.getSupports(), this.compact.getMaxItem());
+
+		if (!this.transactionsList.compatible(this.counters)
+				|| !this.tidList
+						.compatible(this.counters.distinctTransactionsCount - 1)) {
+			throw new IllegalStateException(this.transactionsList
+					+ " transactions list or " + this.tidList
+					+ " tid list can't store " + this.transactions + " "
+					+ this.profile + " transactions");
+		}
+	}
+
+	@Benchmark
+	public Dataset construct() {
+		return new Dataset(this.transactionsList.create(this.counters),
+				this.tidList.create(this.counters),
+				this.compact.iterator(this.counters.getRenaming()),
+				Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,80 @@
+package com.rapidminer.lcm.internals;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rapidminer.lcm.bench.SyntheticTransactions;
+import com.rapidminer.lcm.bench.SyntheticTransactions.Profile;
+import com.rapidminer.lcm.internals.tidlist.TidList;
+
+/**
+ * FirstParentTest's inclusion checks between tid lists of the initial
+ * dataset, for random pairs of frequent items : is the less frequent item's
+ * tid list included in the other's ?
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FirstParentTestBenchmark {
+
+	private static final int PAIRS = 1000;
+
+	@Param({ "SPARSE", "DENSE" })
+	public Profile profile;
+
+	private TidList tidLists;
+
+	/**
+	 * candidates, and items they're checked against
+	 */
+	private final int[] candidates = new int[PAIRS];
+	private final int[] others = new int[PAIRS];
+
+	@Setup
+	public void generate() {
+		ExplorationStep root = new ExplorationStep(this.profile.minSupport,
+				SyntheticTransactions.generate(this.profile));
+		this.tidLists = root.dataset.tidLists;
+
+		// items are renamed by decreasing support
+		Random random = new Random(SyntheticTransactions.SEED);
+		final int frequents = root.counters.getMaxFrequent() + 1;
+		for (int i = 0; i < PAIRS; i++) {
+			int a = random.nextInt(frequents);
+			int b = random.nextInt(frequents);
+			this.candidates[i] = Math.max(a, b);
+			this.others[i] = Math.min(a, b);
+		}
+	}
+
+	/**
+	 * @return how many checks succeeded
+	 */
+	@Benchmark
+	public int inclusionChecks() {
+		int included = 0;
+		for (int i = 0; i < PAIRS; i++) {
+			if (FirstParentTest.isAincludedInB(
+					this.tidLists.get(this.candidates[i]),
+					this.tidLists.get(this.others[i]))) {
+				included++;
+			}
+		}
+		return included;
+	}
+}
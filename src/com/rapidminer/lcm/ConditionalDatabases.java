@@ -0,0 +1,330 @@
+package com.rapidminer.lcm;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.io.PerThreadCollector;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Mines closed patterns included in some given transactions (roots) of a
+ * database, without exploring other itemsets : used by IncrementalMiner and
+ * SlidingWindowMiner, whose roots are the transactions which changed.
+ *
+ * The closure of an itemset X included in a root r is the intersection of
+ * transactions containing X, r being one of them : closed itemsets included
+ * in r are the closed itemsets of r's conditional database, made of
+ * transactions intersecting r projected on r's items, with the same supports.
+ * Each root's conditional database is built from tid lists of the roots'
+ * items, then mined by its own PLCM run. A root whose items are included in
+ * another root's isn't mined at all, and an itemset included in several mined
+ * roots is only kept from the first one. Roots may be mined by several calls,
+ * by increasing indexes.
+ *
+ * If a root isn't in the database (a transaction leaving a sliding window),
+ * the closure of an itemset may go beyond it : patterns mined from such roots
+ * are only candidates, their supports are exact but the caller has to check
+ * they're closed.
+ *
+ * Transactions of the database are given through add() before mining, or
+ * read from a VerticalIndex which the caller maintains.
+ */
+final class ConditionalDatabases {
+
+	/**
+	 * Transactions of a database, and tid lists of their items
+	 */
+	interface VerticalIndex {
+		int getTransactionsCount();
+
+		/**
+		 * @return indexes of transactions containing item, ascending - may be
+		 *         null if there's none
+		 */
+		TIntArrayList getTids(int item);
+
+		/**
+		 * Replaces the content of items by transaction tid's sorted items
+		 */
+		void getTransaction(int tid, TIntArrayList items);
+	}
+
+	/**
+	 * conditional databases having fewer transactions are mined by a single
+	 * thread
+	 */
+	private static final int SMALL_DATABASE = 1024;
+
+	private final int minSupport;
+	private final int nbThreads;
+
+	private final int[][] roots;
+
+	/**
+	 * for each item, indexes of roots containing it - null for items in no
+	 * root
+	 */
+	private final BitSet[] containing;
+
+	/**
+	 * items of roots which are frequent in the database
+	 */
+	private final boolean[] frequent;
+
+	/**
+	 * database transactions, or those given to add() if it's null
+	 */
+	private final VerticalIndex index;
+
+	/**
+	 * transactions given to add(), projected on frequent items
+	 */
+	private final List<int[]> transactions = new ArrayList<int[]>();
+
+	/**
+	 * for each frequent item, indexes of transactions given to add() which
+	 * contain it
+	 */
+	private final TIntArrayList[] tids;
+
+	private long mined = 0;
+
+	/**
+	 * @param roots
+	 *            transactions, as sorted distinct items
+	 * @param supports
+	 *            items' supports in the database
+	 */
+	ConditionalDatabases(int minSupport, int nbThreads, int[][] roots,
+			int[] supports) {
+		this(minSupport, nbThreads, roots, supports, null);
+	}
+
+	/**
+	 * @param roots
+	 *            transactions, as sorted distinct items
+	 * @param supports
+	 *            items' supports in the database
+	 * @param index
+	 *            the database, or null if transactions are given to add()
+	 */
+	ConditionalDatabases(int minSupport, int nbThreads, int[][] roots,
+			int[] supports, VerticalIndex index) {
+		this.minSupport = minSupport;
+		this.nbThreads = nbThreads;
+		this.roots = roots;
+		this.index = index;
+
+		int maxItem = -1;
+		for (int[] root : roots) {
+			if (root.length > 0) {
+				maxItem = Math.max(maxItem, root[root.length - 1]);
+			}
+		}
+
+		this.containing = new BitSet[maxItem + 1];
+		this.frequent = new boolean[maxItem + 1];
+		this.tids = new TIntArrayList[maxItem + 1];
+		for (int t = 0; t < roots.length; t++) {
+			for (int item : roots[t]) {
+				if (this.containing[item] == null) {
+					this.containing[item] = new BitSet();
+					if (item < supports.length
+							&& supports[item] >= minSupport) {
+						this.frequent[item] = true;
+						if (index == null) {
+							this.tids[item] = new TIntArrayList();
+						}
+					}
+				}
+				this.containing[item].set(t);
+			}
+		}
+	}
+
+	/**
+	 * for each item, indexes of roots containing it - null for items in no
+	 * root
+	 */
+	BitSet[] getContaining() {
+		return this.containing;
+	}
+
+	/**
+	 * @return patterns found by PLCM runs so far, including those which were
+	 *         kept from another root
+	 */
+	long getMined() {
+		return this.mined;
+	}
+
+	/**
+	 * Adds a transaction of the database, if it's not given by a VerticalIndex
+	 *
+	 * @param items
+	 *            sorted distinct items in [0, length[ - the array is not kept
+	 */
+	void add(int[] items, int length) {
+		int projected = 0;
+		for (int i = 0; i < length; i++) {
+			if (items[i] < this.frequent.length && this.frequent[items[i]]) {
+				projected++;
+			}
+		}
+		if (projected == 0) {
+			return;
+		}
+
+		int[] transaction = new int[projected];
+		int j = 0;
+		for (int i = 0; i < length; i++) {
+			if (items[i] < this.frequent.length && this.frequent[items[i]]) {
+				transaction[j++] = items[i];
+				this.tids[items[i]].add(this.transactions.size());
+			}
+		}
+		this.transactions.add(transaction);
+	}
+
+	/**
+	 * Mines roots [from, to[ and appends their patterns to mined, each one
+	 * being given by the first mined root including it. Patterns included in
+	 * a root before from are left to a call mining it.
+	 */
+	void mine(int from, int to, PackedPatterns mined) {
+		final int[] tidStamps = new int[(this.index == null) ? this.transactions
+				.size() : this.index.getTransactionsCount()];
+		final int[] itemStamps = new int[this.frequent.length];
+		int[] items = new int[16];
+		int[] buffer = new int[16];
+		TIntArrayList decoded = new TIntArrayList();
+		BitSet scratch = new BitSet();
+
+		// roots whose frequent items are included in a root before from, in
+		// another root's (or equal to a previous one's) have no pattern of
+		// their own
+		final int[] lengths = new int[to];
+		for (int t = 0; t < to; t++) {
+			for (int item : this.roots[t]) {
+				if (this.frequent[item]) {
+					lengths[t]++;
+				}
+			}
+		}
+		final BitSet owners = new BitSet();
+		owners.set(0, from);
+		final BitSet mining = new BitSet();
+		for (int t = from; t < to; t++) {
+			if (lengths[t] == 0) {
+				continue;
+			}
+			scratch.clear();
+			scratch.set(0, to);
+			for (int item : this.roots[t]) {
+				if (this.frequent[item]) {
+					scratch.and(this.containing[item]);
+				}
+			}
+			boolean included = false;
+			int s = scratch.nextSetBit(0);
+			while (s >= 0 && s < to && !included) {
+				included = s < from || lengths[s] > lengths[t]
+						|| (lengths[s] == lengths[t] && s < t);
+				s = scratch.nextSetBit(s + 1);
+			}
+			if (!included) {
+				mining.set(t);
+				owners.set(t);
+			}
+		}
+
+		for (int t = mining.nextSetBit(0); t >= 0; t = mining.nextSetBit(t + 1)) {
+			final int stamp = t + 1;
+
+			int length = 0;
+			for (int item : this.roots[t]) {
+				if (this.frequent[item]) {
+					if (length == items.length) {
+						items = Arrays.copyOf(items, length * 2);
+					}
+					items[length++] = item;
+					itemStamps[item] = stamp;
+				}
+			}
+
+			RMCompactTransactions conditional = new RMCompactTransactions();
+			for (int i = 0; i < length; i++) {
+				TIntArrayList itemTids = (this.index == null) ? this.tids[items[i]]
+						: this.index.getTids(items[i]);
+				for (int k = 0; itemTids != null && k < itemTids.size(); k++) {
+					final int tid = itemTids.getQuick(k);
+					if (tidStamps[tid] == stamp) {
+						continue;
+					}
+					tidStamps[tid] = stamp;
+
+					if (this.index == null) {
+						decoded.resetQuick();
+						decoded.add(this.transactions.get(tid));
+					} else {
+						this.index.getTransaction(tid, decoded);
+					}
+					if (buffer.length < decoded.size()) {
+						buffer = new int[Math.max(decoded.size(),
+								buffer.length * 2)];
+					}
+					int projected = 0;
+					for (int j = 0; j < decoded.size(); j++) {
+						final int item = decoded.getQuick(j);
+						if (item < itemStamps.length
+								&& itemStamps[item] == stamp) {
+							buffer[projected++] = item;
+						}
+					}
+					conditional.add(buffer, 0, projected);
+				}
+			}
+			if (conditional.getTransactionsCount() < this.minSupport) {
+				continue;
+			}
+
+			int threads = (conditional.getTransactionsCount() < SMALL_DATABASE) ? 1
+					: this.nbThreads;
+			PerThreadCollector collector = new PerThreadCollector(threads,
+					false);
+			PLCM miner = new PLCM(collector, threads);
+			miner.lcm(new ExplorationStep(this.minSupport, conditional));
+			collector.close();
+
+			PackedPatterns found = collector.getPatterns();
+			this.mined += found.size();
+			for (int i = 0; i < found.size(); i++) {
+				if (this.firstRoot(found.getArena(), found.getOffset(i),
+						found.getOffset(i + 1), owners, scratch) == t) {
+					mined.add(found.getSupport(i), found.getArena(),
+							found.getOffset(i), found.getOffset(i + 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return index of the first root of candidates including items[from,
+	 *         to[, or -1
+	 */
+	private int firstRoot(int[] items, int from, int to, BitSet candidates,
+			BitSet scratch) {
+		scratch.clear();
+		scratch.or(candidates);
+		for (int j = from; j < to && !scratch.isEmpty(); j++) {
+			scratch.and(this.containing[items[j]]);
+		}
+		return scratch.nextSetBit(0);
+	}
+}
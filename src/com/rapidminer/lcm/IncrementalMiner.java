@@ -0,0 +1,306 @@
+package com.rapidminer.lcm;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.TransactionReader;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.PerThreadCollector;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Maintains closed patterns at a minimum support while batches of
+ * transactions are appended, without mining all transactions again.
+ *
+ * An itemset X which is not contained in any transaction of a batch keeps its
+ * support and its closure, so patterns not "touched" by the batch remain as
+ * they are. The closure of a touched itemset is included in the batch
+ * transaction containing it : touched patterns are exactly the closed
+ * itemsets of the batch transactions' conditional databases (see
+ * ConditionalDatabases), which replace patterns previously touched. Adding
+ * transactions never makes a closed itemset non-closed, but supports of
+ * touched patterns change and new patterns appear.
+ *
+ * Transactions are kept in an RMCompactTransactions, whose items' supports
+ * are updated as batches are appended, with the position of each transaction
+ * and a tid list per item : appending a batch extends them, then conditional
+ * databases are built by reading only transactions which intersect a batch
+ * transaction. An append's cost depends on the batch and its items' supports,
+ * not on the number of stored transactions nor on the number of closed
+ * patterns (apart from copying untouched ones). A batch at least as large as
+ * the stored transactions is rather mined with them by a single PLCM run.
+ */
+public final class IncrementalMiner {
+
+	private final int minSupport;
+	private final int nbThreads;
+
+	private final RMCompactTransactions transactions = new RMCompactTransactions();
+
+	/**
+	 * where each stored transaction starts in transactions' data
+	 */
+	private final TIntArrayList positions = new TIntArrayList();
+
+	/**
+	 * for each item, indexes of stored transactions containing it
+	 */
+	private TIntArrayList[] tids = new TIntArrayList[16];
+
+	private final History history = new History();
+
+	private PackedPatterns patterns = new PackedPatterns(16, 64);
+
+	private long lastMinedPatterns = 0;
+
+	/**
+	 * transactions read from the input so far, and where the next one starts
+	 * if it's compact : appending from there doesn't read skipped ones again
+	 */
+	private long inputCount = 0;
+	private int inputPosition = 0;
+
+	public IncrementalMiner(int minSupport, int nbThreads) {
+		this.minSupport = minSupport;
+		this.nbThreads = nbThreads;
+	}
+
+	public int getMinSupport() {
+		return this.minSupport;
+	}
+
+	/**
+	 * @return all transactions appended so far
+	 */
+	public RMCompactTransactions getTransactions() {
+		return this.transactions;
+	}
+
+	/**
+	 * @return closed patterns of all transactions appended so far
+	 */
+	public PackedPatterns getPatterns() {
+		return this.patterns;
+	}
+
+	/**
+	 * @return patterns found by the last append's mining runs
+	 */
+	public long getLastMinedPatterns() {
+		return this.lastMinedPatterns;
+	}
+
+	/**
+	 * Appends a batch of transactions and updates closed patterns
+	 *
+	 * @return closed patterns of all transactions appended so far
+	 */
+	public PackedPatterns append(RMTransactions batch) {
+		return this.append(batch, 0);
+	}
+
+	/**
+	 * Appends transactions of data following the first [skipped] ones, then
+	 * updates closed patterns. If data is compact and skipped is the number of
+	 * transactions read from it by the previous call, skipped transactions
+	 * aren't read again.
+	 *
+	 * @return closed patterns of all transactions appended so far
+	 */
+	public PackedPatterns append(RMTransactions data, int skipped) {
+		int position = -1;
+		if (skipped > 0 && skipped == this.inputCount) {
+			position = this.inputPosition;
+		}
+		List<int[]> batch = read(data, skipped, position);
+		this.inputCount = skipped + batch.size();
+		if (data instanceof RMCompactTransactions) {
+			this.inputPosition = ((RMCompactTransactions) data)
+					.getDataLength();
+		}
+
+		this.lastMinedPatterns = 0;
+		if (batch.isEmpty()) {
+			return this.patterns;
+		}
+
+		final int stored = this.positions.size();
+		for (int[] transaction : batch) {
+			final int tid = this.positions.size();
+			this.positions.add(this.transactions.getDataLength());
+			this.transactions.add(transaction, 0, transaction.length);
+			for (int item : transaction) {
+				if (item >= this.tids.length) {
+					this.tids = Arrays.copyOf(this.tids, Math.max(item + 1,
+							this.tids.length * 2));
+				}
+				if (this.tids[item] == null) {
+					this.tids[item] = new TIntArrayList();
+				}
+				this.tids[item].add(tid);
+			}
+		}
+
+		if (batch.size() >= stored) {
+			// most transactions are new : a single run over all of them costs
+			// less than one run per batch transaction
+			PerThreadCollector collector = new PerThreadCollector(
+					this.nbThreads, false);
+			if (this.transactions.getTransactionsCount() >= this.minSupport) {
+				PLCM miner = new PLCM(collector, this.nbThreads);
+				miner.lcm(new ExplorationStep(this.minSupport,
+						this.transactions));
+			}
+			collector.close();
+			this.patterns = collector.getPatterns();
+			this.lastMinedPatterns = this.patterns.size();
+			return this.patterns;
+		}
+
+		ConditionalDatabases databases = new ConditionalDatabases(
+				this.minSupport, this.nbThreads,
+				batch.toArray(new int[batch.size()][]),
+				this.transactions.getSupports(), this.history);
+
+		PackedPatterns updated = new PackedPatterns(this.patterns.size() + 16,
+				this.patterns.getOffset(this.patterns.size()) + 64);
+		BitSet scratch = new BitSet();
+		BitSet[] containing = databases.getContaining();
+
+		for (int i = 0; i < this.patterns.size(); i++) {
+			if (!touched(this.patterns, i, containing, scratch)) {
+				updated.add(this.patterns.getSupport(i),
+						this.patterns.getArena(), this.patterns.getOffset(i),
+						this.patterns.getOffset(i + 1));
+			}
+		}
+
+		databases.mine(0, batch.size(), updated);
+		this.lastMinedPatterns = databases.getMined();
+
+		this.patterns = updated;
+		return this.patterns;
+	}
+
+	/**
+	 * @param containing
+	 *            for each item, indexes of batch transactions containing it -
+	 *            null for items which can't be in a pattern
+	 * @return true if pattern i is included in a transaction of the batch
+	 */
+	static boolean touched(PackedPatterns patterns, int i,
+			BitSet[] containing, BitSet scratch) {
+		final int from = patterns.getOffset(i);
+		final int to = patterns.getOffset(i + 1);
+		final int[] arena = patterns.getArena();
+
+		if (from == to) {
+			// the empty pattern is in all transactions
+			return true;
+		}
+
+		for (int j = from; j < to; j++) {
+			if (arena[j] >= containing.length || containing[arena[j]] == null) {
+				return false;
+			}
+		}
+
+		scratch.clear();
+		scratch.or(containing[arena[from]]);
+		for (int j = from + 1; j < to && !scratch.isEmpty(); j++) {
+			scratch.and(containing[arena[j]]);
+		}
+		return !scratch.isEmpty();
+	}
+
+	/**
+	 * Stored transactions, as seen by ConditionalDatabases
+	 */
+	private final class History implements ConditionalDatabases.VerticalIndex {
+
+		@Override
+		public int getTransactionsCount() {
+			return positions.size();
+		}
+
+		@Override
+		public TIntArrayList getTids(int item) {
+			return (item < tids.length) ? tids[item] : null;
+		}
+
+		@Override
+		public void getTransaction(int tid, TIntArrayList items) {
+			items.resetQuick();
+			TransactionReader transaction = transactions.iteratorAt(
+					positions.getQuick(tid)).next();
+			while (transaction.hasNext()) {
+				items.add(transaction.next());
+			}
+		}
+	}
+
+	/**
+	 * @param position
+	 *            if data is compact, where transaction [skipped] starts in its
+	 *            data array, or -1 if it's unknown
+	 * @return transactions following the first [skipped] ones, as sorted
+	 *         distinct items
+	 */
+	static List<int[]> read(RMTransactions data, long skipped, int position) {
+		List<int[]> transactions = new ArrayList<int[]>();
+		TIntArrayList items = new TIntArrayList();
+
+		if (!(data instanceof RMCompactTransactions)) {
+			List<TIntArrayList> list = data.getTransactions();
+			for (int i = (int) Math.min(skipped, list.size()); i < list.size(); i++) {
+				items.resetQuick();
+				items.addAll(list.get(i));
+				transactions.add(sortedDistinct(items));
+			}
+			return transactions;
+		}
+
+		RMCompactTransactions compact = (RMCompactTransactions) data;
+		Iterator<TransactionReader> iterator;
+		if (position >= 0 && position <= compact.getDataLength()) {
+			iterator = compact.iteratorAt(position);
+		} else {
+			iterator = compact.iterator();
+			for (long i = 0; i < skipped && iterator.hasNext(); i++) {
+				// items which aren't read are skipped by hasNext()
+				iterator.next();
+			}
+		}
+
+		while (iterator.hasNext()) {
+			TransactionReader transaction = iterator.next();
+			items.resetQuick();
+			while (transaction.hasNext()) {
+				items.add(transaction.next());
+			}
+			transactions.add(sortedDistinct(items));
+		}
+		return transactions;
+	}
+
+	private static int[] sortedDistinct(TIntArrayList items) {
+		items.sort();
+		int[] sorted = items.toArray();
+		int distinct = 0;
+		for (int j = 0; j < sorted.length; j++) {
+			if (sorted[j] >= 0
+					&& (distinct == 0 || sorted[j] != sorted[distinct - 1])) {
+				sorted[distinct++] = sorted[j];
+			}
+		}
+		return (distinct == sorted.length) ? sorted : Arrays.copyOf(sorted,
+				distinct);
+	}
+}
@@ -0,0 +1,130 @@
+package com.rapidminer.lcm;
+
+import java.util.List;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
+import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.util.MiningThreadsPool;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+
+/**
+ * Keeps closed patterns from one execution to the next, updating them with
+ * transactions appended since the previous execution : see IncrementalMiner.
+ */
+public class IncrementalPlcmAlgo extends Operator {
+
+	private static final String threshold = "Support";
+	private static final String threads = "Number of threads";
+	private static final String wholeInput = "Input holds all transactions";
+	private static final String restart = "Mine all transactions again";
+
+	private InputPort input = this.getInputPorts().createPort("in");
+
+	private OutputPort output = this.getOutputPorts().createPort("res");
+
+	private OutputPort transformerOutput = this.getOutputPorts().createPort(
+			"patterns");
+
+	private IncrementalMiner miner = null;
+
+	public IncrementalPlcmAlgo(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		RMTransactions dataSet = input.getData(RMTransactions.class);
+
+		int support = 1;
+		int nbThreads = 1;
+		boolean whole = true;
+		boolean again = false;
+		try {
+			support = this.getParameterAsInt(threshold);
+			nbThreads = this.getParameterAsInt(threads);
+			whole = this.getParameterAsBoolean(wholeInput);
+			again = this.getParameterAsBoolean(restart);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		int skipped = 0;
+		if (whole && miner != null) {
+			skipped = miner.getTransactions().getTransactionsCount();
+			if (countTransactions(dataSet) < skipped) {
+				// it's not the same data, appended
+				again = true;
+			}
+		}
+
+		if (again || miner == null || miner.getMinSupport() != support) {
+			miner = new IncrementalMiner(support, nbThreads);
+			skipped = 0;
+		}
+
+		PackedPatterns patterns = miner.append(dataSet, whole ? skipped : 0);
+
+		ResultListIOObject results = new ResultListIOObject(patterns, support);
+		results.setTransactionsCount(miner.getTransactions()
+				.getTransactionsCount());
+		results.setComplete(true);
+		transformerOutput.deliver(results);
+
+		if (output.isConnected()) {
+			output.deliver(new PatternsExampleTable(patterns)
+					.createExampleSet());
+		}
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println(patterns.size() + " patterns ("
+				+ miner.getLastMinedPatterns()
+				+ " mined from new transactions) in milliseconds: "
+				+ difference);
+	}
+
+	private static int countTransactions(RMTransactions dataSet) {
+		if (dataSet instanceof RMCompactTransactions) {
+			return ((RMCompactTransactions) dataSet).getTransactionsCount();
+		}
+		return dataSet.getTransactions().size();
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeInt(threshold,
+				"Minimum support, changing it mines all transactions again",
+				1, Integer.MAX_VALUE, 10, false));
+
+		types.add(new ParameterTypeBoolean(
+				wholeInput,
+				"if checked, the input holds all transactions, as delivered by Read Incremental FIMI dataset: transactions following those of the previous execution are the new ones. Otherwise the input only holds new transactions",
+				true, false));
+
+		types.add(new ParameterTypeBoolean(restart,
+				"if checked, patterns kept by previous executions are ignored",
+				false, true));
+
+		types.add(MiningThreadsPool.createThreadsParameter(threads));
+
+		return types;
+	}
+}
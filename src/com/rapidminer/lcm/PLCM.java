@@ -34,6 +34,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 
 import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.ItemSupports;
 import com.rapidminer.lcm.internals.transactions.RMTransactions;
 import com.rapidminer.lcm.io.MultiThreadedFileCollector;
 import com.rapidminer.lcm.io.NullCollector;
@@ -41,8 +42,11 @@ import com.rapidminer.lcm.io.PatternSortCollector;
 import com.rapidminer.lcm.io.PatternsCollector;
 import com.rapidminer.lcm.io.StdOutCollector;
 import com.rapidminer.lcm.obj.ExecuteInformationsIOObject;
+import com.rapidminer.lcm.util.LimitsWatcherThread;
 import com.rapidminer.lcm.util.MemoryPeakWatcherThread;
+import com.rapidminer.lcm.util.MiningThreadsPool;
 import com.rapidminer.lcm.util.ProgressWatcherThread;
+import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.ports.OutputPort;
 
 /**
@@ -61,25 +65,57 @@ import com.rapidminer.operator.ports.OutputPort;
 public class PLCM {
 	final List<PLCMThread> threads;
 	private ProgressWatcherThread progressWatch;
-	protected static long chrono;
 
 	private final PatternsCollector collector;
 
 	private final long[] globalCounters;
 
+	private final MiningThreadsPool pool;
+
 	// public static ConcurrentHashMap<Integer, String> RMres = new
 	// ConcurrentHashMap<Integer, String>();
 
-	private static ArrayList<int[]> restab = new ArrayList<int[]>();
+	/**
+	 * this run's results, set by standalone
+	 */
+	private List<int[]> results = new ArrayList<int[]>(0);
+
+	private int transactionsCount = 0;
+
+	private volatile boolean stopped = false;
+
+	private volatile String stopReason = null;
+
+	/**
+	 * patterns collected outside PLCMThreads
+	 */
+	private volatile long rootCollected = 0;
+
+	private Operator operator = null;
+	private long maxPatterns = 0;
+	private long maxTime = 0;
+	private long maxHeap = 0;
 
 	// private static boolean startMemoryWatch;
 
 	public PLCM(PatternsCollector patternsCollector, int nbThreads) {
+		this(patternsCollector, nbThreads, MiningThreadsPool.getShared());
+	}
+
+	/**
+	 * @param nbThreads
+	 *            threads wanted, the run may get less of them from the pool
+	 * @param pool
+	 *            shared by concurrent runs
+	 */
+	public PLCM(PatternsCollector patternsCollector, int nbThreads,
+			MiningThreadsPool pool) {
 		if (nbThreads < 1) {
 			throw new IllegalArgumentException(
 					"nbThreads has to be > 0, given " + nbThreads);
 		}
 		this.collector = patternsCollector;
+		this.pool = pool;
 		this.threads = new ArrayList<PLCMThread>(nbThreads);
 		this.createThreads(nbThreads);
 		this.globalCounters = new long[PLCMCounters.values().length];
@@ -108,28 +144,56 @@ public class PLCM {
 	 * Initial invocation
 	 */
 	public final void lcm(final ExplorationStep initState) {
+		this.transactionsCount = initState.counters.transactionsCount;
+
 		if (initState.pattern.length > 0) {
 			this.collector.collect(initState.counters.transactionsCount,
 					initState.pattern);
+			this.rootCollected++;
 		}
 
-		this.initializeAndStartThreads(initState);
+		int granted = this.pool.acquire(this.threads.size());
+		if (granted < this.threads.size()) {
+			System.err.println("Mining with " + granted + " of "
+					+ this.threads.size() + " threads : the pool has "
+					+ this.pool.getSize() + " threads, shared by "
+					+ this.pool.getRuns() + " run(s)");
+		}
+		// threads we didn't get are never started
+		this.threads.subList(granted, this.threads.size()).clear();
 
-		this.progressWatch.setInitState(initState);
-		this.progressWatch.start();
+		LimitsWatcherThread limitsWatch = null;
+		try {
+			this.initializeAndStartThreads(initState);
 
-		for (PLCMThread t : this.threads) {
-			try {
-				t.join();
-				for (int i = 0; i < t.counters.length; i++) {
-					this.globalCounters[i] += t.counters[i];
+			this.progressWatch.setInitState(initState);
+			this.progressWatch.start();
+
+			if (this.operator != null || this.maxPatterns > 0
+					|| this.maxTime > 0 || this.maxHeap > 0) {
+				limitsWatch = new LimitsWatcherThread(this, this.operator,
+						this.maxPatterns, this.maxTime, this.maxHeap);
+				limitsWatch.start();
+			}
+
+			for (PLCMThread t : this.threads) {
+				try {
+					t.join();
+					for (int i = 0; i < t.counters.length; i++) {
+						this.globalCounters[i] += t.counters[i];
+					}
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
 				}
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
 			}
-		}
 
-		this.progressWatch.interrupt();
+			this.progressWatch.interrupt();
+		} finally {
+			if (limitsWatch != null) {
+				limitsWatch.interrupt();
+			}
+			this.pool.release(granted);
+		}
 	}
 
 	public Map<PLCMCounters, Long> getCounters() {
@@ -164,6 +228,12 @@ public class PLCM {
 			builder.append(this.globalCounters[i]);
 		}
 
+		if (this.stopReason != null) {
+			builder.append("\n");
+			builder.append("stopped : ");
+			builder.append(this.stopReason);
+		}
+
 		if (additionalCounters != null) {
 			for (Entry<String, Long> entry : additionalCounters.entrySet()) {
 				//builder.append(", ");
@@ -227,6 +297,11 @@ public class PLCM {
 		final List<ExplorationStep> stackedJobs;
 		protected final int id;
 
+		/**
+		 * only written by this thread
+		 */
+		volatile long collected = 0;
+
 		public PLCMThread(final int id) {
 			super("PLCMThread" + id);
 			this.stackedJobs = new ArrayList<ExplorationStep>();
@@ -251,7 +326,7 @@ public class PLCM {
 			// no need to readlock, this thread is the only one that can do
 			// writes
 			boolean exit = false;
-			while (!exit) {
+			while (!exit && !stopped) {
 				ExplorationStep sj = null;
 				if (!this.stackedJobs.isEmpty()) {
 					sj = this.stackedJobs.get(this.stackedJobs.size() - 1);
@@ -289,6 +364,7 @@ public class PLCM {
 
 		private void lcm(ExplorationStep state) {
 			collect(state.counters.transactionsCount, state.pattern);
+			this.collected++;
 
 			this.lock.writeLock().lock();
 			this.stackedJobs.add(state);
@@ -324,6 +400,21 @@ public class PLCM {
 			OutputPort consoleOutpout, boolean showThreadNb,
 			boolean startMemoryWatch, boolean verboseMode,
 			boolean ultraVerboseMode) {
+		standalone(support, fileLocation, dataSet, miner, output,
+				consoleOutpout, showThreadNb, startMemoryWatch, verboseMode,
+				ultraVerboseMode, null);
+	}
+
+	/**
+	 * @param itemSupports
+	 *            dataSet's items supports, if they were already counted (by a
+	 *            SupportSearch) - may be null
+	 */
+	public static void standalone(String support, String fileLocation,
+			RMTransactions dataSet, PLCM miner, OutputPort output,
+			OutputPort consoleOutpout, boolean showThreadNb,
+			boolean startMemoryWatch, boolean verboseMode,
+			boolean ultraVerboseMode, ItemSupports itemSupports) {
 		// String[] args = cmd.getArgs();
 		int nbThreads = 0;
 
@@ -343,7 +434,7 @@ public class PLCM {
 			memoryWatch.start();
 		}
 
-		chrono = System.currentTimeMillis();
+		long chrono = System.currentTimeMillis();
 		/*
 		 * Change new ExplorationStep(minsup, args[0])-> new
 		 * ExplorationStep(minsup, exampleset) *
@@ -358,7 +449,12 @@ public class PLCM {
 		// }
 		//
 
-		ExplorationStep initState = new ExplorationStep(minsup, dataSet);
+		ExplorationStep initState;
+		if (itemSupports == null) {
+			initState = new ExplorationStep(minsup, dataSet);
+		} else {
+			initState = new ExplorationStep(minsup, dataSet, itemSupports);
+		}
 		// System.out.println(initState.dataset.toString());
 		long loadingTime = System.currentTimeMillis() - chrono;
 		System.err.println("Dataset loaded in " + loadingTime + "ms");
@@ -370,12 +466,7 @@ public class PLCM {
 		// PatternsCollector collector = new StdOutCollector();
 		// initState.counters.getReverseRenaming();
 		// PLCM miner = new PLCM(collector, 1);
-		if (ultraVerboseMode) {
-			ExplorationStep.verbose = true;
-			ExplorationStep.ultraVerbose = true;
-		} else if (verboseMode) {
-			ExplorationStep.verbose = true;
-		}
+		initState.setVerbose(verboseMode, ultraVerboseMode);
 
 		// PLCM miner = new PLCM(collector, nbThreads);
 
@@ -383,6 +474,11 @@ public class PLCM {
 		miner.lcm(initState);
 		chrono = System.currentTimeMillis() - chrono;
 
+		if (miner.stopReason != null) {
+			System.err.println("Mining stopped, results are partial: "
+					+ miner.stopReason);
+		}
+
 		Map<String, Long> additionalCounters = new HashMap<String, Long>();
 		additionalCounters.put("miningTime", chrono);
 		additionalCounters.put("outputtedPatterns", miner.collector.close());
@@ -408,8 +504,7 @@ public class PLCM {
 		// RPCollector rp = (RPCollector) miner.collector;
 		// rp.showResultView(output);
 		// resConsole(miner, output);
-		// Arrays.fill(restab, null);
-		restab = miner.collector.getResultList();
+		miner.results = miner.collector.getResultList();
 	}
 
 	// Show the execution informations as a result perspective in GUI Rapidminer
@@ -431,8 +526,88 @@ public class PLCM {
 		return new ExecuteInformationsIOObject(nbThreads, info, verboseConsoles);
 	}
 
-	public static ArrayList<int[]> getResList() {
-		return restab;
+	/**
+	 * @return patterns kept in memory by this run's collector, once
+	 *         standalone returned
+	 */
+	public List<int[]> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * Makes mining threads return as soon as possible : patterns already
+	 * collected are kept, unexplored ones are lost. lcm() then returns.
+	 */
+	public void stop() {
+		this.stop("stop requested");
+	}
+
+	/**
+	 * @see #stop()
+	 * @param reason
+	 *            given by getStopReason(), unless the run was already stopped
+	 */
+	public synchronized void stop(String reason) {
+		if (!this.stopped) {
+			this.stopReason = reason;
+			this.stopped = true;
+		}
+	}
+
+	public boolean isStopped() {
+		return this.stopped;
+	}
+
+	/**
+	 * @return why the run was stopped before its end, null if it wasn't :
+	 *         results are then partial
+	 */
+	public String getStopReason() {
+		return this.stopReason;
+	}
+
+	/**
+	 * Limits are checked while lcm() runs, by a LimitsWatcherThread, so patterns
+	 * found between two checks are kept even beyond maxPatterns. Call this
+	 * before lcm().
+	 * 
+	 * @param operator
+	 *            the run is stopped with its RapidMiner process - may be null
+	 * @param maxPatterns
+	 *            0 for no limit
+	 * @param maxTime
+	 *            in milliseconds, 0 for no limit
+	 * @param maxHeap
+	 *            used heap, in bytes, 0 for no limit
+	 */
+	public void setLimits(Operator operator, long maxPatterns, long maxTime,
+			long maxHeap) {
+		this.operator = operator;
+		this.maxPatterns = maxPatterns;
+		this.maxTime = maxTime;
+		this.maxHeap = maxHeap;
+	}
+
+	/**
+	 * @return patterns collected so far
+	 */
+	public long getCollectedCount() {
+		long count = this.rootCollected;
+		for (PLCMThread t : this.threads) {
+			count += t.collected;
+		}
+		return count;
+	}
+
+	/**
+	 * @return transactions in the dataset mined by lcm()
+	 */
+	public int getTransactionsCount() {
+		return this.transactionsCount;
+	}
+
+	public PatternsCollector getCollector() {
+		return this.collector;
 	}
 
 	/**
@@ -1,23 +1,38 @@
 package com.rapidminer.lcm;
 
+import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.AttributeFactory;
-import com.rapidminer.example.table.DataRow;
-import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.lcm.exceptions.NoMatchedPatternsException;
 import com.rapidminer.lcm.exceptions.UndefinedSupportException;
+import com.rapidminer.lcm.exceptions.WrongDatabasePathException;
+import com.rapidminer.lcm.internals.ItemSupports;
 import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.AsyncCollector;
+import com.rapidminer.lcm.io.BinaryPatternsCollector;
 import com.rapidminer.lcm.io.MultiThreadedFileCollector;
+import com.rapidminer.lcm.io.PatternTreeCollector;
+import com.rapidminer.lcm.io.PatternsCache;
 import com.rapidminer.lcm.io.PatternsCollector;
-import com.rapidminer.lcm.io.RMCollector;
+import com.rapidminer.lcm.io.PerThreadCollector;
+import com.rapidminer.lcm.io.SQLiteCollector;
+import com.rapidminer.lcm.io.SQLitePatternsWriter;
+import com.rapidminer.lcm.io.SortedFileCollector;
+import com.rapidminer.lcm.io.TopNCollector;
+import com.rapidminer.lcm.obj.BinaryPatternsIOObject;
+import com.rapidminer.lcm.obj.PatternFilesIOObject;
+import com.rapidminer.lcm.obj.PatternTreeIOObject;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
 import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.util.MiningThreadsPool;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.lcm.util.PatternTree;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
@@ -25,11 +40,12 @@ import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeDirectory;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
-import com.rapidminer.tools.Ontology;
 
 public class PlcmAlgo extends Operator {
 
@@ -54,6 +70,16 @@ public class PlcmAlgo extends Operator {
 
 	private static final String beginWriteFile = "Write Mining Result As File(s)";
 	private static final String results = "Result File Location";
+	private static final String keepResults = "Keep results in memory";
+	private static final String bufferSize = "Output buffer size (KB)";
+	private static final String resultFormat = "Result File Format";
+
+	private static final String[] resultFormats = { "text", "binary",
+			"sorted text" };
+
+	private static final String sortMemory = "Sort memory (MB)";
+
+	private static final String topPatterns = "Top patterns";
 
 	private static final String useThread = "Thread usage";
 	private static final String threads = "Number of threads";
@@ -64,8 +90,46 @@ public class PlcmAlgo extends Operator {
 
 	private static final String ultraVerbose = "ultra-verbose mode";
 
+	private static final String orderedResults = "Deterministic result order";
+
+	private static final String treeResults = "Store results as a prefix tree";
+
+	private static final String writeDatabase = "Write results to SQLite database";
+	private static final String databasePath = "SQLite database path";
+	private static final String databaseTable = "SQLite table name";
+
+	private static final String asyncOutput = "Asynchronous output";
+	private static final String asyncQueueSize = "Output queue size";
+	private static final String asyncPolicy = "Full output queue policy";
+
+	private static final String autoSupport = "Automatic support";
+	private static final String maxPatterns = "Maximum patterns";
+	private static final String timeBudget = "Time budget (s)";
+
+	private static final String patternLimit = "Pattern limit";
+	private static final String timeLimit = "Time limit (s)";
+	private static final String heapLimit = "Heap limit (MB)";
+
+	private static final String useCache = "Use results cache";
+	private static final String cacheDirectory = "Results cache directory";
+	private static final String cacheSize = "Results cache size (MB)";
+
 	private Attribute[] attributes;
-	private Integer[] stdTransactionline;
+
+	// only set when results are written to files without being kept in memory
+	private PatternsCollector streamingCollector;
+
+	private PatternTree resultTree;
+
+	private SQLiteCollector databaseCollector;
+
+	// patterns kept in memory by the last run
+	private List<int[]> resultList;
+
+	private int transactionsCount;
+
+	// why the last run stopped before its end, null if it didn't
+	private String truncation;
 
 	// public static final String PARAMETERFREQUENCY = " frequency ";
 
@@ -95,13 +159,28 @@ public class PlcmAlgo extends Operator {
 			boolean verboseMode = false;
 			boolean ultraVerboseMode = false;
 			boolean writeFile = false;
+			boolean ordered = false;
+			boolean streaming = false;
+			int bufferKB = 1024;
+			boolean binary = false;
+			boolean sorted = false;
+			int sortMemoryMB = 64;
+			int topN = 0;
+			boolean tree = false;
+			SQLitePatternsWriter database = null;
+			int queueSize = 0;
+			int queuePolicy = AsyncCollector.BLOCK;
 
 			// boolean writeFile = false;
 
 			// arguments[0] = this.getParameter(operation);
 			// arguments[1] = this.getParameter(dataset);
+			boolean automatic = this.getParameterAsBoolean(autoSupport);
+
 			support = this.getParameter(threshold);
-			if (support.equals(null) || support == "" || support == "\\s"
+			if (automatic) {
+				// found once other parameters are read
+			} else if (support.equals(null) || support == "" || support == "\\s"
 					|| support.isEmpty() || support == null
 					|| support.equals("0")) {
 				throw new UndefinedSupportException("Support Error!");
@@ -113,14 +192,60 @@ public class PlcmAlgo extends Operator {
 
 			if (writeFile) {
 				outputLocation = this.getParameter(results);
+				streaming = !this.getParameterAsBoolean(keepResults);
+				bufferKB = this.getParameterAsInt(bufferSize);
+				binary = (this.getParameterAsInt(resultFormat) == 1);
+				sorted = (this.getParameterAsInt(resultFormat) == 2);
+				sortMemoryMB = this.getParameterAsInt(sortMemory);
+			} else {
+				topN = this.getParameterAsInt(topPatterns);
 			}
 
 			showThreadNb = this.getParameterAsBoolean(useThread);
 			threadsNb = this.getParameterAsInt(threads);
 
+			long maxCollected = this.getParameterAsInt(patternLimit);
+			long maxDuration = this.getParameterAsInt(timeLimit) * 1000L;
+			long maxUsedHeap = this.getParameterAsInt(heapLimit) * 1024L * 1024L;
+
 			startMemoryWatch = this.getParameterAsBoolean(memoryWatch);
 			verboseMode = this.getParameterAsBoolean(verbose);
 			ultraVerboseMode = this.getParameterAsBoolean(ultraVerbose);
+			ordered = this.getParameterAsBoolean(orderedResults);
+			tree = this.getParameterAsBoolean(treeResults);
+
+			if (this.getParameterAsBoolean(asyncOutput)) {
+				queueSize = this.getParameterAsInt(asyncQueueSize);
+				queuePolicy = this.getParameterAsInt(asyncPolicy);
+			}
+
+			if (this.getParameterAsBoolean(writeDatabase)) {
+				String nameofdb = this.getParameter(databasePath);
+				try {
+					database = new SQLitePatternsWriter(nameofdb,
+							this.getParameter(databaseTable),
+							SQLitePatternsWriter.DEFAULT_BATCH_SIZE,
+							SQLitePatternsWriter.DEFAULT_COMMIT_INTERVAL);
+				} catch (SQLException e) {
+					e.printStackTrace();
+					throw new WrongDatabasePathException(
+							"Please check your database path!");
+				}
+			}
+
+			ItemSupports itemSupports = null;
+			if (automatic) {
+				long chrono = System.currentTimeMillis();
+				SupportSearch search = new SupportSearch(this, dataSet,
+						threadsNb, this.getParameterAsInt(maxPatterns),
+						this.getParameterAsInt(timeBudget) * 1000L);
+				support = String.valueOf(search.search());
+				itemSupports = search.getItemSupports();
+				chrono = System.currentTimeMillis() - chrono;
+				System.out.println("Support " + support + " chosen after "
+						+ search.getProbes() + " probes, in milliseconds: "
+						+ chrono);
+			}
 
 			// writeFile = this.getParameterAsBoolean(beginWriteFile);
 
@@ -131,10 +256,43 @@ public class PlcmAlgo extends Operator {
 				}
 			}
 
+			// only results kept in memory as a list are cached
+			PatternsCache cache = null;
+			String fingerprint = null;
+			PatternsCache.Entry cached = null;
+			if (this.getParameterAsBoolean(useCache) && outputLocation == null
+					&& topN == 0 && !tree && database == null) {
+				cache = new PatternsCache(new File(
+						this.getParameter(cacheDirectory)),
+						this.getParameterAsInt(cacheSize) * 1024L * 1024L);
+				fingerprint = PatternsCache.fingerprint(dataSet);
+				cached = cache.get(fingerprint, Integer.parseInt(support));
+			}
+
 			try {
-				this.doLcm(support, outputLocation, dataSet, showThreadNb,
-						threadsNb, startMemoryWatch, verboseMode,
-						ultraVerboseMode);
+				if (cached != null) {
+					this.useCachedResults(cached, ordered);
+				} else {
+					this.doLcm(support, outputLocation, dataSet, showThreadNb,
+							threadsNb, startMemoryWatch, verboseMode,
+							ultraVerboseMode, ordered, streaming, bufferKB,
+							binary, sorted, sortMemoryMB, topN, tree, database,
+							queueSize, queuePolicy, itemSupports, maxCollected,
+							maxDuration, maxUsedHeap);
+
+					// mining threads returned early if the process was stopped
+					this.checkForStop();
+
+					if (cache != null) {
+						// refused if truncated
+						ResultListIOObject results = new ResultListIOObject(
+								resultList, Integer.parseInt(support));
+						results.setTransactionsCount(transactionsCount);
+						results.setComplete(true);
+						results.setTruncation(truncation);
+						cache.put(fingerprint, results);
+					}
+				}
 
 				long lEndTime = System.currentTimeMillis();
 
@@ -143,12 +301,58 @@ public class PlcmAlgo extends Operator {
 				System.out.println("doWork milliseconds: " + difference);
 			} catch (NoMatchedPatternsException e) {
 				e.errorDialog();
+			} catch (RuntimeException e) {
+				// collectors report write failures wrapped in a
+				// RuntimeException when closed
+				if (e.getCause() instanceof IOException) {
+					throw new OperatorException(e.getMessage(), e.getCause());
+				}
+				throw e;
+			} finally {
+				if (database != null) {
+					// closed with the collector, unless mining failed
+					database.abort();
+				}
 			}
 
-			if (transformerOutput.isConnected()) {
-				ResultListIOObject resultlist = new ResultListIOObject(
-						PLCM.getResList(), Integer.valueOf(support));
-				transformerOutput.deliver(resultlist);
+			if (databaseCollector != null
+					&& databaseCollector.getError() != null) {
+				throw new OperatorException(
+						"Can't insert patterns in the database",
+						databaseCollector.getError());
+			}
+
+			ResultListIOObject patterns = null;
+			if (!transformerOutput.isConnected()) {
+				// nothing to deliver
+			} else if (streamingCollector instanceof BinaryPatternsCollector) {
+				// patterns will only be read from the file if needed
+				patterns = new BinaryPatternsIOObject(new File(
+						((BinaryPatternsCollector) streamingCollector)
+								.getPath()), 0, null, Integer.valueOf(support));
+			} else if (streamingCollector instanceof SortedFileCollector) {
+				SortedFileCollector file = (SortedFileCollector) streamingCollector;
+				patterns = new PatternFilesIOObject(
+						new String[] { file.getPath() }, file.getCollected(),
+						Integer.valueOf(support));
+			} else if (streamingCollector != null) {
+				MultiThreadedFileCollector files = (MultiThreadedFileCollector) streamingCollector;
+				patterns = new PatternFilesIOObject(files.getPatternFiles(),
+						files.getCollected(), Integer.valueOf(support));
+			} else if (resultTree != null) {
+				patterns = new PatternTreeIOObject(resultTree,
+						Integer.valueOf(support));
+			} else {
+				patterns = new ResultListIOObject(resultList,
+						Integer.valueOf(support));
+			}
+			if (patterns != null) {
+				// needed to compute rules' lift
+				patterns.setTransactionsCount(transactionsCount);
+				// top-N patterns can't give supports of other itemsets
+				patterns.setComplete(topN == 0);
+				patterns.setTruncation(truncation);
+				transformerOutput.deliver(patterns);
 			}
 			// this.endLcm();
 			// res.deliver(arguments);
@@ -170,10 +374,8 @@ public class PlcmAlgo extends Operator {
 				"if checked, you can input the number of thread which you want to use for your work",
 				false, false));
 
-		ParameterType threadsType = new ParameterTypeInt(
-				threads,
-				"How many threads will be launched (defaults to your machine's processors count)",
-				1, 4, 1, true);
+		ParameterType threadsType = MiningThreadsPool
+				.createThreadsParameter(threads);
 
 		types.add(new ParameterTypeBoolean(
 				memoryWatch,
@@ -190,8 +392,82 @@ public class PlcmAlgo extends Operator {
 				"Enable ultra-verbose mode, which logs every pattern extension (use with care: it may produce a LOT of output)",
 				false, false));
 
+		types.add(new ParameterTypeBoolean(
+				orderedResults,
+				"Sort patterns by decreasing support, so results are the same from one run to another (patterns' items are sorted too)",
+				false, true));
+
+		types.add(new ParameterTypeBoolean(
+				treeResults,
+				"Keep patterns in memory as a prefix tree, where each pattern shares its parent's items: uses less memory when patterns are long (results are then always in the same order, the previous option is ignored)",
+				false, true));
+
+		types.add(new ParameterTypeBoolean(
+				writeDatabase,
+				"Insert patterns in a SQLite database (as Write SQLite does) while they're mined",
+				false, true));
+
+		ParameterType databasePathType = new ParameterTypeString(databasePath,
+				"Database file, without its .db extension", true);
+		databasePathType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, writeDatabase, true, true));
+		types.add(databasePathType);
+
+		ParameterType databaseTableType = new ParameterTypeString(
+				databaseTable, "Tables' prefix", "tbl", true);
+		databaseTableType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, writeDatabase, true, true));
+		types.add(databaseTableType);
+
+		types.add(new ParameterTypeBoolean(
+				asyncOutput,
+				"Mining threads put patterns in a queue, and a dedicated thread gives them to the output (files, database or memory), so mining doesn't wait for it",
+				false, true));
+
+		ParameterType asyncQueueSizeType = new ParameterTypeInt(
+				asyncQueueSize,
+				"Patterns the output queue can hold (rounded up to a power of two)",
+				2, 16 * 1024 * 1024, AsyncCollector.DEFAULT_CAPACITY, true);
+		asyncQueueSizeType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, asyncOutput, true, true));
+		types.add(asyncQueueSizeType);
+
+		ParameterType asyncPolicyType = new ParameterTypeCategory(
+				asyncPolicy,
+				"When the output queue is full, mining threads either wait (block) or give their patterns to the output themselves (caller runs, patterns' order is then not kept). In verbose mode, queue metrics are printed after mining",
+				AsyncCollector.POLICIES, AsyncCollector.BLOCK, true);
+		asyncPolicyType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, asyncOutput, true, true));
+		types.add(asyncPolicyType);
+
 		types.add(new ParameterTypeString(threshold, "threshold", true));
 
+		types.add(new ParameterTypeBoolean(
+				autoSupport,
+				"if checked, Support is ignored: the lowest support giving at most Maximum patterns, within the Time budget, is searched by shorter mining runs which only count patterns",
+				false, false));
+
+		ParameterType maxPatternsType = new ParameterTypeInt(maxPatterns,
+				"Highest number of patterns wanted (0 for no limit)", 0,
+				Integer.MAX_VALUE, 100000, false);
+		maxPatternsType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, autoSupport, true, true));
+		types.add(maxPatternsType);
+
+		ParameterType timeBudgetType = new ParameterTypeInt(
+				timeBudget,
+				"Longest time a run counting patterns may take at the chosen support (0 for no limit)",
+				0, Integer.MAX_VALUE, 0, false);
+		timeBudgetType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, autoSupport, true, true));
+		types.add(timeBudgetType);
+
 		types.add(new ParameterTypeBoolean(
 				beginWriteFile,
 				"if checked, you can input a location and name of file(s) for mining results, the number of file depend the number of thread that you used",
@@ -203,12 +479,103 @@ public class PlcmAlgo extends Operator {
 		outFileType.registerDependencyCondition(new BooleanParameterCondition(
 				this, beginWriteFile, true, true));
 
+		ParameterType keepResultsType = new ParameterTypeBoolean(
+				keepResults,
+				"if unchecked, patterns are only written to files: memory usage does not depend on the number of patterns. The res table is not built, and the patterns output reads the files when it is used",
+				true, true);
+
+		keepResultsType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, beginWriteFile, true, true));
+
 		threadsType.registerDependencyCondition(new BooleanParameterCondition(
 				this, useThread, true, true));
 
 		types.add(outFileType);
+		types.add(keepResultsType);
+
+		ParameterType bufferSizeType = new ParameterTypeInt(
+				bufferSize,
+				"Size of each output buffer (each thread has two of them: one is written to disk while the other is filled)",
+				4, 256 * 1024, 1024, true);
+
+		bufferSizeType.registerDependencyCondition(new BooleanParameterCondition(
+				this, beginWriteFile, true, true));
+
+		types.add(bufferSizeType);
+
+		ParameterType resultFormatType = new ParameterTypeCategory(
+				resultFormat,
+				"text: one file per thread, with a pattern per line. binary: a single compact file (Result File Location.plcp) which can be read by Read Binary Patterns, patterns are never kept in memory. sorted text: a single text file, patterns sorted by decreasing support, never kept in memory",
+				resultFormats, 0, true);
+
+		resultFormatType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, beginWriteFile, true, true));
+
+		types.add(resultFormatType);
+
+		ParameterType sortMemoryType = new ParameterTypeInt(
+				sortMemory,
+				"Memory used to sort patterns (sorted text format), beyond which sorted parts are written to temporary files then merged",
+				1, 64 * 1024, 64, true);
+
+		sortMemoryType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, beginWriteFile, true, true));
+
+		types.add(sortMemoryType);
+
+		ParameterType topPatternsType = new ParameterTypeInt(
+				topPatterns,
+				"Only keep this number of patterns, those with the highest supports (0 keeps all patterns). Kept patterns are sorted by decreasing support",
+				0, Integer.MAX_VALUE, 0, true);
+
+		topPatternsType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, beginWriteFile, true, false));
+
+		types.add(topPatternsType);
 		types.add(threadsType);
 
+		types.add(new ParameterTypeInt(
+				patternLimit,
+				"Mining stops once this number of patterns is found, results are then partial (0 for no limit)",
+				0, Integer.MAX_VALUE, 0, true));
+
+		types.add(new ParameterTypeInt(
+				timeLimit,
+				"Mining stops after this time, results are then partial (0 for no limit)",
+				0, Integer.MAX_VALUE, 0, true));
+
+		types.add(new ParameterTypeBoolean(
+				useCache,
+				"if checked, results kept in memory are stored on disk: a later run on the same data at the same or a higher support reads them instead of mining",
+				false, true));
+
+		ParameterType cacheDirectoryType = new ParameterTypeDirectory(
+				cacheDirectory, "Where cached results are stored", System
+						.getProperty("java.io.tmpdir")
+						+ File.separator
+						+ "plcm-cache");
+		cacheDirectoryType
+				.registerDependencyCondition(new BooleanParameterCondition(
+						this, useCache, true, true));
+		types.add(cacheDirectoryType);
+
+		ParameterType cacheSizeType = new ParameterTypeInt(
+				cacheSize,
+				"Cached results beyond this size are deleted, least recently used first",
+				1, Integer.MAX_VALUE, 1024, true);
+		cacheSizeType.registerDependencyCondition(new BooleanParameterCondition(
+				this, useCache, true, true));
+		types.add(cacheSizeType);
+
+		types.add(new ParameterTypeInt(
+				heapLimit,
+				"Mining stops once the used heap reaches this size, results are then partial (0 for no limit)",
+				0, Integer.MAX_VALUE, 0, true));
+
 		return types;
 	}
 
@@ -218,7 +585,11 @@ public class PlcmAlgo extends Operator {
 	public void doLcm(String support, String outputLocation,
 			RMTransactions dataSet, boolean showThreadNb, int threadsNb,
 			boolean startMemoryWatch, boolean verboseMode,
-			boolean ultraVerboseMode) throws NoMatchedPatternsException {
+			boolean ultraVerboseMode, boolean ordered, boolean streaming,
+			int bufferKB, boolean binary, boolean sorted, int sortMemoryMB,
+			int topN, boolean tree, SQLitePatternsWriter database, int queueSize, int queuePolicy,
+			ItemSupports itemSupports, long maxCollected, long maxDuration,
+			long maxUsedHeap) throws NoMatchedPatternsException {
 
 		int nbThreads = Runtime.getRuntime().availableProcessors();
 		// Options options = new Options();
@@ -237,24 +608,95 @@ public class PlcmAlgo extends Operator {
 
 		// System.out.println(outputPath);
 
-		PatternsCollector collector = initCollector(outputPath, nbThreads);
+		PatternsCollector collector = initCollector(outputPath, nbThreads,
+				ordered, streaming, bufferKB * 1024, binary, sorted,
+				sortMemoryMB * 1024L * 1024L, topN, Integer.parseInt(support),
+				tree);
+
+		if (collector instanceof PatternTreeCollector) {
+			resultTree = ((PatternTreeCollector) collector).getTree();
+		} else {
+			resultTree = null;
+		}
+
+		if (collector instanceof BinaryPatternsCollector
+				|| collector instanceof SortedFileCollector
+				|| (streaming && collector instanceof MultiThreadedFileCollector)) {
+			streamingCollector = collector;
+		} else {
+			streamingCollector = null;
+		}
+
+		if (database != null) {
+			// the database is filled while mining, and closed with the
+			// collector
+			databaseCollector = new SQLiteCollector(database, collector);
+			collector = databaseCollector;
+		} else {
+			databaseCollector = null;
+		}
+
+		AsyncCollector asyncCollector = null;
+		if (queueSize > 0) {
+			asyncCollector = new AsyncCollector(collector, queueSize,
+					queuePolicy, verboseMode);
+			collector = asyncCollector;
+		}
 		// PatternsCollector collector = initCollector(null, nbThreads);
 
 		PLCM miner = new PLCM(collector, nbThreads);
+		miner.setLimits(this, maxCollected, maxDuration, maxUsedHeap);
 
 		// PLCM plcm = new PLCM(null, applyCountAtLastExecution)
 
-		PLCM.standalone(support, outputLocation, dataSet, miner, output,
-				infoOutput, showThreadNb, startMemoryWatch, verboseMode,
-				ultraVerboseMode);
+		boolean mined = false;
+		try {
+			PLCM.standalone(support, outputLocation, dataSet, miner, output,
+					infoOutput, showThreadNb, startMemoryWatch, verboseMode,
+					ultraVerboseMode, itemSupports);
+			mined = true;
+		} finally {
+			if (!mined && asyncCollector != null) {
+				// its writer thread would wait for patterns forever
+				asyncCollector.stop();
+			}
+		}
+
+		resultList = miner.getResults();
+		transactionsCount = miner.getTransactionsCount();
+		truncation = miner.getStopReason();
+
+		if (asyncCollector != null && verboseMode) {
+			System.out.println("Output queue: " + asyncCollector.getMetrics());
+		}
 
-		if (PLCM.getResList().size() < 1) {
+		if (streamingCollector != null) {
+			long collected;
+			if (streamingCollector instanceof BinaryPatternsCollector) {
+				collected = ((BinaryPatternsCollector) streamingCollector)
+						.getCollected();
+			} else if (streamingCollector instanceof SortedFileCollector) {
+				collected = ((SortedFileCollector) streamingCollector)
+						.getCollected();
+			} else {
+				collected = ((MultiThreadedFileCollector) streamingCollector)
+						.getCollected();
+			}
+			if (collected < 1) {
+				throw new NoMatchedPatternsException(
+						"Too big support exception");
+			}
+			System.out.println("Patterns written to files only, "
+					+ collected + " patterns");
+		}
+
+		else if (resultList.size() < 1) {
 			throw new NoMatchedPatternsException("Too big support exception");
 		}
 
 		else {
 			long lStartTime = System.currentTimeMillis();
-			createAttributes(PLCM.getResList());
+			createAttributes(resultList);
 			if (output.isConnected()) {
 				createExampleTable(attributes, output);
 			}
@@ -267,28 +709,86 @@ public class PlcmAlgo extends Operator {
 		// PLCM.printMan(options);
 	}
 
+	/**
+	 * Delivers patterns read from the results cache, as doLcm would have
+	 * delivered them
+	 * 
+	 * @param cached
+	 * @param ordered
+	 * @throws NoMatchedPatternsException
+	 */
+	private void useCachedResults(PatternsCache.Entry cached, boolean ordered)
+			throws NoMatchedPatternsException {
+		PackedPatterns patterns = cached.getPatterns();
+		if (ordered) {
+			patterns = patterns.sorted();
+		}
+		resultList = patterns.lines();
+		transactionsCount = cached.getTransactionsCount();
+		truncation = null;
+		streamingCollector = null;
+		resultTree = null;
+		databaseCollector = null;
+
+		System.out.println("Results cache hit: " + resultList.size()
+				+ " patterns, filtered from a run at support "
+				+ cached.getMinedSupport());
+
+		if (resultList.size() < 1) {
+			throw new NoMatchedPatternsException("Too big support exception");
+		}
+
+		createAttributes(resultList);
+		if (output.isConnected()) {
+			createExampleTable(attributes, output);
+		}
+	}
+
 	/**
 	 * According to the "output path" and "number of Threads" which user used
 	 * for generating a result collector
 	 * 
 	 * @param outputPath
 	 * @param nbThreads
+	 * @param ordered
+	 * @param streaming
+	 * @param bufferCapacity
+	 * @param binary
+	 * @param sorted
+	 * @param sortMemory
+	 * @param topN
+	 * @param minSupport
+	 * @param tree
 	 * @return
 	 */
 	private static PatternsCollector initCollector(String outputPath,
-			int nbThreads) {
+			int nbThreads, boolean ordered, boolean streaming,
+			int bufferCapacity, boolean binary, boolean sorted,
+			long sortMemory, int topN, int minSupport, boolean tree) {
 		PatternsCollector collector = null;
 		if (outputPath != null) {
 			try {
-				collector = new MultiThreadedFileCollector(outputPath,
-						nbThreads);
+				if (binary) {
+					collector = new BinaryPatternsCollector(outputPath
+							+ ".plcp", nbThreads, minSupport);
+				} else if (sorted) {
+					collector = new SortedFileCollector(outputPath, nbThreads,
+							sortMemory);
+				} else {
+					collector = new MultiThreadedFileCollector(outputPath,
+							nbThreads, streaming, bufferCapacity, true);
+				}
 			} catch (IOException e) {
 				e.printStackTrace();
 				System.err.println("Aborting mining.");
 				System.exit(1);
 			}
+		} else if (topN > 0) {
+			collector = new TopNCollector(topN);
+		} else if (tree) {
+			collector = new PatternTreeCollector();
 		} else
-			collector = new RMCollector();
+			collector = new PerThreadCollector(nbThreads, ordered);
 		// collector = new StdOutCollector();
 		return collector;
 	}
@@ -302,48 +802,27 @@ public class PlcmAlgo extends Operator {
 	 * 
 	 * @param transactionsList
 	 */
-	public void createAttributes(ArrayList<int[]> transactionsList) {
-		int lengthOflongestTransaction = 0;
-		for (int i = 0; i < transactionsList.size(); i++) {
-			if (transactionsList.get(i).length > lengthOflongestTransaction) {
-				lengthOflongestTransaction = transactionsList.get(i).length;
-			}
-		}
-		attributes = new Attribute[lengthOflongestTransaction - 1];
-		attributes[0] = AttributeFactory.createAttribute("Support",
-				Ontology.INTEGER);
-		for (int i = 1; i < attributes.length; i++) {
-			attributes[i] = AttributeFactory.createAttribute("item " + i,
-					Ontology.INTEGER);
-		}
+	public void createAttributes(List<int[]> transactionsList) {
+		int lengthOflongestTransaction = PatternsExampleTable
+				.getMaxLength(PackedPatterns.pack(transactionsList));
+		attributes = PatternsExampleTable.createAttributes(
+				lengthOflongestTransaction).toArray(new Attribute[0]);
 	}
 
 	/**
 	 * create result as a Example Table to deliver to the result perspective,
 	 * this method uses the array of attributes that generated before.
 	 * 
+	 * The table reads values from the packed results when they're accessed,
+	 * instead of copying each pattern in a row.
+	 * 
 	 * @param attributes
 	 * @param output
 	 */
 	public void createExampleTable(Attribute[] attributes, OutputPort output) {
-		stdTransactionline = new Integer[attributes.length];
-		Arrays.fill(stdTransactionline, null);
-
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
-		DataRowFactory ROW_FACTORY = new DataRowFactory(0, ',');
-
-		for (int[] transaction : PLCM.getResList()) {
-
-			// if (transaction[0] >= this.getParameterAsInt(threshold)) {
-			for (int i = 0; i < transaction.length - 1; i++) {
-				stdTransactionline[i] = transaction[i];
-			}
-			DataRow dataRow = ROW_FACTORY
-					.create(stdTransactionline, attributes);
-			table.addDataRow(dataRow);
-			// }
-			Arrays.fill(stdTransactionline, null);
-		}
+		PatternsExampleTable table = new PatternsExampleTable(
+				PackedPatterns.pack(resultList),
+				Arrays.asList(attributes));
 		ExampleSet resultExampleSet = table.createExampleSet();
 
 		if (output.isConnected()) {
@@ -0,0 +1,266 @@
+package com.rapidminer.lcm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.PerThreadCollector;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.lcm.util.SupportIndex;
+
+/**
+ * Maintains closed patterns at a minimum support over the last N transactions
+ * of a stream, as IncrementalMiner does for appended transactions.
+ *
+ * When the window slides, an itemset which is not included in any entering or
+ * expiring transaction keeps its support and its closure : such patterns are
+ * kept. Other closed patterns are included in one of these transactions, so
+ * they're mined from these transactions' conditional databases in the window
+ * (see ConditionalDatabases), then checked :
+ *
+ * - an itemset included in an entering transaction has its closure in it, so
+ * patterns of entering transactions' conditional databases are closed
+ *
+ * - an itemset only included in expiring transactions may now have a closure
+ * with other items. This closure is kept, or mined from another changed
+ * transaction, with the same support : a SupportIndex of all these patterns
+ * finds it.
+ *
+ * A slide decodes the window once to build tid lists of the changed
+ * transactions' frequent items, then only explores subsets of changed
+ * transactions. When entering transactions are at least half of the window,
+ * it's rather mined by a single PLCM run.
+ *
+ * The window is a ring of sorted transactions rather than an
+ * RMCompactTransactions, whose remove() moves all following transactions :
+ * expiring the oldest ones would copy the whole window at each slide.
+ *
+ * Patterns can be read at any time : getPatterns() returns those of the last
+ * complete slide.
+ */
+public final class SlidingWindowMiner {
+
+	private final int minSupport;
+	private final int nbThreads;
+
+	/**
+	 * transactions in the window, as sorted items, in a ring starting at first
+	 */
+	private final int[][] window;
+	private int first = 0;
+	private int size = 0;
+
+	/**
+	 * items' supports in the window
+	 */
+	private int[] supports = new int[16];
+
+	private long seen = 0;
+
+	/**
+	 * where the next transaction starts in the input, if it's compact :
+	 * sliding from there doesn't read seen ones again
+	 */
+	private int inputPosition = 0;
+
+	private volatile PackedPatterns patterns = new PackedPatterns(16, 64);
+
+	private long lastMinedPatterns = 0;
+
+	/**
+	 * @param windowSize
+	 *            transactions in the window
+	 */
+	public SlidingWindowMiner(int minSupport, int windowSize, int nbThreads) {
+		this.minSupport = minSupport;
+		this.nbThreads = nbThreads;
+		this.window = new int[windowSize][];
+	}
+
+	public int getMinSupport() {
+		return this.minSupport;
+	}
+
+	public int getWindowSize() {
+		return this.window.length;
+	}
+
+	/**
+	 * @return transactions currently in the window
+	 */
+	public synchronized int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return transactions given to slide() so far
+	 */
+	public synchronized long getSeen() {
+		return this.seen;
+	}
+
+	/**
+	 * @return closed patterns in the window, as of the last complete slide
+	 */
+	public PackedPatterns getPatterns() {
+		return this.patterns;
+	}
+
+	/**
+	 * @return patterns found by the last slide's mining runs
+	 */
+	public synchronized long getLastMinedPatterns() {
+		return this.lastMinedPatterns;
+	}
+
+	/**
+	 * @see #slide(RMTransactions, long)
+	 */
+	public PackedPatterns slide(RMTransactions incoming) {
+		return this.slide(incoming, 0);
+	}
+
+	/**
+	 * Makes transactions of data following the first [skipped] ones enter the
+	 * window, so the oldest ones expire, then updates closed patterns
+	 *
+	 * @return closed patterns in the window
+	 */
+	public synchronized PackedPatterns slide(RMTransactions data, long skipped) {
+		int position = -1;
+		if (skipped > 0 && skipped == this.seen) {
+			position = this.inputPosition;
+		}
+		List<int[]> incoming = IncrementalMiner.read(data, skipped, position);
+		this.seen = skipped + incoming.size();
+		if (data instanceof RMCompactTransactions) {
+			this.inputPosition = ((RMCompactTransactions) data)
+					.getDataLength();
+		}
+
+		// transactions which would expire in this slide never enter
+		final int entering = Math.min(incoming.size(), this.window.length);
+		final int expiring = Math.max(0, this.size + entering
+				- this.window.length);
+		this.lastMinedPatterns = 0;
+		if (entering == 0) {
+			return this.patterns;
+		}
+
+		// entering transactions first, then expiring ones
+		int[][] changed = new int[entering + expiring][];
+		for (int t = 0; t < expiring; t++) {
+			int[] transaction = this.window[this.first];
+			this.window[this.first] = null;
+			this.first = (this.first + 1) % this.window.length;
+			this.size--;
+			changed[entering + t] = transaction;
+			for (int item : transaction) {
+				this.supports[item]--;
+			}
+		}
+		for (int t = 0; t < entering; t++) {
+			int[] transaction = incoming.get(incoming.size() - entering + t);
+			this.window[(this.first + this.size) % this.window.length] = transaction;
+			this.size++;
+			changed[t] = transaction;
+			for (int item : transaction) {
+				if (item >= this.supports.length) {
+					this.supports = Arrays.copyOf(this.supports, Math.max(
+							item + 1, this.supports.length * 2));
+				}
+				this.supports[item]++;
+			}
+		}
+
+		if (entering >= this.size - entering) {
+			// most of the window is new : a single run over it costs less
+			// than one run per changed transaction
+			this.patterns = this.mineWindow();
+			this.lastMinedPatterns = this.patterns.size();
+			return this.patterns;
+		}
+
+		ConditionalDatabases databases = new ConditionalDatabases(
+				this.minSupport, this.nbThreads, changed, this.supports);
+		for (int t = 0; t < this.size; t++) {
+			int[] transaction = this.window[(this.first + t)
+					% this.window.length];
+			databases.add(transaction, transaction.length);
+		}
+
+		PackedPatterns previous = this.patterns;
+		PackedPatterns updated = new PackedPatterns(previous.size() + 16,
+				previous.getOffset(previous.size()) + 64);
+		BitSet scratch = new BitSet();
+		BitSet[] containing = databases.getContaining();
+
+		for (int i = 0; i < previous.size(); i++) {
+			if (!IncrementalMiner.touched(previous, i, containing, scratch)) {
+				updated.add(previous.getSupport(i), previous.getArena(),
+						previous.getOffset(i), previous.getOffset(i + 1));
+			}
+		}
+
+		databases.mine(0, entering, updated);
+
+		if (expiring > 0) {
+			PackedPatterns candidates = new PackedPatterns(16, 64);
+			databases.mine(entering, changed.length, candidates);
+
+			if (candidates.size() > 0) {
+				PackedPatterns all = new PackedPatterns(updated.size()
+						+ candidates.size(), updated.getOffset(updated.size())
+						+ candidates.getOffset(candidates.size()));
+				all.addAll(updated);
+				all.addAll(candidates);
+				SupportIndex index = new SupportIndex(all);
+
+				int[] itemset = new int[16];
+				for (int i = 0; i < candidates.size(); i++) {
+					final int length = candidates.getLength(i);
+					if (itemset.length < length) {
+						itemset = new int[Math.max(length, itemset.length * 2)];
+					}
+					System.arraycopy(candidates.getArena(),
+							candidates.getOffset(i), itemset, 0, length);
+					// its closure in the window has more items
+					if (!index.hasLongerSuperset(itemset, length,
+							candidates.getSupport(i))) {
+						updated.add(candidates.getSupport(i),
+								candidates.getArena(), candidates.getOffset(i),
+								candidates.getOffset(i + 1));
+					}
+				}
+			}
+		}
+		this.lastMinedPatterns = databases.getMined();
+
+		this.patterns = updated;
+		return updated;
+	}
+
+	/**
+	 * @return closed patterns of the window
+	 */
+	private PackedPatterns mineWindow() {
+		RMCompactTransactions window = new RMCompactTransactions();
+		for (int t = 0; t < this.size; t++) {
+			int[] transaction = this.window[(this.first + t)
+					% this.window.length];
+			window.add(transaction, 0, transaction.length);
+		}
+
+		PerThreadCollector collector = new PerThreadCollector(this.nbThreads,
+				false);
+		if (this.size >= this.minSupport) {
+			PLCM miner = new PLCM(collector, this.nbThreads);
+			miner.lcm(new ExplorationStep(this.minSupport, window));
+		}
+		collector.close();
+		return collector.getPatterns();
+	}
+}
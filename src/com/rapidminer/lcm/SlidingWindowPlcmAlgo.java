@@ -0,0 +1,138 @@
+package com.rapidminer.lcm;
+
+import java.util.List;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
+import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.util.MiningThreadsPool;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+
+/**
+ * Keeps a window of the last transactions from one execution to the next, and
+ * delivers closed patterns of this window once new transactions entered it :
+ * see SlidingWindowMiner.
+ */
+public class SlidingWindowPlcmAlgo extends Operator {
+
+	private static final String threshold = "Support";
+	private static final String windowSize = "Window size";
+	private static final String threads = "Number of threads";
+	private static final String wholeInput = "Input holds all transactions";
+	private static final String restart = "Empty the window";
+
+	private InputPort input = this.getInputPorts().createPort("in");
+
+	private OutputPort output = this.getOutputPorts().createPort("res");
+
+	private OutputPort transformerOutput = this.getOutputPorts().createPort(
+			"patterns");
+
+	private SlidingWindowMiner miner = null;
+
+	public SlidingWindowPlcmAlgo(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		RMTransactions dataSet = input.getData(RMTransactions.class);
+
+		int support = 1;
+		int size = 1;
+		int nbThreads = 1;
+		boolean whole = true;
+		boolean again = false;
+		try {
+			support = this.getParameterAsInt(threshold);
+			size = this.getParameterAsInt(windowSize);
+			nbThreads = this.getParameterAsInt(threads);
+			whole = this.getParameterAsBoolean(wholeInput);
+			again = this.getParameterAsBoolean(restart);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		long skipped = 0;
+		if (whole && miner != null) {
+			skipped = miner.getSeen();
+			if (countTransactions(dataSet) < skipped) {
+				// it's not the same data, appended
+				again = true;
+			}
+		}
+
+		if (again || miner == null || miner.getMinSupport() != support
+				|| miner.getWindowSize() != size) {
+			miner = new SlidingWindowMiner(support, size, nbThreads);
+			skipped = 0;
+		}
+
+		PackedPatterns patterns = miner.slide(dataSet, whole ? skipped : 0);
+
+		ResultListIOObject results = new ResultListIOObject(patterns, support);
+		results.setTransactionsCount(miner.getSize());
+		results.setComplete(true);
+		transformerOutput.deliver(results);
+
+		if (output.isConnected()) {
+			output.deliver(new PatternsExampleTable(patterns)
+					.createExampleSet());
+		}
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println(patterns.size() + " patterns in a window of "
+				+ miner.getSize() + " transactions ("
+				+ miner.getLastMinedPatterns()
+				+ " mined from the slide) in milliseconds: " + difference);
+	}
+
+	private static int countTransactions(RMTransactions dataSet) {
+		if (dataSet instanceof RMCompactTransactions) {
+			return ((RMCompactTransactions) dataSet).getTransactionsCount();
+		}
+		return dataSet.getTransactions().size();
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeInt(threshold,
+				"Minimum support in the window, changing it empties the window",
+				1, Integer.MAX_VALUE, 10, false));
+
+		types.add(new ParameterTypeInt(windowSize,
+				"How many of the last transactions are mined, changing it empties the window",
+				1, Integer.MAX_VALUE, 10000, false));
+
+		types.add(new ParameterTypeBoolean(
+				wholeInput,
+				"if checked, the input holds all transactions, as delivered by Read Incremental FIMI dataset: transactions following those of the previous execution are the new ones. Otherwise the input only holds new transactions",
+				true, false));
+
+		types.add(new ParameterTypeBoolean(restart,
+				"if checked, transactions kept by previous executions are ignored",
+				false, true));
+
+		types.add(MiningThreadsPool.createThreadsParameter(threads));
+
+		return types;
+	}
+}
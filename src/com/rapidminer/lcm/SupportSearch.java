@@ -0,0 +1,135 @@
+package com.rapidminer.lcm;
+
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.ItemSupports;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.CountingCollector;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.ProcessStoppedException;
+
+/**
+ * Finds the lowest minimum support at which mining a dataset gives at most a
+ * given number of patterns, and/or takes at most a given time.
+ *
+ * The support is binary-searched between 1 and the highest item support : the
+ * patterns count can only decrease when the support increases. Each probe is
+ * a PLCM run with a CountingCollector, which stops it as soon as a limit is
+ * exceeded, and whose time budget is also watched by PLCM's
+ * LimitsWatcherThread : a probe stuck in a long exploration step, collecting
+ * nothing, is stopped too. Items' supports are counted once and shared by all
+ * probes.
+ *
+ * Probes are stopped with the operator's RapidMiner process, which is also
+ * checked between probes.
+ */
+public final class SupportSearch {
+
+	private final Operator operator;
+	private final RMTransactions dataSet;
+	private final ItemSupports itemSupports;
+	private final int nbThreads;
+	private final long maxPatterns;
+	private final long timeBudget;
+
+	private int probes = 0;
+
+	/**
+	 * @param operator
+	 *            probes are stopped with its RapidMiner process - may be null
+	 * @param maxPatterns
+	 *            0 for no limit
+	 * @param timeBudget
+	 *            in milliseconds, the longest acceptable probe - 0 for no
+	 *            limit
+	 */
+	public SupportSearch(Operator operator, RMTransactions dataSet,
+			int nbThreads, long maxPatterns, long timeBudget) {
+		this.operator = operator;
+		this.dataSet = dataSet;
+		this.itemSupports = ItemSupports.count(dataSet);
+		this.nbThreads = nbThreads;
+		this.maxPatterns = maxPatterns;
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * Counted once when this instance was built, they can be given to the
+	 * final run
+	 */
+	public ItemSupports getItemSupports() {
+		return this.itemSupports;
+	}
+
+	/**
+	 * @return probe runs made by the last search()
+	 */
+	public int getProbes() {
+		return this.probes;
+	}
+
+	/**
+	 * @return the lowest support respecting limits - if there are none, 1. If
+	 *         even the highest item support doesn't respect them, it's
+	 *         returned anyway.
+	 * @throws ProcessStoppedException
+	 *             if the operator's process was stopped during the search
+	 */
+	public int search() throws ProcessStoppedException {
+		this.probes = 0;
+		int low = 1;
+		int high = Math.max(this.itemSupports.getMaxSupport(), 1);
+
+		if (this.maxPatterns <= 0 && this.timeBudget <= 0) {
+			return low;
+		}
+
+		// high is always acceptable, or can't be raised anyway
+		while (low < high) {
+			if (this.operator != null) {
+				this.operator.checkForStop();
+			}
+			int middle = (low + high) >>> 1;
+			if (this.probe(middle)) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		if (this.operator != null) {
+			// the last probe may have been stopped with the process
+			this.operator.checkForStop();
+		}
+		return high;
+	}
+
+	/**
+	 * @return true if mining at this support respects limits
+	 */
+	boolean probe(int support) {
+		this.probes++;
+		long chrono = System.currentTimeMillis();
+		long deadline = this.timeBudget > 0 ? chrono + this.timeBudget : 0;
+
+		CountingCollector collector = new CountingCollector(this.nbThreads,
+				this.maxPatterns, deadline);
+		PLCM miner = new PLCM(collector, this.nbThreads);
+		collector.stopWhenExceeded(miner);
+		miner.setLimits(this.operator, 0, this.timeBudget, 0);
+
+		ExplorationStep initState = new ExplorationStep(support, this.dataSet,
+				this.itemSupports);
+		miner.lcm(initState);
+
+		long count = collector.close();
+		boolean accepted = !collector.isExceeded()
+				&& miner.getStopReason() == null
+				&& (this.maxPatterns <= 0 || count <= this.maxPatterns)
+				&& (this.timeBudget <= 0 || System.currentTimeMillis() <= deadline);
+
+		chrono = System.currentTimeMillis() - chrono;
+		System.out.println("Support " + support + " probe: "
+				+ (accepted ? count + " patterns" : "limits exceeded")
+				+ " in milliseconds: " + chrono);
+		return accepted;
+	}
+}
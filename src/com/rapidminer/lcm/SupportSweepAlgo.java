@@ -0,0 +1,197 @@
+package com.rapidminer.lcm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.SweepCollector;
+import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.util.MiningThreadsPool;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeString;
+import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Mines closed patterns once, at the lowest of several supports, and gives
+ * patterns counts and length histograms at each support (see SweepCollector).
+ *
+ * Delivered patterns are those at the lowest support, grouped by decreasing
+ * support levels : patterns at a higher support are the first [Patterns] ones
+ * of the list, as counted in the summary.
+ */
+public class SupportSweepAlgo extends Operator {
+
+	private static final String supportsList = "Supports";
+	private static final String threads = "Number of threads";
+
+	private InputPort input = this.getInputPorts().createPort("in");
+
+	private OutputPort summaryOutput = this.getOutputPorts().createPort(
+			"summary");
+
+	private OutputPort patternsOutput = this.getOutputPorts().createPort(
+			"patterns");
+
+	public SupportSweepAlgo(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		RMTransactions dataSet = input.getData(RMTransactions.class);
+
+		String supportsParameter = "";
+		int nbThreads = 1;
+		try {
+			supportsParameter = this.getParameterAsString(supportsList);
+			nbThreads = this.getParameterAsInt(threads);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		int[] supports = parseSupports(supportsParameter);
+
+		SweepCollector collector = new SweepCollector(nbThreads, supports);
+		PLCM miner = new PLCM(collector, nbThreads);
+		miner.setLimits(this, 0, 0, 0);
+		miner.lcm(new ExplorationStep(supports[0], dataSet));
+		collector.close();
+
+		// mining threads returned early if the process was stopped
+		this.checkForStop();
+
+		summaryOutput.deliver(createSummary(collector).createExampleSet());
+
+		ResultListIOObject patterns = new ResultListIOObject(
+				collector.getPatterns(), supports[0]);
+		patterns.setTransactionsCount(miner.getTransactionsCount());
+		patterns.setComplete(true);
+		patternsOutput.deliver(patterns);
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println(supports.length + " supports swept, "
+				+ collector.getPatterns().size()
+				+ " patterns in milliseconds: " + difference);
+	}
+
+	/**
+	 * @return distinct supports, in increasing order
+	 */
+	static int[] parseSupports(String supportsParameter)
+			throws OperatorException {
+		String[] tokens = supportsParameter.trim().split("[,;\\s]+");
+		int[] supports = new int[tokens.length];
+		int count = 0;
+		for (String token : tokens) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			try {
+				supports[count] = Integer.parseInt(token);
+			} catch (NumberFormatException e) {
+				throw new OperatorException("Wrong support \"" + token
+						+ "\": supports should be integers separated by commas",
+						e);
+			}
+			if (supports[count] < 1) {
+				throw new OperatorException("Wrong support \"" + token
+						+ "\": supports should be greater than 0");
+			}
+			count++;
+		}
+		if (count == 0) {
+			throw new OperatorException("No support given");
+		}
+
+		supports = Arrays.copyOf(supports, count);
+		Arrays.sort(supports);
+		int distinct = 1;
+		for (int i = 1; i < supports.length; i++) {
+			if (supports[i] != supports[distinct - 1]) {
+				supports[distinct++] = supports[i];
+			}
+		}
+		return Arrays.copyOf(supports, distinct);
+	}
+
+	/**
+	 * @return a row per support, in increasing order : its patterns count,
+	 *         average and maximum length, then patterns count by length
+	 */
+	static MemoryExampleTable createSummary(SweepCollector collector) {
+		final int maxLength = collector.getMaxLength();
+
+		List<Attribute> attributes = new ArrayList<Attribute>(4 + maxLength);
+		attributes.add(AttributeFactory.createAttribute("Support",
+				Ontology.INTEGER));
+		attributes.add(AttributeFactory.createAttribute("Patterns",
+				Ontology.INTEGER));
+		attributes.add(AttributeFactory.createAttribute("Average length",
+				Ontology.REAL));
+		attributes.add(AttributeFactory.createAttribute("Max length",
+				Ontology.INTEGER));
+		for (int l = 1; l <= maxLength; l++) {
+			attributes.add(AttributeFactory.createAttribute("length " + l,
+					Ontology.INTEGER));
+		}
+
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+
+		int[] supports = collector.getSupports();
+		for (int k = 0; k < supports.length; k++) {
+			long[] histogram = collector.getLengthHistogram(k);
+			double[] row = new double[attributes.size()];
+
+			long items = 0;
+			int longest = 0;
+			for (int l = 1; l <= maxLength; l++) {
+				row[3 + l] = histogram[l];
+				items += l * histogram[l];
+				if (histogram[l] > 0) {
+					longest = l;
+				}
+			}
+
+			long count = collector.getCount(k);
+			row[0] = supports[k];
+			row[1] = count;
+			row[2] = count == 0 ? 0 : (double) items / count;
+			row[3] = longest;
+			table.addDataRow(new DoubleArrayDataRow(row));
+		}
+
+		return table;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeString(
+				supportsList,
+				"Minimum supports to evaluate, separated by commas: patterns are mined once, at the lowest one",
+				false));
+
+		types.add(MiningThreadsPool.createThreadsParameter(threads));
+
+		return types;
+	}
+}
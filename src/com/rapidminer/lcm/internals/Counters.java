@@ -334,6 +334,69 @@ public final class Counters implements Cloneable {
 		this.distinctTransactionLengthSum = remainingSupportsSum;
 	}
 
+	/**
+	 * Initial dataset's counters, when items' support counts are already
+	 * known (for instance when they're stored along the transactions). It
+	 * performs the same renaming as the constructor above, without reading
+	 * transactions.
+	 *
+	 * @param minimumSupport
+	 * @param transactionsCount
+	 * @param supports
+	 *            support count of each item, indexed by items
+	 * @param maxItem
+	 *            biggest item ID, supports may be longer than maxItem+1
+	 */
+	Counters(int minimumSupport, int transactionsCount, int[] supports, int maxItem) {
+		this.minSupport = minimumSupport;
+		this.transactionsCount = transactionsCount;
+		this.distinctTransactionsCount = transactionsCount;
+		this.renaming = new int[maxItem + 1];
+		Arrays.fill(renaming, -1);
+
+		final PriorityQueue<ItemAndSupport> renamingHeap = new PriorityQueue<ItemAndSupport>();
+		ItemsetsFactory closureBuilder = new ItemsetsFactory();
+
+		for (int item = 0; item <= maxItem; item++) {
+			final int supportCount = supports[item];
+
+			if (supportCount == this.transactionsCount) {
+				closureBuilder.add(item);
+			} else if (supportCount >= minimumSupport && supportCount > 0) {
+				renamingHeap.add(new ItemAndSupport(item, supportCount));
+			}
+		}
+
+		this.closure = closureBuilder.get();
+		this.nbFrequents = renamingHeap.size();
+		this.maxFrequent = this.nbFrequents - 1;
+		this.maxCandidate = this.maxFrequent + 1;
+
+		this.supportCounts = new int[this.nbFrequents];
+		this.distinctTransactionsCounts = new int[this.nbFrequents];
+		this.reverseRenaming = new int[this.nbFrequents];
+		int remainingSupportsSum = 0;
+
+		ItemAndSupport entry = renamingHeap.poll();
+		int newItemID = 0;
+
+		while (entry != null) {
+			this.renaming[entry.item] = newItemID;
+			this.reverseRenaming[newItemID] = entry.item;
+
+			this.supportCounts[newItemID] = entry.support;
+			this.distinctTransactionsCounts[newItemID] = entry.support;
+
+			remainingSupportsSum += entry.support;
+
+			entry = renamingHeap.poll();
+			newItemID++;
+		}
+
+		this.compactedArrays = true;
+		this.distinctTransactionLengthSum = remainingSupportsSum;
+	}
+
 	private Counters(int minSupport, int transactionsCount, int distinctTransactionsCount,
 			int distinctTransactionLengthSum, int[] supportCounts,
 			int[] distinctTransactionsCounts, int[] closure, int nbFrequents, int maxFrequent, int[] reverseRenaming,
@@ -101,6 +101,22 @@ public class Dataset implements Cloneable {
 					counters, tidListBound);
 		}
 
+		this.fill(transactions, tidListBound);
+	}
+
+	/**
+	 * Stores transactions in the given implementations, which should be
+	 * compatible with the counters they were created from - allows to compare
+	 * them (see benchmarks)
+	 */
+	Dataset(TransactionsList transactionsList, TidList occurrences,
+			final Iterator<TransactionReader> transactions, int tidListBound) {
+		this(transactionsList, occurrences);
+		this.fill(transactions, tidListBound);
+	}
+
+	private void fill(final Iterator<TransactionReader> transactions,
+			int tidListBound) {
 		TransactionsWriter writer = this.transactions.getWriter();
 		while (transactions.hasNext()) {
 			TransactionReader transaction = transactions.next();
@@ -28,6 +28,7 @@ import java.util.Calendar;
 
 import com.rapidminer.lcm.internals.Dataset.TransactionsIterable;
 import com.rapidminer.lcm.internals.Selector.WrongFirstParentException;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
 import com.rapidminer.lcm.internals.transactions.RMTransactions;
 import com.rapidminer.lcm.io.RMAdapter;
 import com.rapidminer.lcm.io.RMAdapterRenamer;
@@ -38,9 +39,6 @@ import com.rapidminer.lcm.util.ItemsetsFactory;
  */
 public final class ExplorationStep implements Cloneable {
 
-	public static boolean verbose = false;
-	public static boolean ultraVerbose = false;
-
 	public final static String KEY_VIEW_SUPPORT_THRESHOLD = "toplcm.threshold.view";
 	public final static String KEY_LONG_TRANSACTIONS_THRESHOLD = "toplcm.threshold.long";
 
@@ -71,6 +69,13 @@ public final class ExplorationStep implements Cloneable {
 	 * are non-first-parent items associated to their actual first parent.
 	 */
 	private final TIntIntHashMap failedFPTests;
+
+	/**
+	 * logging of extensions, set on the initial step and inherited by its
+	 * children, so each mining run has its own
+	 */
+	private boolean verbose = false;
+	private boolean ultraVerbose = false;
 	
 	//private ArrayList<String> consoleStep;
 
@@ -98,14 +103,45 @@ public final class ExplorationStep implements Cloneable {
 		//FileReader reader = new FileReader(path);
 		
 		//RPFileReader reader = new RPFileReader(dataSet);
-		RMAdapter reader = new RMAdapter(dataSet);
-		
-		this.counters = new Counters(minimumSupport, reader);
+		if (dataSet instanceof RMCompactTransactions) {
+			// supports are already known, no need for a counting pass
+			RMCompactTransactions compact = (RMCompactTransactions) dataSet;
+			this.counters = new Counters(minimumSupport, compact.getTransactionsCount(), compact.getSupports(),
+					compact.getMaxItem());
+			this.pattern = this.counters.closure;
+			this.dataset = new Dataset(this.counters, compact.iterator(this.counters.renaming));
+		} else {
+			RMAdapter reader = new RMAdapter(dataSet);
+
+			this.counters = new Counters(minimumSupport, reader);
+			this.pattern = this.counters.closure;
+			reader.close();
+
+			RMAdapterRenamer renamedReader = new RMAdapterRenamer(dataSet, this.counters.renaming);
+			this.dataset = new Dataset(this.counters, renamedReader);
+		}
+
+		this.candidates = this.counters.getExtensionsIterator();
+
+		this.failedFPTests = new TIntIntHashMap();
+	}
+
+	/**
+	 * Start exploration on a dataset whose items' supports were already
+	 * counted, for instance by a previous run at another support.
+	 */
+	public ExplorationStep(int minimumSupport, RMTransactions dataSet, ItemSupports supports) {
+		this.core_item = Integer.MAX_VALUE;
+		this.selectChain = null;
+
+		this.counters = supports.getCounters(minimumSupport);
 		this.pattern = this.counters.closure;
-		reader.close();
-		
-		RMAdapterRenamer renamedReader = new RMAdapterRenamer(dataSet, this.counters.renaming);
-		this.dataset = new Dataset(this.counters, renamedReader);
+		if (dataSet instanceof RMCompactTransactions) {
+			this.dataset = new Dataset(this.counters,
+					((RMCompactTransactions) dataSet).iterator(this.counters.renaming));
+		} else {
+			this.dataset = new Dataset(this.counters, new RMAdapterRenamer(dataSet, this.counters.renaming));
+		}
 
 		this.candidates = this.counters.getExtensionsIterator();
 
@@ -192,13 +228,15 @@ public final class ExplorationStep implements Cloneable {
 
 		this.core_item = extension;
 		this.counters = candidateCounts;
+		this.verbose = parent.verbose;
+		this.ultraVerbose = parent.ultraVerbose;
 		int[] reverseRenaming = parent.counters.reverseRenaming;
 
-		if (verbose) {
+		if (this.verbose) {
 			
 			StringBuffer infoBuffer = new StringBuffer();
 			
-			if (parent.pattern.length == 0 || ultraVerbose) {
+			if (parent.pattern.length == 0 || this.ultraVerbose) {
 				infoBuffer.append(Calendar.getInstance()+" ");
 				infoBuffer.append(Thread.currentThread().getId()+" ");
 				infoBuffer.append(Arrays.toString(parent.pattern)+" ");
@@ -207,7 +245,7 @@ public final class ExplorationStep implements Cloneable {
 				//consoleStep.add(infoBuffer.toString());
 			}
 			
-			if (parent.pattern.length == 0 || ultraVerbose) {
+			if (parent.pattern.length == 0 || this.ultraVerbose) {
 				System.err
 						.format("{\"time\":\"%1$tY/%1$tm/%1$td %1$tk:%1$tM:%1$tS\",\"thread\":%2$d,\"pattern\":%3$s,\"extension_internal\":%4$d,\"extension\":%5$d}\n",
 								Calendar.getInstance(), Thread.currentThread().getId(),
@@ -302,7 +340,23 @@ public final class ExplorationStep implements Cloneable {
 	}
 
 	public ExplorationStep copy() {
-		return new ExplorationStep(pattern, core_item, dataset.clone(), counters.clone(), selectChain, candidates, failedFPTests);
+		ExplorationStep copy = new ExplorationStep(pattern, core_item, dataset.clone(), counters.clone(), selectChain,
+				candidates, failedFPTests);
+		copy.setVerbose(this.verbose, this.ultraVerbose);
+		return copy;
+	}
+
+	/**
+	 * Should be called on the initial step, before mining
+	 * 
+	 * @param verbose
+	 *            logs every extension of the empty pattern
+	 * @param ultraVerbose
+	 *            logs every extension
+	 */
+	public void setVerbose(boolean verbose, boolean ultraVerbose) {
+		this.verbose = verbose || ultraVerbose;
+		this.ultraVerbose = ultraVerbose;
 	}
 
 	public Progress getProgression() {
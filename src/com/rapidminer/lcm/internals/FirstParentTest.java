@@ -53,7 +53,10 @@ final class FirstParentTest extends Selector {
 		return new FirstParentTest(newNext);
 	}
 
-	private boolean isAincludedInB(final TIntIterator aIt, final TIntIterator bIt) {
+	/**
+	 * @return true if all tids of aIt are in bIt - both sorted
+	 */
+	static boolean isAincludedInB(final TIntIterator aIt, final TIntIterator bIt) {
 		int tidA = 0;
 		int tidB = 0;
 
@@ -0,0 +1,108 @@
+package com.rapidminer.lcm.internals;
+
+import java.util.Arrays;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.io.RMAdapter;
+
+/**
+ * Items' support counts over a whole dataset, which the initial
+ * ExplorationStep's Counters are built from. Counting them once allows several
+ * mining runs on the same dataset (at different supports) to skip the
+ * counting pass.
+ */
+public final class ItemSupports {
+
+	private final int transactionsCount;
+	private final int[] supports;
+	private final int maxItem;
+
+	private ItemSupports(int transactionsCount, int[] supports, int maxItem) {
+		this.transactionsCount = transactionsCount;
+		this.supports = supports;
+		this.maxItem = maxItem;
+	}
+
+	/**
+	 * Reads dataSet once, unless its supports are already known
+	 */
+	public static ItemSupports count(RMTransactions dataSet) {
+		if (dataSet instanceof RMCompactTransactions) {
+			RMCompactTransactions compact = (RMCompactTransactions) dataSet;
+			if (compact.getMaxItem() < 0) {
+				return new ItemSupports(compact.getTransactionsCount(),
+						new int[1], -1);
+			}
+			return new ItemSupports(compact.getTransactionsCount(),
+					compact.getSupports(), compact.getMaxItem());
+		}
+
+		int[] supports = new int[1024];
+		int maxItem = -1;
+		int transactionsCount = 0;
+
+		RMAdapter reader = new RMAdapter(dataSet);
+		while (reader.hasNext()) {
+			TransactionReader transaction = reader.next();
+			transactionsCount++;
+			while (transaction.hasNext()) {
+				int item = transaction.next();
+				if (item >= supports.length) {
+					supports = Arrays.copyOf(supports,
+							Math.max(item + 1, supports.length * 2));
+				}
+				supports[item]++;
+				maxItem = Math.max(maxItem, item);
+			}
+		}
+		reader.close();
+
+		return new ItemSupports(transactionsCount, supports, maxItem);
+	}
+
+	/**
+	 * @return initial counters at this minimum support, as
+	 *         ExplorationStep(minimumSupport, dataSet) would count them. On a
+	 *         dataset without items (maxItem is -1) there's no item at all, not
+	 *         even in the closure
+	 */
+	Counters getCounters(int minimumSupport) {
+		return new Counters(minimumSupport, this.transactionsCount,
+				this.supports, this.maxItem);
+	}
+
+	/**
+	 * @param kept
+	 *            indexed by items
+	 * @return these supports, where items which are not kept have a null
+	 *         support : mining from them only explores itemsets made of kept
+	 *         items, with their supports in the whole dataset
+	 */
+	public ItemSupports project(boolean[] kept) {
+		int[] projected = new int[Math.max(this.maxItem + 1, 1)];
+		int maxKept = -1;
+		for (int i = 0; i <= this.maxItem && i < kept.length; i++) {
+			if (kept[i]) {
+				projected[i] = this.supports[i];
+				maxKept = i;
+			}
+		}
+		return new ItemSupports(this.transactionsCount, projected, maxKept);
+	}
+
+	public int getTransactionsCount() {
+		return this.transactionsCount;
+	}
+
+	/**
+	 * @return highest support of an item
+	 */
+	public int getMaxSupport() {
+		int max = 0;
+		for (int i = 0; i <= this.maxItem; i++) {
+			max = Math.max(max, this.supports[i]);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,437 @@
+package com.rapidminer.lcm.internals.transactions;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.rapidminer.lcm.internals.TransactionReader;
+
+/**
+ * Transactions stored as a single byte array, along with items' support
+ * counts.
+ *
+ * Each transaction is encoded as its length followed by its items, sorted and
+ * delta-encoded (the first item is written as is, then each item is written as
+ * its difference to the previous one). All these integers are variable-length
+ * integers, as in VIntIndexedTransactionsList. Items are assumed to be
+ * positive, duplicates in a transaction are ignored.
+ *
+ * Because supports are maintained while adding (or removing) transactions,
+ * PLCM can build its initial Counters without reading the transactions once
+ * more.
+ *
+ * getTransactions() is still available for operators expecting a
+ * RMTransactions, but it decodes the whole store.
+ */
+public class RMCompactTransactions extends RMTransactions {
+
+	private static final long serialVersionUID = 4362817734263307395L;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private byte[] data;
+
+	private int dataLength = 0;
+
+	private int transactionsCount = 0;
+
+	private int maxItem = -1;
+
+	private int[] supports;
+
+	private int longestTransaction = 0;
+
+	/**
+	 * buffer used by add, in order to sort transactions
+	 */
+	private transient int[] sortBuffer;
+
+	/**
+	 * decoded version, only built if getTransactions is called
+	 */
+	private transient ArrayList<TIntArrayList> decoded = null;
+
+	public RMCompactTransactions() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            initial size of the data array, in bytes
+	 */
+	public RMCompactTransactions(int capacity) {
+		super();
+		this.data = new byte[Math.max(capacity, 16)];
+		this.supports = new int[16];
+	}
+
+	/**
+	 * Builds the store from already-encoded transactions, as read from a
+	 * binary transactions file.
+	 */
+	public RMCompactTransactions(byte[] data, int dataLength,
+			int transactionsCount, int maxItem, int[] supports,
+			int longestTransaction) {
+		super();
+		this.data = data;
+		this.dataLength = dataLength;
+		this.transactionsCount = transactionsCount;
+		this.maxItem = maxItem;
+		this.supports = supports;
+		this.longestTransaction = longestTransaction;
+	}
+
+	/**
+	 * add items[from, to[ as a new transaction - the array may be re-ordered
+	 */
+	public void add(int[] items, int from, int to) {
+		Arrays.sort(items, from, to);
+
+		int length = 0;
+		int previous = -1;
+		for (int i = from; i < to; i++) {
+			if (items[i] >= 0 && items[i] != previous) {
+				items[from + length] = items[i];
+				previous = items[i];
+				length++;
+			}
+		}
+
+		ensureDataCapacity(5 * (length + 1));
+		if (length > 0 && items[from + length - 1] >= this.supports.length) {
+			this.supports = Arrays.copyOf(this.supports, Math.max(
+					items[from + length - 1] + 1, this.supports.length * 2));
+		}
+
+		this.dataLength = writeVInt(this.data, this.dataLength, length);
+		previous = 0;
+		for (int i = from; i < from + length; i++) {
+			final int item = items[i];
+			this.dataLength = writeVInt(this.data, this.dataLength, item
+					- previous);
+			this.supports[item]++;
+			previous = item;
+		}
+
+		if (length > 0) {
+			this.maxItem = Math.max(this.maxItem, previous);
+		}
+		this.longestTransaction = Math.max(this.longestTransaction, length);
+		this.transactionsCount++;
+		this.decoded = null;
+	}
+
+	public void add(TIntArrayList transaction) {
+		if (this.sortBuffer == null
+				|| this.sortBuffer.length < transaction.size()) {
+			this.sortBuffer = new int[Math.max(transaction.size(), 16)];
+		}
+		transaction.toArray(this.sortBuffer, 0, transaction.size());
+		this.add(this.sortBuffer, 0, transaction.size());
+	}
+
+	@Override
+	public void add(RMTransaction transaction) {
+		this.add(transaction.getTransaction());
+	}
+
+	/**
+	 * Appends all transactions from another store
+	 */
+	public void addAll(RMCompactTransactions other) {
+		ensureDataCapacity(other.dataLength);
+		System.arraycopy(other.data, 0, this.data, this.dataLength,
+				other.dataLength);
+		this.dataLength += other.dataLength;
+
+		if (other.maxItem >= this.supports.length) {
+			this.supports = Arrays.copyOf(this.supports, other.maxItem + 1);
+		}
+		for (int i = 0; i <= other.maxItem; i++) {
+			this.supports[i] += other.supports[i];
+		}
+
+		this.maxItem = Math.max(this.maxItem, other.maxItem);
+		this.longestTransaction = Math.max(this.longestTransaction,
+				other.longestTransaction);
+		this.transactionsCount += other.transactionsCount;
+		this.decoded = null;
+	}
+
+	/**
+	 * Removes the i-th transaction, by moving the following ones in the data
+	 * array, and decrements its items' supports. It costs a scan of the
+	 * previous transactions and a copy of the following ones.
+	 * getLongestTransaction() may then be higher than the actual longest.
+	 */
+	@Override
+	public void remove(int i) {
+		if (i < 0 || i >= this.transactionsCount) {
+			throw new IndexOutOfBoundsException("transaction " + i + " of "
+					+ this.transactionsCount);
+		}
+
+		CompactReader reader = new CompactReader(null);
+		for (int t = 0; t < i; t++) {
+			reader.next();
+		}
+		// skips the previous transaction's items
+		reader.hasNext();
+		final int start = reader.pos;
+
+		TransactionReader transaction = reader.next();
+		while (transaction.hasNext()) {
+			this.supports[transaction.next()]--;
+		}
+		final int end = reader.pos;
+
+		System.arraycopy(this.data, end, this.data, start, this.dataLength
+				- end);
+		this.dataLength -= end - start;
+		this.transactionsCount--;
+		while (this.maxItem >= 0 && this.supports[this.maxItem] == 0) {
+			this.maxItem--;
+		}
+		this.decoded = null;
+	}
+
+	/**
+	 * Decodes all transactions - it's only here for operators which are not
+	 * aware of compact transactions.
+	 */
+	@Override
+	public ArrayList<TIntArrayList> getTransactions() {
+		if (this.decoded == null) {
+			ArrayList<TIntArrayList> list = new ArrayList<TIntArrayList>(
+					this.transactionsCount);
+			CompactReader reader = new CompactReader(null);
+			while (reader.hasNext()) {
+				TransactionReader transaction = reader.next();
+				TIntArrayList decodedTransaction = new TIntArrayList();
+				while (transaction.hasNext()) {
+					decodedTransaction.add(transaction.next());
+				}
+				list.add(decodedTransaction);
+			}
+			this.decoded = list;
+		}
+		return this.decoded;
+	}
+
+	/**
+	 * @return an iterator over transactions, which re-uses the same
+	 *         TransactionReader
+	 */
+	public Iterator<TransactionReader> iterator() {
+		return new CompactReader(null);
+	}
+
+	/**
+	 * @param renaming
+	 *            items having a negative renaming will be filtered
+	 * @return an iterator over renamed transactions, whose items are given in
+	 *         increasing order
+	 */
+	public Iterator<TransactionReader> iterator(int[] renaming) {
+		return new CompactReader(renaming);
+	}
+
+	/**
+	 * @param position
+	 *            where a transaction starts in the data array, as given by
+	 *            getDataLength() before it was added
+	 * @return an iterator over transactions from this one, which doesn't read
+	 *         previous ones
+	 */
+	public Iterator<TransactionReader> iteratorAt(int position) {
+		CompactReader reader = new CompactReader(null);
+		reader.pos = position;
+		return reader;
+	}
+
+	/**
+	 * @return support count of each item, indexed by items (valid indexes are
+	 *         in [0, getMaxItem()])
+	 */
+	public int[] getSupports() {
+		return this.supports;
+	}
+
+	public int getTransactionsCount() {
+		return this.transactionsCount;
+	}
+
+	/**
+	 * @return biggest item found in transactions, or -1 if there's no item
+	 */
+	public int getMaxItem() {
+		return this.maxItem;
+	}
+
+	public int getLongestTransaction() {
+		return this.longestTransaction;
+	}
+
+	/**
+	 * @return encoded transactions, only indexes in [0, getDataLength()[ are
+	 *         valid
+	 */
+	public byte[] getData() {
+		return this.data;
+	}
+
+	public int getDataLength() {
+		return this.dataLength;
+	}
+
+	@Override
+	public String toString() {
+		return this.transactionsCount + " transactions, " + (this.maxItem + 1)
+				+ " items, " + this.dataLength + " bytes";
+	}
+
+	private void ensureDataCapacity(int additional) {
+		if (this.dataLength + additional > this.data.length) {
+			long newLength = Math.max((long) this.data.length * 2,
+					(long) this.dataLength + additional);
+			if (newLength > Integer.MAX_VALUE - 8) {
+				if ((long) this.dataLength + additional > Integer.MAX_VALUE - 8) {
+					throw new RuntimeException(
+							"Compact transactions can't exceed 2GB");
+				}
+				newLength = Integer.MAX_VALUE - 8;
+			}
+			this.data = Arrays.copyOf(this.data, (int) newLength);
+		}
+	}
+
+	/**
+	 * @return position following the written integer
+	 */
+	static int writeVInt(byte[] array, int pos, int val) {
+		while ((val & ~0x7F) != 0) {
+			array[pos++] = (byte) ((val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		array[pos++] = (byte) val;
+		return pos;
+	}
+
+	private final class CompactReader implements Iterator<TransactionReader> {
+
+		private final int[] renaming;
+
+		/**
+		 * renamed items of current transaction, only used when renaming
+		 */
+		private final int[] buffer;
+
+		private final ItemsReader itemsReader = new ItemsReader();
+
+		private int pos = 0;
+
+		CompactReader(int[] renaming) {
+			this.renaming = renaming;
+			if (renaming == null) {
+				this.buffer = null;
+			} else {
+				this.buffer = new int[longestTransaction];
+			}
+		}
+
+		private int readVInt() {
+			byte b = data[this.pos++];
+			int res = b & 0x7F;
+			int shift = 7;
+			while (b < 0) {
+				b = data[this.pos++];
+				res |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			return res;
+		}
+
+		@Override
+		public boolean hasNext() {
+			// skip remaining items if the previous transaction was not
+			// completely read
+			while (this.itemsReader.remaining > 0) {
+				this.readVInt();
+				this.itemsReader.remaining--;
+			}
+			return this.pos < dataLength;
+		}
+
+		@Override
+		public TransactionReader next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			ItemsReader reader = this.itemsReader;
+			int length = this.readVInt();
+			reader.previous = 0;
+
+			if (this.renaming == null) {
+				reader.remaining = length;
+			} else {
+				int end = 0;
+				int item = 0;
+				for (int i = 0; i < length; i++) {
+					item += this.readVInt();
+					if (item < this.renaming.length) {
+						int renamed = this.renaming[item];
+						if (renamed >= 0) {
+							this.buffer[end++] = renamed;
+						}
+					}
+				}
+				Arrays.sort(this.buffer, 0, end);
+				reader.bufferIndex = 0;
+				reader.bufferEnd = end;
+			}
+
+			return reader;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private final class ItemsReader implements TransactionReader {
+			private int remaining = 0;
+			private int previous = 0;
+			private int bufferIndex = 0;
+			private int bufferEnd = 0;
+
+			@Override
+			public int getTransactionSupport() {
+				return 1;
+			}
+
+			@Override
+			public int next() {
+				if (renaming == null) {
+					this.previous += readVInt();
+					this.remaining--;
+					return this.previous;
+				} else {
+					return buffer[this.bufferIndex++];
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				if (renaming == null) {
+					return this.remaining > 0;
+				} else {
+					return this.bufferIndex < this.bufferEnd;
+				}
+			}
+		}
+	}
+}
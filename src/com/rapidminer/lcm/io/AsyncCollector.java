@@ -0,0 +1,355 @@
+package com.rapidminer.lcm.io;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decorates another collector so mining threads don't wait for its I/O or
+ * locks : collect() puts the pattern in a bounded ring buffer, which a single
+ * writer thread drains into the wrapped collector.
+ *
+ * The ring buffer is a multi-producer single-consumer array queue : each slot
+ * has a sequence number telling whether it's free for position p (sequence ==
+ * p) or filled (sequence == p + 1). Producers claim positions by CAS on the
+ * tail, and only the writer thread moves the head. Patterns are passed by
+ * reference : PLCM never modifies a collected array.
+ *
+ * When the queue is full, the policy decides :
+ *
+ * - BLOCK : the mining thread waits for a free slot (spinning, then yielding,
+ * then sleeping shortly)
+ *
+ * - CALLER_RUNS : the mining thread gives the pattern to the wrapped collector
+ * itself. Both threads then synchronize on the wrapped collector, so it
+ * doesn't need to be thread-safe, but patterns' order isn't kept.
+ *
+ * The wrapped collector is called from the writer thread, which isn't a
+ * PLCMThread : collectors finding their buffer through the mining thread's ID
+ * use their shared buffer or file for all patterns.
+ *
+ * If the wrapped collector throws, the writer thread stops : mining threads
+ * waiting for a free slot, and close(), then throw a RuntimeException.
+ *
+ * The writer thread is started by the first collect(), and ends with close()
+ * - or stop(), when mining failed and patterns won't be used.
+ *
+ * If metrics are enabled, the writer thread samples the queue's depth each
+ * time it wakes up and every 1024 patterns, and producers count how often they
+ * found the queue full.
+ */
+public class AsyncCollector implements PatternsCollector {
+
+	public static final int BLOCK = 0;
+	public static final int CALLER_RUNS = 1;
+
+	public static final String[] POLICIES = { "block", "caller runs" };
+
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	private static final int SPINS = 100;
+	private static final int YIELDS = 100;
+	private static final long PARK_NANOS = 50000;
+	private static final long SAMPLING_MASK = 1023;
+
+	private final PatternsCollector wrapped;
+	private final int policy;
+	private final boolean metrics;
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final int[] supports;
+	private final int[][] patterns;
+
+	private final AtomicLong tail = new AtomicLong(0);
+
+	/**
+	 * only written by the writer thread
+	 */
+	private volatile long head = 0;
+
+	private volatile boolean closing = false;
+
+	private volatile boolean stopped = false;
+
+	/**
+	 * thrown by the wrapped collector in the writer thread
+	 */
+	private volatile Throwable failure = null;
+
+	private final AtomicLong fullCount = new AtomicLong(0);
+	private volatile long maxDepth = 0;
+	private long depthSamples = 0;
+	private long depthSum = 0;
+
+	/**
+	 * not "this" : close() holds it while waiting for the writer thread
+	 */
+	private final Object metricsLock = new Object();
+
+	private final Writer writer;
+
+	private final AtomicBoolean started = new AtomicBoolean(false);
+
+	private long closedCount = -1;
+
+	/**
+	 * @param capacity
+	 *            queue size, rounded up to a power of two
+	 * @param policy
+	 *            BLOCK or CALLER_RUNS
+	 * @param metrics
+	 *            if true, queue depth and full queue events are measured
+	 */
+	public AsyncCollector(PatternsCollector wrapped, int capacity, int policy,
+			boolean metrics) {
+		this.wrapped = wrapped;
+		this.policy = policy;
+		this.metrics = metrics;
+
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+		this.supports = new int[size];
+		this.patterns = new int[size][];
+
+		this.writer = new Writer();
+	}
+
+	public AsyncCollector(PatternsCollector wrapped) {
+		this(wrapped, DEFAULT_CAPACITY, BLOCK, false);
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		if (!this.started.get() && this.started.compareAndSet(false, true)) {
+			this.writer.start();
+		}
+
+		int waited = 0;
+		boolean counted = false;
+
+		while (true) {
+			final long pos = this.tail.get();
+			final int slot = (int) (pos & this.mask);
+			final long sequence = this.sequences.get(slot);
+
+			if (sequence == pos) {
+				if (this.tail.compareAndSet(pos, pos + 1)) {
+					this.supports[slot] = support;
+					this.patterns[slot] = pattern;
+					// publishes the slot's content to the writer thread
+					this.sequences.set(slot, pos + 1);
+					return;
+				}
+			} else if (sequence < pos) {
+				// full : this slot still holds the pattern at pos - capacity
+				if (this.metrics && !counted) {
+					this.fullCount.incrementAndGet();
+					counted = true;
+				}
+				if (this.policy == CALLER_RUNS) {
+					synchronized (this.wrapped) {
+						this.wrapped.collect(support, pattern);
+					}
+					return;
+				}
+				this.checkFailure();
+				waited = backOff(waited);
+			}
+			// else another producer claimed pos, retry at once
+		}
+	}
+
+	private static int backOff(int waited) {
+		if (waited < SPINS) {
+			// busy spin
+		} else if (waited < SPINS + YIELDS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+		return waited + 1;
+	}
+
+	/**
+	 * Waits until the writer thread has drained the queue, then closes the
+	 * wrapped collector. Mining threads must have terminated.
+	 */
+	@Override
+	public synchronized long close() {
+		if (this.closedCount < 0) {
+			this.closing = true;
+			this.joinWriter();
+			this.closedCount = this.wrapped.close();
+		}
+		this.checkFailure();
+		return this.closedCount;
+	}
+
+	/**
+	 * Stops the writer thread without draining the queue nor closing the
+	 * wrapped collector, for a run which failed. Mining threads must have
+	 * terminated.
+	 */
+	public synchronized void stop() {
+		this.stopped = true;
+		this.joinWriter();
+	}
+
+	private void joinWriter() {
+		// never started : nothing was collected, and it won't start anymore
+		if (this.started.compareAndSet(false, true)) {
+			return;
+		}
+		LockSupport.unpark(this.writer);
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void checkFailure() {
+		if (this.failure != null) {
+			throw new RuntimeException("Async collector's writer failed",
+					this.failure);
+		}
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		return this.wrapped.getAveragePatternLength();
+	}
+
+	@Override
+	public List<int[]> getResultList() {
+		return this.wrapped.getResultList();
+	}
+
+	public PatternsCollector getWrapped() {
+		return this.wrapped;
+	}
+
+	public int getCapacity() {
+		return this.mask + 1;
+	}
+
+	/**
+	 * @return patterns currently waiting in the queue (approximately)
+	 */
+	public int getDepth() {
+		return (int) Math.max(0, this.tail.get() - this.head);
+	}
+
+	/**
+	 * @return highest depth observed by the writer thread, if metrics are
+	 *         enabled
+	 */
+	public long getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * @return average depth observed by the writer thread, if metrics are
+	 *         enabled
+	 */
+	public long getAverageDepth() {
+		synchronized (this.metricsLock) {
+			if (this.depthSamples == 0) {
+				return 0;
+			}
+			return this.depthSum / this.depthSamples;
+		}
+	}
+
+	/**
+	 * @return how many patterns found the queue full, if metrics are enabled
+	 */
+	public long getFullCount() {
+		return this.fullCount.get();
+	}
+
+	/**
+	 * @return patterns given to the wrapped collector by the writer thread
+	 */
+	public long getDrained() {
+		return this.head;
+	}
+
+	/**
+	 * @return metrics, as a line that can be printed
+	 */
+	public String getMetrics() {
+		return "{\"capacity\":" + this.getCapacity() + ",\"drained\":"
+				+ this.getDrained() + ",\"maxDepth\":" + this.getMaxDepth()
+				+ ",\"avgDepth\":" + this.getAverageDepth()
+				+ ",\"queueFull\":" + this.getFullCount() + "}";
+	}
+
+	private void sampleDepth(long depth) {
+		synchronized (this.metricsLock) {
+			this.depthSum += depth;
+			this.depthSamples++;
+			if (depth > this.maxDepth) {
+				this.maxDepth = depth;
+			}
+		}
+	}
+
+	/**
+	 * The single consumer
+	 */
+	private final class Writer extends Thread {
+
+		Writer() {
+			super("PLCM async collector");
+			this.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			long pos = head;
+			int waited = 0;
+
+			while (!stopped) {
+				final int slot = (int) (pos & mask);
+				if (sequences.get(slot) == pos + 1) {
+					if (metrics && (waited > 0 || (pos & SAMPLING_MASK) == 0)) {
+						sampleDepth(tail.get() - pos);
+					}
+					waited = 0;
+
+					final int support = supports[slot];
+					final int[] pattern = patterns[slot];
+					patterns[slot] = null;
+					sequences.set(slot, pos + mask + 1);
+					pos++;
+					head = pos;
+
+					try {
+						if (policy == CALLER_RUNS) {
+							synchronized (wrapped) {
+								wrapped.collect(support, pattern);
+							}
+						} else {
+							wrapped.collect(support, pattern);
+						}
+					} catch (Throwable t) {
+						failure = t;
+						return;
+					}
+				} else if (closing && tail.get() == pos) {
+					return;
+				} else {
+					waited = backOff(waited);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package com.rapidminer.lcm.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.rapidminer.lcm.PLCM.PLCMThread;
+
+/**
+ * A thread-safe PatternsCollector writing patterns in the binary format
+ * described in BinaryPatternsFile.
+ *
+ * Each mining thread (found through its PLCMThread ID) fills its own block,
+ * so threads only synchronize when a full block is appended to the file.
+ * Nothing is kept in memory once a block is written : getResultList() remains
+ * empty, patterns can be read back with BinaryPatternsFile.
+ *
+ * The first write error is kept : following calls to collect() and close()
+ * throw it (wrapped in a RuntimeException), as DoubleBufferedWriter does.
+ */
+public class BinaryPatternsCollector implements PatternsCollector {
+
+	private final String path;
+	private final FileOutputStream stream;
+	private final FileChannel channel;
+
+	private final BlockWriter[] writers;
+	private final BlockWriter sharedWriter = new BlockWriter();
+
+	/**
+	 * index entries of written blocks
+	 */
+	private final ArrayList<byte[]> index = new ArrayList<byte[]>();
+
+	private long position = 0;
+
+	private boolean closed = false;
+
+	/**
+	 * first write error, if any
+	 */
+	private volatile IOException error = null;
+
+	/**
+	 * @param path
+	 *            output file
+	 * @param maxId
+	 *            higher bound on PLCMThreads' getId()
+	 * @param minimumSupport
+	 *            recorded in the file's header, 0 if unknown
+	 */
+	public BinaryPatternsCollector(final String path, final int maxId,
+			final int minimumSupport) throws IOException {
+		File file = new File(path);
+
+		if (file.exists()) {
+			System.err.println("Warning : overwriting output file " + path);
+		}
+
+		this.path = path;
+		this.stream = new FileOutputStream(file, false);
+		this.channel = this.stream.getChannel();
+
+		this.writers = new BlockWriter[maxId];
+		for (int i = 0; i < maxId; i++) {
+			this.writers[i] = new BlockWriter();
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(BinaryPatternsFile.HEADER_SIZE);
+		header.putInt(BinaryPatternsFile.MAGIC);
+		header.putInt(BinaryPatternsFile.VERSION);
+		header.putInt(minimumSupport);
+		header.flip();
+		this.write(header);
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		this.checkError();
+
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.writers.length) {
+				this.writers[id].add(support, pattern);
+				return;
+			}
+		}
+
+		synchronized (this.sharedWriter) {
+			this.sharedWriter.add(support, pattern);
+		}
+	}
+
+	@Override
+	public synchronized long close() {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				for (BlockWriter writer : this.writers) {
+					writer.flush();
+				}
+				this.sharedWriter.flush();
+
+				long indexOffset = this.position;
+				ByteBuffer footer = ByteBuffer.allocate(this.index.size()
+						* BinaryPatternsFile.INDEX_ENTRY_SIZE
+						+ BinaryPatternsFile.FOOTER_SIZE);
+				for (byte[] entry : this.index) {
+					footer.put(entry);
+				}
+				footer.putLong(indexOffset);
+				footer.putInt(this.index.size());
+				footer.putInt(BinaryPatternsFile.FOOTER_MAGIC);
+				footer.flip();
+				this.write(footer);
+			} catch (IOException e) {
+				this.setError(e);
+			} finally {
+				try {
+					this.channel.close();
+					this.stream.close();
+				} catch (IOException e) {
+					this.setError(e);
+				}
+			}
+		}
+
+		this.checkError();
+		return this.getCollected();
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		long collected = this.getCollected();
+		if (collected == 0) {
+			return 0;
+		}
+		long length = this.sharedWriter.collectedLength;
+		for (BlockWriter writer : this.writers) {
+			length += writer.collectedLength;
+		}
+		return (int) (length / collected);
+	}
+
+	/**
+	 * @return how many patterns have been collected so far
+	 */
+	public long getCollected() {
+		long total = this.sharedWriter.collected;
+		for (BlockWriter writer : this.writers) {
+			total += writer.collected;
+		}
+		return total;
+	}
+
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Patterns are not kept in memory
+	 *
+	 * @return an empty list
+	 */
+	@Override
+	public ArrayList<int[]> getResultList() {
+		return new ArrayList<int[]>(0);
+	}
+
+	/**
+	 * appends a block and its index entry - blocks of different threads are
+	 * interleaved, that's why they're self-describing
+	 */
+	private synchronized void writeBlock(ByteBuffer block, byte[] indexEntry)
+			throws IOException {
+		ByteBuffer.wrap(indexEntry).putLong(0, this.position);
+		this.index.add(indexEntry);
+		this.write(block);
+	}
+
+	private synchronized void setError(IOException e) {
+		if (this.error == null) {
+			this.error = e;
+		}
+	}
+
+	private void checkError() {
+		if (this.error != null) {
+			throw new RuntimeException("Can't write patterns file "
+					+ this.path, this.error);
+		}
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.position += this.channel.write(buffer);
+		}
+	}
+
+	private final class BlockWriter {
+		long collected = 0;
+		long collectedLength = 0;
+
+		private byte[] payload = new byte[BinaryPatternsFile.BLOCK_SIZE + 1024];
+		private int payloadLength = 0;
+		private int count = 0;
+		private int minSupport = Integer.MAX_VALUE;
+		private int maxSupport = 0;
+		private final byte[] signature = new byte[BinaryPatternsFile.SIGNATURE_SIZE];
+
+		private int[] sorted = new int[64];
+
+		void add(final int support, final int[] pattern) {
+			if (this.sorted.length < pattern.length) {
+				this.sorted = new int[Math.max(pattern.length,
+						this.sorted.length * 2)];
+			}
+			System.arraycopy(pattern, 0, this.sorted, 0, pattern.length);
+			Arrays.sort(this.sorted, 0, pattern.length);
+
+			int needed = 5 * (pattern.length + 2);
+			if (this.payloadLength + needed > this.payload.length) {
+				this.payload = Arrays.copyOf(this.payload, Math.max(
+						this.payload.length * 2, this.payloadLength + needed));
+			}
+
+			byte[] data = this.payload;
+			int pos = this.payloadLength;
+			pos = BinaryPatternsFile.writeVInt(data, pos, support);
+			pos = BinaryPatternsFile.writeVInt(data, pos, pattern.length);
+			int previous = 0;
+			for (int i = 0; i < pattern.length; i++) {
+				int item = this.sorted[i];
+				pos = BinaryPatternsFile.writeVInt(data, pos, item - previous);
+				previous = item;
+				BinaryPatternsFile.sign(this.signature, item);
+			}
+			this.payloadLength = pos;
+
+			this.count++;
+			this.minSupport = Math.min(this.minSupport, support);
+			this.maxSupport = Math.max(this.maxSupport, support);
+			this.collected++;
+			this.collectedLength += pattern.length;
+
+			if (this.payloadLength >= BinaryPatternsFile.BLOCK_SIZE) {
+				try {
+					this.flush();
+				} catch (IOException e) {
+					setError(e);
+				}
+				checkError();
+			}
+		}
+
+		void flush() throws IOException {
+			if (this.count == 0) {
+				return;
+			}
+
+			byte[] indexEntry = new byte[BinaryPatternsFile.INDEX_ENTRY_SIZE];
+			ByteBuffer entry = ByteBuffer.wrap(indexEntry);
+			entry.putLong(0); // offset, set by writeBlock
+			this.putSummary(entry);
+
+			ByteBuffer block = ByteBuffer
+					.allocate(BinaryPatternsFile.BLOCK_HEADER_SIZE
+							+ this.payloadLength);
+			block.putInt(BinaryPatternsFile.BLOCK_MAGIC);
+			this.putSummary(block);
+			block.put(this.payload, 0, this.payloadLength);
+			block.flip();
+
+			writeBlock(block, indexEntry);
+
+			this.payloadLength = 0;
+			this.count = 0;
+			this.minSupport = Integer.MAX_VALUE;
+			this.maxSupport = 0;
+			Arrays.fill(this.signature, (byte) 0);
+		}
+
+		private void putSummary(ByteBuffer buffer) {
+			buffer.putInt(this.payloadLength);
+			buffer.putInt(this.count);
+			buffer.putInt(this.minSupport);
+			buffer.putInt(this.maxSupport);
+			buffer.put(this.signature);
+		}
+	}
+}
@@ -0,0 +1,359 @@
+package com.rapidminer.lcm.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Binary patterns file, as written by BinaryPatternsCollector. Fixed-size
+ * integers are big-endian.
+ *
+ * - header : magic number ("PLCP"), format version, minimum support used for
+ * mining (0 if unknown)
+ *
+ * - blocks : each block starts with a magic number, then its summary :
+ * payload length in bytes, patterns count, minimum and maximum support among
+ * its patterns, and a 256-bit signature of the items it contains. The payload
+ * follows : for each pattern its support, its length then its sorted items,
+ * delta-encoded, all as variable-length integers.
+ *
+ * - block index : for each block, its offset followed by its summary
+ *
+ * - footer : offset of the block index, blocks count, and another magic
+ * number
+ *
+ * A reader opens the index first, so it can skip blocks by support or by
+ * contained items without reading them. Blocks it needs are memory-mapped, and
+ * patterns with a too low support are skipped before being decoded.
+ */
+public final class BinaryPatternsFile {
+
+	public static final int MAGIC = 0x504C4350;
+	public static final int VERSION = 1;
+	public static final int BLOCK_MAGIC = 0x424C4B31;
+	public static final int FOOTER_MAGIC = 0x504C4346;
+
+	/**
+	 * patterns are grouped in blocks of (approximately) this payload size
+	 */
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	public static final int SIGNATURE_SIZE = 32;
+
+	static final int HEADER_SIZE = 12;
+	static final int SUMMARY_SIZE = 16 + SIGNATURE_SIZE;
+	static final int BLOCK_HEADER_SIZE = 4 + SUMMARY_SIZE;
+	static final int INDEX_ENTRY_SIZE = 8 + SUMMARY_SIZE;
+	static final int FOOTER_SIZE = 16;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+
+	private final int minimumSupport;
+
+	private final long[] offsets;
+	private final int[] payloadLengths;
+	private final int[] counts;
+	private final int[] minSupports;
+	private final int[] maxSupports;
+	private final byte[][] signatures;
+
+	public BinaryPatternsFile(File file) throws IOException {
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "r");
+		this.channel = this.raf.getChannel();
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			this.readFully(header, 0);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(file + " is not a binary patterns file");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary patterns version "
+						+ version + " in " + file);
+			}
+			this.minimumSupport = header.getInt();
+
+			long length = this.channel.size();
+			ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+			this.readFully(footer, length - FOOTER_SIZE);
+			long indexOffset = footer.getLong();
+			int blocksCount = footer.getInt();
+			if (footer.getInt() != FOOTER_MAGIC) {
+				throw new IOException(file
+						+ " is truncated (was the collector closed ?)");
+			}
+
+			this.offsets = new long[blocksCount];
+			this.payloadLengths = new int[blocksCount];
+			this.counts = new int[blocksCount];
+			this.minSupports = new int[blocksCount];
+			this.maxSupports = new int[blocksCount];
+			this.signatures = new byte[blocksCount][SIGNATURE_SIZE];
+
+			ByteBuffer index = ByteBuffer.allocate(blocksCount
+					* INDEX_ENTRY_SIZE);
+			this.readFully(index, indexOffset);
+			for (int i = 0; i < blocksCount; i++) {
+				this.offsets[i] = index.getLong();
+				this.payloadLengths[i] = index.getInt();
+				this.counts[i] = index.getInt();
+				this.minSupports[i] = index.getInt();
+				this.maxSupports[i] = index.getInt();
+				index.get(this.signatures[i]);
+			}
+		} catch (IOException e) {
+			this.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return minimum support used for mining, or 0 if unknown
+	 */
+	public int getMinimumSupport() {
+		return this.minimumSupport;
+	}
+
+	public int getBlocksCount() {
+		return this.offsets.length;
+	}
+
+	public long getPatternsCount() {
+		long total = 0;
+		for (int count : this.counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * @param minSupport
+	 *            only patterns having at least this support are returned
+	 * @param items
+	 *            only patterns containing all these items are returned - may
+	 *            be null
+	 * @return patterns as [support, items..., 0], in file order, each decoded
+	 *         when next() is called
+	 */
+	public Iterator<int[]> iterator(int minSupport, int[] items) {
+		return new PatternsIterator(minSupport, items);
+	}
+
+	/**
+	 * Loads all selected patterns in memory
+	 *
+	 * @see #iterator(int, int[])
+	 */
+	public PackedPatterns readAll(int minSupport, int[] items) {
+		PackedPatterns res = new PackedPatterns();
+		Iterator<int[]> iterator = this.iterator(minSupport, items);
+		while (iterator.hasNext()) {
+			int[] line = iterator.next();
+			res.add(line[0], line, 1, line.length - 1);
+		}
+		return res;
+	}
+
+	public void close() {
+		try {
+			this.channel.close();
+			this.raf.close();
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = this.channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of " + this.file);
+			}
+			position += read;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * @return position following the written integer
+	 */
+	static int writeVInt(byte[] array, int pos, int val) {
+		while ((val & ~0x7F) != 0) {
+			array[pos++] = (byte) ((val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		array[pos++] = (byte) val;
+		return pos;
+	}
+
+	private static int signatureBit(int item) {
+		return (item * 0x9E3779B1) >>> 24;
+	}
+
+	static void sign(byte[] signature, int item) {
+		int bit = signatureBit(item);
+		signature[bit >>> 3] |= 1 << (bit & 7);
+	}
+
+	/**
+	 * @return false if the block having this signature surely doesn't contain
+	 *         item
+	 */
+	static boolean mayContain(byte[] signature, int item) {
+		int bit = signatureBit(item);
+		return (signature[bit >>> 3] & (1 << (bit & 7))) != 0;
+	}
+
+	private final class PatternsIterator implements Iterator<int[]> {
+		private final int minSupport;
+
+		/**
+		 * sorted, or null
+		 */
+		private final int[] items;
+
+		private int nextBlock = 0;
+		private MappedByteBuffer block = null;
+		private int remainingInBlock = 0;
+
+		private int[] buffer = new int[64];
+		private int[] nextPattern = null;
+
+		PatternsIterator(int minSupport, int[] items) {
+			this.minSupport = minSupport;
+			if (items == null || items.length == 0) {
+				this.items = null;
+			} else {
+				this.items = Arrays.copyOf(items, items.length);
+				Arrays.sort(this.items);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.nextPattern == null) {
+				try {
+					this.nextPattern = this.findNext();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			return this.nextPattern != null;
+		}
+
+		@Override
+		public int[] next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int[] pattern = this.nextPattern;
+			this.nextPattern = null;
+			return pattern;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private boolean selectBlock(int i) {
+			if (maxSupports[i] < this.minSupport) {
+				return false;
+			}
+			if (this.items != null) {
+				for (int item : this.items) {
+					if (!mayContain(signatures[i], item)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		private int[] findNext() throws IOException {
+			while (true) {
+				while (this.remainingInBlock == 0) {
+					if (this.nextBlock >= offsets.length) {
+						return null;
+					}
+					int i = this.nextBlock++;
+					if (this.selectBlock(i)) {
+						this.block = channel.map(FileChannel.MapMode.READ_ONLY,
+								offsets[i] + BLOCK_HEADER_SIZE,
+								payloadLengths[i]);
+						this.remainingInBlock = counts[i];
+					}
+				}
+
+				this.remainingInBlock--;
+				int support = this.readVInt();
+				int length = this.readVInt();
+
+				if (support < this.minSupport
+						|| (this.items != null && length < this.items.length)) {
+					for (int j = 0; j < length; j++) {
+						this.readVInt();
+					}
+					continue;
+				}
+
+				if (this.buffer.length < length) {
+					this.buffer = new int[Math.max(length,
+							this.buffer.length * 2)];
+				}
+				int item = 0;
+				for (int j = 0; j < length; j++) {
+					item += this.readVInt();
+					this.buffer[j] = item;
+				}
+
+				if (this.items == null || this.containsAll(length)) {
+					int[] pattern = new int[length + 2];
+					pattern[0] = support;
+					System.arraycopy(this.buffer, 0, pattern, 1, length);
+					return pattern;
+				}
+			}
+		}
+
+		/**
+		 * both the pattern in buffer and items are sorted
+		 */
+		private boolean containsAll(int length) {
+			int j = 0;
+			for (int item : this.items) {
+				while (j < length && this.buffer[j] < item) {
+					j++;
+				}
+				if (j == length || this.buffer[j] != item) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int readVInt() {
+			byte b = this.block.get();
+			int res = b & 0x7F;
+			int shift = 7;
+			while (b < 0) {
+				b = this.block.get();
+				res |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			return res;
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package com.rapidminer.lcm.io;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+
+/**
+ * Binary transactions file format. All integers in the header are big-endian
+ * 32-bit integers :
+ *
+ * - magic number ("PLCT") and format version
+ *
+ * - transactions count, biggest item ID, length of the longest transaction
+ *
+ * - support count of each item in [0, biggest item ID]
+ *
+ * - length in bytes of the transactions section, then this section itself :
+ * transactions encoded as in RMCompactTransactions (length, then sorted items
+ * delta-encoded as variable-length integers)
+ *
+ * As supports are in the header, PLCM can start mining without counting
+ * items.
+ *
+ * Files which grow by appending transactions (see IncrementalFIMIFile) use
+ * version 2, where the same fields are moved after the transactions section :
+ * magic number and version, transactions section, then transactions count,
+ * biggest item ID, longest transaction, supports and finally the length of
+ * the transactions section. append() only writes new transactions over this
+ * footer, then an updated footer.
+ */
+public final class BinaryTransactionsFile {
+
+	public static final int MAGIC = 0x504C4354;
+
+	public static final int VERSION = 1;
+
+	public static final int APPENDABLE_VERSION = 2;
+
+	/**
+	 * magic number and version
+	 */
+	private static final int HEADER_LENGTH = 8;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private BinaryTransactionsFile() {
+	}
+
+	/**
+	 * Any RMTransactions is accepted, but if it's not already compact it will
+	 * be converted first.
+	 */
+	public static void write(RMTransactions transactions, File file)
+			throws IOException {
+		write(toCompact(transactions), file);
+	}
+
+	public static void write(RMCompactTransactions transactions, File file)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(transactions.getTransactionsCount());
+			out.writeInt(transactions.getMaxItem());
+			out.writeInt(transactions.getLongestTransaction());
+
+			int[] supports = transactions.getSupports();
+			for (int i = 0; i <= transactions.getMaxItem(); i++) {
+				out.writeInt(supports[i]);
+			}
+
+			out.writeInt(transactions.getDataLength());
+			out.write(transactions.getData(), 0, transactions.getDataLength());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes transactions in the appendable layout (version 2)
+	 */
+	public static void writeAppendable(RMCompactTransactions transactions,
+			File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(APPENDABLE_VERSION);
+			out.write(transactions.getData(), 0, transactions.getDataLength());
+			out.write(footer(transactions.getTransactionsCount(),
+					transactions.getMaxItem(),
+					transactions.getLongestTransaction(),
+					transactions.getSupports(), transactions.getDataLength()));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Appends transactions to a file written by writeAppendable : only
+	 * appended transactions and the footer are written, whatever the file's
+	 * size.
+	 */
+	public static void append(File file, RMCompactTransactions appended)
+			throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			if (raf.length() < HEADER_LENGTH + 16 || raf.readInt() != MAGIC
+					|| raf.readInt() != APPENDABLE_VERSION) {
+				throw new IOException(file
+						+ " is not an appendable binary transactions file");
+			}
+
+			raf.seek(raf.length() - 4);
+			final long dataLength = raf.readInt() & 0xFFFFFFFFL;
+			raf.seek(HEADER_LENGTH + dataLength);
+
+			int transactionsCount = raf.readInt();
+			int maxItem = raf.readInt();
+			int longestTransaction = raf.readInt();
+			if (raf.length() != HEADER_LENGTH + dataLength + 16 + 4L
+					* (maxItem + 1)) {
+				throw new IOException("Corrupted footer in " + file);
+			}
+			byte[] supportsBytes = new byte[4 * (maxItem + 1)];
+			raf.readFully(supportsBytes);
+
+			int newMaxItem = Math.max(maxItem, appended.getMaxItem());
+			int[] supports = new int[newMaxItem + 1];
+			DataInputStream supportsIn = new DataInputStream(
+					new ByteArrayInputStream(supportsBytes));
+			for (int i = 0; i <= maxItem; i++) {
+				supports[i] = supportsIn.readInt();
+			}
+			int[] appendedSupports = appended.getSupports();
+			for (int i = 0; i <= appended.getMaxItem(); i++) {
+				supports[i] += appendedSupports[i];
+			}
+
+			long newDataLength = dataLength + appended.getDataLength();
+			if (newDataLength > Integer.MAX_VALUE) {
+				throw new IOException("Too many transactions for " + file);
+			}
+
+			raf.seek(HEADER_LENGTH + dataLength);
+			raf.write(appended.getData(), 0, appended.getDataLength());
+			raf.write(footer(
+					transactionsCount + appended.getTransactionsCount(),
+					newMaxItem,
+					Math.max(longestTransaction,
+							appended.getLongestTransaction()), supports,
+					(int) newDataLength));
+			raf.setLength(raf.getFilePointer());
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static byte[] footer(int transactionsCount, int maxItem,
+			int longestTransaction, int[] supports, int dataLength)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				16 + 4 * (maxItem + 1));
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(transactionsCount);
+		out.writeInt(maxItem);
+		out.writeInt(longestTransaction);
+		for (int i = 0; i <= maxItem; i++) {
+			out.writeInt(supports[i]);
+		}
+		out.writeInt(dataLength);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads both layouts
+	 */
+	public static RMCompactTransactions read(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), BUFFER_SIZE));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file
+						+ " is not a binary transactions file");
+			}
+
+			int version = in.readInt();
+			if (version == APPENDABLE_VERSION) {
+				return readAppendable(file, in);
+			}
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary transactions version "
+						+ version + " in " + file);
+			}
+
+			int transactionsCount = in.readInt();
+			int maxItem = in.readInt();
+			int longestTransaction = in.readInt();
+
+			int[] supports = new int[maxItem + 1];
+			for (int i = 0; i <= maxItem; i++) {
+				supports[i] = in.readInt();
+			}
+
+			int dataLength = in.readInt();
+			byte[] data = new byte[dataLength];
+			in.readFully(data);
+
+			return new RMCompactTransactions(data, dataLength,
+					transactionsCount, maxItem, supports, longestTransaction);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @param in
+	 *            positioned after the header
+	 */
+	private static RMCompactTransactions readAppendable(File file,
+			DataInputStream in) throws IOException {
+		int dataLength;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			raf.seek(raf.length() - 4);
+			dataLength = raf.readInt();
+		} finally {
+			raf.close();
+		}
+		if (dataLength < 0 || HEADER_LENGTH + (long) dataLength + 16 > file.length()) {
+			throw new IOException("Corrupted footer in " + file);
+		}
+
+		byte[] data = new byte[dataLength];
+		in.readFully(data);
+
+		int transactionsCount = in.readInt();
+		int maxItem = in.readInt();
+		int longestTransaction = in.readInt();
+		if (file.length() != HEADER_LENGTH + (long) dataLength + 16 + 4L
+				* (maxItem + 1)) {
+			throw new IOException("Corrupted footer in " + file);
+		}
+		int[] supports = new int[maxItem + 1];
+		for (int i = 0; i <= maxItem; i++) {
+			supports[i] = in.readInt();
+		}
+
+		return new RMCompactTransactions(data, dataLength, transactionsCount,
+				maxItem, supports, longestTransaction);
+	}
+
+	public static RMCompactTransactions toCompact(RMTransactions transactions) {
+		if (transactions instanceof RMCompactTransactions) {
+			return (RMCompactTransactions) transactions;
+		}
+
+		RMCompactTransactions compact = new RMCompactTransactions();
+		for (TIntArrayList transaction : transactions.getTransactions()) {
+			compact.add(transaction);
+		}
+		return compact;
+	}
+}
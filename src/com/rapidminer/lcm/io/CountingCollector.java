@@ -0,0 +1,144 @@
+package com.rapidminer.lcm.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rapidminer.lcm.PLCM;
+import com.rapidminer.lcm.PLCM.PLCMThread;
+
+/**
+ * Only counts patterns, for probe runs : once more than a given number of
+ * patterns has been collected, or once a deadline is passed, the run is
+ * stopped.
+ *
+ * Each mining thread counts in its own slot, found through its PLCMThread ID
+ * (slots are a cache line apart), and adds it to the shared count every
+ * FLUSH_INTERVAL patterns, where limits are checked. close() returns the exact
+ * count, which may be a little over the limit when the run was stopped.
+ *
+ * The deadline is only checked when counts are flushed, so a run finding few
+ * patterns may pass it : the caller should also give the time budget to
+ * PLCM.setLimits(), whose LimitsWatcherThread checks it periodically.
+ */
+public class CountingCollector implements PatternsCollector {
+
+	private static final int FLUSH_INTERVAL = 256;
+
+	/**
+	 * longs between two threads' slots
+	 */
+	private static final int STRIDE = 16;
+
+	private final long[] counts;
+	private final long[] lengths;
+
+	private final AtomicLong collected = new AtomicLong(0);
+	private final AtomicLong collectedLength = new AtomicLong(0);
+
+	private final long limit;
+	private final long deadline;
+
+	private volatile PLCM miner = null;
+	private volatile boolean exceeded = false;
+
+	/**
+	 * @param nbThreads
+	 *            higher bound on PLCMThreads' getId()
+	 * @param limit
+	 *            patterns count beyond which the run is stopped, 0 for none
+	 * @param deadline
+	 *            System.currentTimeMillis() after which the run is stopped, 0
+	 *            for none
+	 */
+	public CountingCollector(int nbThreads, long limit, long deadline) {
+		this.counts = new long[(nbThreads + 1) * STRIDE];
+		this.lengths = new long[(nbThreads + 1) * STRIDE];
+		this.limit = limit;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * miner will be stopped once a limit is exceeded
+	 */
+	public void stopWhenExceeded(PLCM miner) {
+		this.miner = miner;
+		if (this.exceeded) {
+			miner.stop("probe limits exceeded");
+		}
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.counts.length / STRIDE - 1) {
+				// slot 0 is left as padding
+				final int slot = (id + 1) * STRIDE;
+				this.lengths[slot] += pattern.length;
+				if (++this.counts[slot] == FLUSH_INTERVAL) {
+					this.flush(this.counts[slot], this.lengths[slot]);
+					this.counts[slot] = 0;
+					this.lengths[slot] = 0;
+				}
+				return;
+			}
+		}
+
+		this.flush(1, pattern.length);
+	}
+
+	private void flush(long count, long length) {
+		this.collectedLength.addAndGet(length);
+		long total = this.collected.addAndGet(count);
+
+		if (!this.exceeded
+				&& ((this.limit > 0 && total > this.limit) || (this.deadline > 0 && System
+						.currentTimeMillis() > this.deadline))) {
+			this.exceeded = true;
+			PLCM stopped = this.miner;
+			if (stopped != null) {
+				stopped.stop("probe limits exceeded");
+			}
+		}
+	}
+
+	/**
+	 * @return true if the run was stopped because of the patterns limit or the
+	 *         deadline
+	 */
+	public boolean isExceeded() {
+		return this.exceeded;
+	}
+
+	@Override
+	public long close() {
+		long total = this.collected.get();
+		for (int slot = STRIDE; slot < this.counts.length; slot += STRIDE) {
+			total += this.counts[slot];
+		}
+		return total;
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		long total = this.close();
+		if (total == 0) {
+			return 0;
+		}
+		long length = this.collectedLength.get();
+		for (int slot = STRIDE; slot < this.lengths.length; slot += STRIDE) {
+			length += this.lengths[slot];
+		}
+		return (int) (length / total);
+	}
+
+	/**
+	 * @return an empty list, patterns are not kept
+	 */
+	@Override
+	public List<int[]> getResultList() {
+		return new ArrayList<int[]>(0);
+	}
+}
@@ -0,0 +1,262 @@
+package com.rapidminer.lcm.io;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes ASCII text to a file through two byte arrays : while one is filled
+ * by the caller, the other one is written to the file by a flusher thread.
+ * Integers are formatted straight into the array, without creating any
+ * object.
+ *
+ * When asynchronous flushing is disabled, full arrays are written by the
+ * caller itself - it's still allocation-free.
+ *
+ * This class is not thread-safe : only one thread should write to an
+ * instance.
+ *
+ * The first write error is kept : the flusher stops, and the following
+ * flush() or close() throws it (wrapped in a RuntimeException) instead of
+ * waiting for an empty array forever.
+ */
+public final class DoubleBufferedWriter {
+
+	public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+	/**
+	 * longest integer : "-2147483648"
+	 */
+	private static final int MAX_INT_LENGTH = 11;
+
+	private final FileOutputStream stream;
+	private final FileChannel channel;
+	private final int capacity;
+
+	private byte[] current;
+	private int position = 0;
+
+	/**
+	 * empty arrays, given back by the flusher. null in synchronous mode
+	 */
+	private final BlockingQueue<Chunk> free;
+
+	/**
+	 * arrays to be written, null in synchronous mode
+	 */
+	private final BlockingQueue<Chunk> full;
+
+	private final Flusher flusher;
+
+	private boolean closed = false;
+
+	/**
+	 * first write error, if any
+	 */
+	private volatile IOException error = null;
+
+	/**
+	 * given back instead of an empty array by a flusher which stopped
+	 */
+	private static final Chunk FAILED = new Chunk(null, -1);
+
+	/**
+	 * @param capacity
+	 *            size of each of the two arrays, in bytes
+	 * @param async
+	 *            if false, the calling thread writes full arrays itself (and
+	 *            only one array is allocated)
+	 */
+	public DoubleBufferedWriter(FileOutputStream stream, int capacity,
+			boolean async) {
+		this.stream = stream;
+		this.channel = stream.getChannel();
+		this.capacity = Math.max(capacity, 2 * MAX_INT_LENGTH);
+		this.current = new byte[this.capacity];
+
+		if (async) {
+			this.free = new ArrayBlockingQueue<Chunk>(2);
+			this.full = new ArrayBlockingQueue<Chunk>(2);
+			this.free.add(new Chunk(new byte[this.capacity], 0));
+			this.flusher = new Flusher();
+			this.flusher.start();
+		} else {
+			this.free = null;
+			this.full = null;
+			this.flusher = null;
+		}
+	}
+
+	public void put(final byte b) {
+		if (this.position == this.capacity) {
+			this.flush();
+		}
+		this.current[this.position++] = b;
+	}
+
+	/**
+	 * Appends the decimal representation of i
+	 */
+	public void putInt(int i) {
+		if (this.capacity - this.position < MAX_INT_LENGTH) {
+			this.flush();
+		}
+
+		final byte[] array = this.current;
+
+		if (i < 0) {
+			if (i == Integer.MIN_VALUE) {
+				for (int k = 0; k < MIN_VALUE.length; k++) {
+					array[this.position++] = MIN_VALUE[k];
+				}
+				return;
+			}
+			array[this.position++] = '-';
+			i = -i;
+		}
+
+		// count digits, then write them from the last one
+		int length = 1;
+		for (int bound = 10; length < 10 && i >= bound; bound *= 10) {
+			length++;
+		}
+
+		int pos = this.position + length;
+		this.position = pos;
+		do {
+			array[--pos] = (byte) ('0' + (i % 10));
+			i /= 10;
+		} while (i != 0);
+	}
+
+	/**
+	 * Hands the current array to the flusher (or writes it, in synchronous
+	 * mode) and continues with an empty one.
+	 */
+	public void flush() {
+		this.checkError();
+		if (this.position == 0) {
+			return;
+		}
+
+		if (this.flusher == null) {
+			this.write(this.current, this.position);
+			this.checkError();
+		} else {
+			try {
+				this.full.put(new Chunk(this.current, this.position));
+				Chunk empty = this.free.take();
+				if (empty == FAILED) {
+					// for the next caller
+					this.free.offer(FAILED);
+					this.checkError();
+				}
+				this.current = empty.array;
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		this.position = 0;
+	}
+
+	/**
+	 * Flushes remaining bytes, waits for the flusher and closes the file
+	 */
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		try {
+			this.flush();
+
+			if (this.flusher != null) {
+				if (this.flusher.isAlive()) {
+					this.full.put(new Chunk(null, -1));
+				}
+				this.flusher.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} finally {
+			try {
+				this.channel.close();
+				this.stream.close();
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+			}
+		}
+
+		this.checkError();
+	}
+
+	private void checkError() {
+		if (this.error != null) {
+			throw new RuntimeException("Can't write patterns file",
+					this.error);
+		}
+	}
+
+	private void write(byte[] array, int length) {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(array, 0, length);
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer);
+			}
+		} catch (IOException e) {
+			if (this.error == null) {
+				this.error = e;
+			}
+		}
+	}
+
+	private static final byte[] MIN_VALUE = Integer.toString(
+			Integer.MIN_VALUE).getBytes();
+
+	private static final class Chunk {
+		final byte[] array;
+		final int length;
+
+		Chunk(byte[] array, int length) {
+			this.array = array;
+			this.length = length;
+		}
+	}
+
+	private final class Flusher extends Thread {
+
+		Flusher() {
+			super("DoubleBufferedWriter flusher");
+			this.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (error == null) {
+					Chunk chunk = full.take();
+					if (chunk.array == null) {
+						return;
+					}
+					write(chunk.array, chunk.length);
+					if (error == null) {
+						free.put(new Chunk(chunk.array, 0));
+					}
+				}
+			} catch (InterruptedException e) {
+				error = new IOException("flusher interrupted", e);
+			} catch (RuntimeException e) {
+				error = new IOException(e);
+			} finally {
+				if (error != null) {
+					// wakes up the writer waiting for an empty array
+					free.offer(FAILED);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package com.rapidminer.lcm.io;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.SimpleExampleSet;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.example.table.SparseDataRow;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+
+/**
+ * Converts an ExampleSet to compact transactions by reading values of its
+ * underlying ExampleTable as doubles, through attributes' table indexes. No
+ * object is created per example : each thread converts a range of rows into
+ * its own RMCompactTransactions, which are concatenated at the end.
+ *
+ * Two layouts are supported :
+ *
+ * - ITEM_VALUES : each example is a transaction and each regular attribute
+ * may contain an item ID (missing values are ignored). Nominal values are
+ * translated to integers once per attribute, not once per example.
+ *
+ * - ONE_COLUMN_PER_ITEM : the n-th regular attribute represents item n, which
+ * belongs to the transaction if the attribute is binominal and positive, or
+ * numerical and not 0.
+ *
+ * Rows implementing SparseDataRow are read through their non-default values
+ * only, unless an attribute's default value represents an item (such as 0 in
+ * ITEM_VALUES layout) : they're then read as other rows.
+ *
+ * This replaces RPFileReader, which parsed each value from its String form.
+ */
+public final class ExampleTableAdapter {
+
+	public static final int ITEM_VALUES = 0;
+	public static final int ONE_COLUMN_PER_ITEM = 1;
+
+	public static final String[] LAYOUTS = { "item values",
+			"one column per item" };
+
+	private final ExampleSet exampleSet;
+	private final int layout;
+
+	/**
+	 * regular attributes, by column
+	 */
+	private final Attribute[] attributes;
+
+	/**
+	 * table index => column, or -1 for attributes we don't read
+	 */
+	private final int[] columnOfTableIndex;
+
+	/**
+	 * for nominal attributes in ITEM_VALUES layout : nominal value index =>
+	 * item (or -1) ; null for numerical attributes
+	 */
+	private final int[][] nominalItems;
+
+	/**
+	 * for ONE_COLUMN_PER_ITEM layout : value meaning "contains this item", or
+	 * NaN for numerical attributes (then any value but 0 means it's contained)
+	 */
+	private final double[] positiveValues;
+
+	/**
+	 * true if a default value represents an item, so sparse rows can't be
+	 * read through their non-default values only
+	 */
+	private final boolean defaultItems;
+
+	public ExampleTableAdapter(ExampleSet exampleSet, int layout) {
+		this.exampleSet = exampleSet;
+		this.layout = layout;
+
+		this.attributes = new Attribute[exampleSet.getAttributes().size()];
+		int maxTableIndex = -1;
+		int column = 0;
+		Iterator<Attribute> iterator = exampleSet.getAttributes().iterator();
+		while (iterator.hasNext()) {
+			Attribute attribute = iterator.next();
+			this.attributes[column++] = attribute;
+			maxTableIndex = Math.max(maxTableIndex, attribute.getTableIndex());
+		}
+
+		this.columnOfTableIndex = new int[maxTableIndex + 1];
+		Arrays.fill(this.columnOfTableIndex, -1);
+		this.nominalItems = new int[this.attributes.length][];
+		this.positiveValues = new double[this.attributes.length];
+
+		for (int i = 0; i < this.attributes.length; i++) {
+			Attribute attribute = this.attributes[i];
+			this.columnOfTableIndex[attribute.getTableIndex()] = i;
+			this.positiveValues[i] = Double.NaN;
+
+			if (attribute.isNominal()) {
+				List<String> values = attribute.getMapping().getValues();
+				if (layout == ITEM_VALUES) {
+					this.nominalItems[i] = parseItems(values);
+				} else {
+					this.positiveValues[i] = getPositiveIndex(attribute
+							.getMapping());
+				}
+			}
+		}
+
+		boolean defaultItems = false;
+		for (int i = 0; i < this.attributes.length; i++) {
+			if (this.toItem(i, this.attributes[i].getDefault()) >= 0) {
+				defaultItems = true;
+			}
+		}
+		this.defaultItems = defaultItems;
+	}
+
+	/**
+	 * @return how many items IDs may appear in ONE_COLUMN_PER_ITEM layout
+	 */
+	public int getColumnsCount() {
+		return this.attributes.length;
+	}
+
+	/**
+	 * @return the attribute representing item "item" in ONE_COLUMN_PER_ITEM
+	 *         layout
+	 */
+	public Attribute getItemAttribute(int item) {
+		return this.attributes[item];
+	}
+
+	/**
+	 * Converts all examples, using nbThreads threads
+	 */
+	public RMCompactTransactions convert(int nbThreads) {
+		final ExampleTable table = this.exampleSet.getExampleTable();
+		final int nbRows = this.exampleSet.size();
+
+		// only a SimpleExampleSet reads the table's rows in order : other
+		// example sets (samples, sorted or shuffled views...) map their
+		// examples to rows, even when they're as many as the table's rows
+		final boolean direct = (this.exampleSet instanceof SimpleExampleSet
+				&& table != null && table.size() == nbRows);
+
+		nbThreads = Math.max(1, Math.min(nbThreads, nbRows));
+		ConvertThread[] threads = new ConvertThread[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			threads[i] = new ConvertThread(direct ? table : null,
+					(int) ((long) nbRows * i / nbThreads),
+					(int) ((long) nbRows * (i + 1) / nbThreads));
+			threads[i].start();
+		}
+
+		RMCompactTransactions result = null;
+		for (ConvertThread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if (t.error != null) {
+				throw t.error;
+			}
+			if (result == null) {
+				result = t.transactions;
+			} else {
+				result.addAll(t.transactions);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * writes in buffer the items contained by row
+	 *
+	 * @return items count
+	 */
+	private int readRow(DataRow row, int[] buffer) {
+		int length = 0;
+
+		if (row instanceof SparseDataRow && !this.defaultItems) {
+			SparseDataRow sparse = (SparseDataRow) row;
+			int[] indices = sparse.getNonDefaultIndices();
+			double[] values = sparse.getNonDefaultValues();
+			for (int i = 0; i < indices.length; i++) {
+				int tableIndex = indices[i];
+				if (tableIndex < this.columnOfTableIndex.length) {
+					int column = this.columnOfTableIndex[tableIndex];
+					if (column >= 0) {
+						int item = this.toItem(column, values[i]);
+						if (item >= 0) {
+							buffer[length++] = item;
+						}
+					}
+				}
+			}
+		} else {
+			for (int column = 0; column < this.attributes.length; column++) {
+				int item = this.toItem(column,
+						row.get(this.attributes[column]));
+				if (item >= 0) {
+					buffer[length++] = item;
+				}
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * @return the item represented by value in the given column, or -1
+	 */
+	private int toItem(int column, double value) {
+		if (Double.isNaN(value)) {
+			return -1;
+		}
+
+		if (this.layout == ONE_COLUMN_PER_ITEM) {
+			double positive = this.positiveValues[column];
+			if (Double.isNaN(positive)) {
+				return (value != 0) ? column : -1;
+			} else {
+				return (value == positive) ? column : -1;
+			}
+		} else {
+			int[] items = this.nominalItems[column];
+			if (items == null) {
+				return (int) value;
+			} else {
+				int index = (int) value;
+				return (index >= 0 && index < items.length) ? items[index] : -1;
+			}
+		}
+	}
+
+	private static int[] parseItems(List<String> values) {
+		int[] items = new int[values.size()];
+		for (int i = 0; i < items.length; i++) {
+			try {
+				items[i] = Integer.parseInt(values.get(i).trim());
+			} catch (NumberFormatException e) {
+				items[i] = -1;
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @return index of the nominal value meaning "true", or -1 if the mapping
+	 *         does not look boolean
+	 */
+	private static double getPositiveIndex(NominalMapping mapping) {
+		List<String> values = mapping.getValues();
+		for (int i = 0; i < values.size(); i++) {
+			String value = values.get(i).trim().toLowerCase();
+			if (value.equals("true") || value.equals("1")
+					|| value.equals("yes") || value.equals("y")
+					|| value.equals("t")) {
+				return i;
+			}
+		}
+		if (values.size() == 2) {
+			// binominal mappings put their positive value second
+			return 1;
+		}
+		return -1;
+	}
+
+	private final class ConvertThread extends Thread {
+		private final ExampleTable table;
+		private final int from;
+		private final int to;
+		final RMCompactTransactions transactions;
+		RuntimeException error = null;
+
+		ConvertThread(ExampleTable table, int from, int to) {
+			super("ExampleTableAdapter" + from);
+			this.table = table;
+			this.from = from;
+			this.to = to;
+			// 4 bytes per cell is a rough guess for the initial capacity
+			this.transactions = new RMCompactTransactions((int) Math.min(
+					Integer.MAX_VALUE / 2,
+					4L * (to - from) * Math.min(attributes.length, 64)));
+		}
+
+		@Override
+		public void run() {
+			try {
+				int[] buffer = new int[Math.max(attributes.length, 1)];
+				for (int i = this.from; i < this.to; i++) {
+					DataRow row;
+					if (this.table == null) {
+						row = exampleSet.getExample(i).getDataRow();
+					} else {
+						row = this.table.getDataRow(i);
+					}
+					int length = readRow(row, buffer);
+					this.transactions.add(buffer, 0, length);
+				}
+			} catch (RuntimeException e) {
+				this.error = e;
+			}
+		}
+	}
+}
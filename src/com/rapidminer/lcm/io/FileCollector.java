@@ -23,38 +23,74 @@ package com.rapidminer.lcm.io;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.BufferOverflowException;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.lcm.util.PackedPatterns;
 
 /**
  * a thread-unsafe PatternsCollector that write to the path provided at
  * instanciation
  * 
+ * Unless it is created in streaming mode, it also keeps a copy of each
+ * pattern in memory, given by getResultList().
+ * 
+ * Text is formatted by a DoubleBufferedWriter : by default, a flusher thread
+ * writes a full buffer while the mining thread fills the other one.
+ * 
  * @see MultiThreadedFileCollector
  */
 public class FileCollector implements PatternsCollector {
 
-	// this should be profiled and tuned !
-	protected static final int BUFFER_CAPACITY = 4096;
+	protected static final int BUFFER_CAPACITY = DoubleBufferedWriter.DEFAULT_CAPACITY;
 
 	protected long collected = 0;
 	protected long collectedLength = 0;
 	protected FileOutputStream stream;
-	protected FileChannel channel;
-	protected ByteBuffer buffer;
-	protected static final Charset charset = Charset.forName("ASCII");
+	protected DoubleBufferedWriter writer;
 
 	// private SupportPatternObject spobj;
 	// private ArrayList<SupportPatternObject> res = new
 	// ArrayList<SupportPatternObject>();
 
-	private int[] table;
-	private ArrayList<int[]> res = new ArrayList<int[]>();
+	private PackedPatterns res = new PackedPatterns(16, 64);
+
+	protected final String path;
+
+	/**
+	 * if false, patterns are only written to the file
+	 */
+	protected final boolean retain;
 
 	public FileCollector(final String path) throws IOException {
+		this(path, true);
+	}
+
+	/**
+	 * @param retain
+	 *            if false, nothing is kept in memory and getResultList() will
+	 *            remain empty - the file can be read back with
+	 *            PatternFileReader
+	 */
+	public FileCollector(final String path, final boolean retain)
+			throws IOException {
+		this(path, retain, BUFFER_CAPACITY, true);
+	}
+
+	/**
+	 * @param retain
+	 *            if false, nothing is kept in memory and getResultList() will
+	 *            remain empty
+	 * @param bufferCapacity
+	 *            size of each output buffer, in bytes
+	 * @param asyncFlush
+	 *            if true, buffers are written to the file by another thread
+	 */
+	public FileCollector(final String path, final boolean retain,
+			final int bufferCapacity, final boolean asyncFlush)
+			throws IOException {
+		this.path = path;
+		this.retain = retain;
+
 		File file = new File(path);
 
 		if (file.exists()) {
@@ -62,10 +98,7 @@ public class FileCollector implements PatternsCollector {
 		}
 
 		stream = new FileOutputStream(file, false);
-		channel = stream.getChannel();
-
-		buffer = ByteBuffer.allocateDirect(BUFFER_CAPACITY);
-		buffer.clear();
+		writer = new DoubleBufferedWriter(stream, bufferCapacity, asyncFlush);
 	}
 
 	public void collect(final int support, final int[] pattern) {
@@ -89,50 +122,28 @@ public class FileCollector implements PatternsCollector {
 		// spobj = new SupportPatternObject(support, Arrays.toString(pattern));
 		// res.add(spobj);
 
-		table = this.createTransactionLine(support, pattern);
+		if (this.retain) {
+			res.add(support, pattern);
+		}
 
-		res.add(table);
 		this.collected++;
 		this.collectedLength += pattern.length;
 	}
 
 	protected void putInt(final int i) {
-		try {
-			byte[] asBytes = Integer.toString(i).getBytes(charset);
-			buffer.put(asBytes);
-		} catch (BufferOverflowException e) {
-			flush();
-			putInt(i);
-		}
+		writer.putInt(i);
 	}
 
 	protected void safePut(final byte b) {
-		try {
-			buffer.put(b);
-		} catch (BufferOverflowException e) {
-			flush();
-			safePut(b);
-		}
+		writer.put(b);
 	}
 
 	protected void flush() {
-		try {
-			buffer.flip();
-			channel.write(buffer);
-			buffer.clear();
-		} catch (IOException e) {
-			e.printStackTrace(System.err);
-		}
+		writer.flush();
 	}
 
 	public long close() {
-		try {
-			flush();
-			channel.close();
-			stream.close();
-		} catch (IOException e) {
-			e.printStackTrace(System.err);
-		}
+		writer.close();
 
 		return this.collected;
 	}
@@ -159,11 +170,28 @@ public class FileCollector implements PatternsCollector {
 		return collectedLength;
 	}
 
-	@Override
-	public ArrayList<int[]> getResultList() {
+	/**
+	 * @return path of the file patterns are written to
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return collected patterns, empty in streaming mode
+	 */
+	public PackedPatterns getPatterns() {
 		return res;
 	}
 
+	/**
+	 * @return collected patterns, or an empty list in streaming mode
+	 */
+	@Override
+	public List<int[]> getResultList() {
+		return res.lines();
+	}
+
 	public int[] createTransactionLine(int support, int[] pattern) {
 		int[] table = new int[pattern.length + 2];
 		table[0] = support;
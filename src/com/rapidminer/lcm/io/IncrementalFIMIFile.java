@@ -0,0 +1,306 @@
+package com.rapidminer.lcm.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+
+/**
+ * Reads a FIMI file which only grows by appending transactions, without
+ * parsing again what was read by previous runs.
+ *
+ * Two files are kept next to the data file :
+ *
+ * - "data.plct", an appendable binary transactions file (see
+ * BinaryTransactionsFile) containing all transactions read so far, along
+ * with items' supports
+ *
+ * - "data.checkpoint", which gives the byte offset up to which the data file
+ * was read, the ID of the last transaction read, and a checksum of the bytes
+ * preceding this offset
+ *
+ * When the checkpoint is valid, only bytes following the offset are parsed,
+ * then appended to the cache file : its existing transactions are never
+ * written again. Transactions delivered by the previous run can be given to
+ * read(), so the cache isn't even read. An incomplete last line (one which is
+ * still being written) is left for the next run. If the data file shrank, or
+ * if the bytes before the offset changed, everything is read again.
+ */
+public final class IncrementalFIMIFile {
+
+	public static final String CACHE_SUFFIX = ".plct";
+	public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+	private static final int CHECKPOINT_MAGIC = 0x504C4343;
+
+	/**
+	 * how many bytes before the offset are checksummed
+	 */
+	private static final int CHECKSUM_LENGTH = 4096;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final File dataFile;
+	private final File cacheFile;
+	private final File checkpointFile;
+
+	private long offset = 0;
+	private long lastTransaction = -1;
+	private long appendedTransactions = 0;
+
+	public IncrementalFIMIFile(File dataFile) {
+		this.dataFile = dataFile;
+		this.cacheFile = new File(dataFile.getPath() + CACHE_SUFFIX);
+		this.checkpointFile = new File(dataFile.getPath() + CHECKPOINT_SUFFIX);
+	}
+
+	/**
+	 * @see #read(boolean, RMCompactTransactions)
+	 */
+	public RMCompactTransactions read(boolean rebuild) throws IOException {
+		return this.read(rebuild, null);
+	}
+
+	/**
+	 * Reads new transactions, updates the cache and the checkpoint.
+	 *
+	 * @param rebuild
+	 *            if true, the checkpoint is ignored and the whole file is
+	 *            parsed
+	 * @param previous
+	 *            transactions returned by the previous call for this file, or
+	 *            null : if they match the checkpoint, they're copied with new
+	 *            transactions instead of reading the cache - previous is not
+	 *            modified
+	 * @return all transactions of the data file
+	 */
+	public RMCompactTransactions read(boolean rebuild,
+			RMCompactTransactions previous) throws IOException {
+		RMCompactTransactions transactions = null;
+
+		if (!rebuild && this.loadCheckpoint()) {
+			if (previous != null
+					&& previous.getTransactionsCount() == this.lastTransaction + 1) {
+				transactions = previous;
+			} else {
+				try {
+					transactions = BinaryTransactionsFile.read(this.cacheFile);
+				} catch (IOException e) {
+					System.err.println("can't read cached transactions, "
+							+ this.dataFile + " will be read again");
+					e.printStackTrace();
+				}
+				if (transactions != null
+						&& transactions.getTransactionsCount() != this.lastTransaction + 1) {
+					transactions = null;
+				}
+			}
+		}
+
+		final boolean whole = (transactions == null);
+		RMCompactTransactions appended;
+		if (whole) {
+			appended = new RMCompactTransactions((int) Math.min(
+					this.dataFile.length() / 2 + 16, Integer.MAX_VALUE / 2));
+			this.offset = 0;
+			this.lastTransaction = -1;
+		} else {
+			appended = new RMCompactTransactions();
+		}
+
+		this.offset = this.parse(appended, this.offset);
+		this.appendedTransactions = appended.getTransactionsCount();
+		if (whole) {
+			transactions = appended;
+		} else if (this.appendedTransactions > 0) {
+			// previous transactions may have been delivered, so they're
+			// copied rather than modified
+			RMCompactTransactions all = new RMCompactTransactions(
+					transactions.getDataLength() + appended.getDataLength());
+			all.addAll(transactions);
+			all.addAll(appended);
+			transactions = all;
+		}
+		this.lastTransaction = transactions.getTransactionsCount() - 1;
+
+		if (whole || !this.cacheFile.exists()) {
+			this.writeCache(transactions);
+		} else if (this.appendedTransactions > 0) {
+			try {
+				BinaryTransactionsFile.append(this.cacheFile, appended);
+			} catch (IOException e) {
+				// for instance a cache written in the non-appendable layout
+				System.err.println("can't append to " + this.cacheFile
+						+ ", it will be written again");
+				e.printStackTrace();
+				this.writeCache(transactions);
+			}
+		}
+		// always written after the cache, so an interrupted run will only
+		// cause a full read
+		this.saveCheckpoint();
+
+		return transactions;
+	}
+
+	private void writeCache(RMCompactTransactions transactions)
+			throws IOException {
+		File tmp = new File(this.cacheFile.getPath() + ".tmp");
+		BinaryTransactionsFile.writeAppendable(transactions, tmp);
+		if (this.cacheFile.exists() && !this.cacheFile.delete()) {
+			throw new IOException("Can't replace " + this.cacheFile);
+		}
+		if (!tmp.renameTo(this.cacheFile)) {
+			throw new IOException("Can't rename " + tmp + " to "
+					+ this.cacheFile);
+		}
+	}
+
+	/**
+	 * @return byte offset in the data file up to which transactions were read
+	 */
+	public long getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * @return ID (0-based line number) of the last transaction read, or -1
+	 */
+	public long getLastTransaction() {
+		return this.lastTransaction;
+	}
+
+	/**
+	 * @return how many transactions were parsed by the last call to read()
+	 */
+	public long getAppendedTransactions() {
+		return this.appendedTransactions;
+	}
+
+	/**
+	 * Parses complete lines found after "from" in the data file
+	 *
+	 * @return offset following the last complete line
+	 */
+	private long parse(RMCompactTransactions transactions, long from)
+			throws IOException {
+		FileInputStream stream = new FileInputStream(this.dataFile);
+		try {
+			stream.getChannel().position(from);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int[] items = new int[64];
+			int length = 0;
+			int current = 0;
+			boolean inItem = false;
+
+			long consumed = from;
+			long position = from;
+			int read;
+			while ((read = stream.read(buffer)) > 0) {
+				for (int i = 0; i < read; i++) {
+					byte b = buffer[i];
+					if (b >= '0' && b <= '9') {
+						current = current * 10 + (b - '0');
+						inItem = true;
+					} else {
+						if (inItem) {
+							if (length == items.length) {
+								items = Arrays.copyOf(items,
+										length * 2);
+							}
+							items[length++] = current;
+							current = 0;
+							inItem = false;
+						}
+						if (b == '\n') {
+							transactions.add(items, 0, length);
+							length = 0;
+							consumed = position + i + 1;
+						}
+					}
+				}
+				position += read;
+			}
+
+			return consumed;
+		} finally {
+			stream.close();
+		}
+	}
+
+	private boolean loadCheckpoint() throws IOException {
+		if (!this.checkpointFile.exists() || !this.cacheFile.exists()) {
+			return false;
+		}
+
+		long savedOffset;
+		long savedLast;
+		long savedChecksum;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(this.checkpointFile)));
+		try {
+			if (in.readInt() != CHECKPOINT_MAGIC) {
+				return false;
+			}
+			savedOffset = in.readLong();
+			savedLast = in.readLong();
+			savedChecksum = in.readLong();
+		} catch (IOException e) {
+			System.err.println("invalid checkpoint " + this.checkpointFile);
+			e.printStackTrace();
+			return false;
+		} finally {
+			in.close();
+		}
+
+		if (savedOffset > this.dataFile.length()
+				|| this.checksum(savedOffset) != savedChecksum) {
+			return false;
+		}
+
+		this.offset = savedOffset;
+		this.lastTransaction = savedLast;
+		return true;
+	}
+
+	private void saveCheckpoint() throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(this.checkpointFile)));
+		try {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeLong(this.offset);
+			out.writeLong(this.lastTransaction);
+			out.writeLong(this.checksum(this.offset));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return CRC32 of the CHECKSUM_LENGTH bytes preceding "end" in the data
+	 *         file
+	 */
+	private long checksum(long end) throws IOException {
+		int length = (int) Math.min(end, CHECKSUM_LENGTH);
+		byte[] bytes = new byte[length];
+		RandomAccessFile file = new RandomAccessFile(this.dataFile, "r");
+		try {
+			file.seek(end - length);
+			file.readFully(bytes);
+		} finally {
+			file.close();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return crc.getValue();
+	}
+}
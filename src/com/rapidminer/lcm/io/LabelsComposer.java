@@ -0,0 +1,303 @@
+package com.rapidminer.lcm.io;
+
+import gnu.trove.map.hash.THashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.example.table.PolynominalMapping;
+import com.rapidminer.lcm.obj.IdentifyHashMapIOObject;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Translates items of mining results to their labels, as nominal attributes.
+ *
+ * Labels are stored in a dense array indexed by item identifiers. They're
+ * registered once in a single NominalMapping, shared by all item attributes,
+ * so translating a pattern only replaces each item by its label's index in
+ * that mapping : no String is created per cell. Items without a label are
+ * replaced by -1, which PatternsExampleTable shows as missing.
+ *
+ * Translation works on PackedPatterns' arrays, each thread handling a range
+ * of patterns.
+ */
+public final class LabelsComposer {
+
+	private final String[] labels;
+
+	/**
+	 * item identifier => index of its label in mapping, or -1
+	 */
+	private final int[] values;
+
+	private final NominalMapping mapping;
+
+	/**
+	 * @param labels
+	 *            item identifier => label, may contain nulls
+	 */
+	public LabelsComposer(String[] labels) {
+		this.labels = labels;
+		this.values = new int[labels.length];
+		this.mapping = new PolynominalMapping();
+
+		// duplicated labels share their index
+		TObjectIntHashMap<String> known = new TObjectIntHashMap<String>(
+				labels.length, 0.5f, -1);
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i] == null) {
+				this.values[i] = -1;
+			} else {
+				int value = known.get(labels[i]);
+				if (value < 0) {
+					value = this.mapping.mapString(labels[i]);
+					known.put(labels[i], value);
+				}
+				this.values[i] = value;
+			}
+		}
+	}
+
+	/**
+	 * @param map
+	 *            item identifier => label, identifiers should be small
+	 *            positive integers
+	 */
+	public static LabelsComposer fromMap(THashMap<Integer, String> map) {
+		int max = -1;
+		for (Integer key : map.keySet()) {
+			if (key > max) {
+				max = key;
+			}
+		}
+
+		String[] labels = new String[max + 1];
+		for (Entry<Integer, String> entry : map.entrySet()) {
+			if (entry.getKey() >= 0) {
+				labels[entry.getKey()] = entry.getValue();
+			}
+		}
+		return new LabelsComposer(labels);
+	}
+
+	public static LabelsComposer fromIdentifyMap(
+			IdentifyHashMapIOObject identifyMap) {
+		if (identifyMap.getLabels() != null) {
+			return new LabelsComposer(identifyMap.getLabels());
+		}
+		return fromMap(identifyMap.getHashmap());
+	}
+
+	/**
+	 * @return the label of this item, or null
+	 */
+	public String getLabel(int item) {
+		if (item >= 0 && item < this.labels.length) {
+			return this.labels[item];
+		}
+		return null;
+	}
+
+	public NominalMapping getMapping() {
+		return this.mapping;
+	}
+
+	/**
+	 * @return "Support" then "item 1" ... "item [maxLength]", nominal ones
+	 *         sharing this composer's mapping
+	 */
+	public List<Attribute> createAttributes(int maxLength) {
+		List<Attribute> attributes = new ArrayList<Attribute>(maxLength + 1);
+		attributes.add(AttributeFactory.createAttribute("Support",
+				Ontology.INTEGER));
+		for (int i = 1; i <= maxLength; i++) {
+			Attribute attribute = AttributeFactory.createAttribute("item " + i,
+					Ontology.NOMINAL);
+			attribute.setMapping(this.mapping);
+			attributes.add(attribute);
+		}
+		return attributes;
+	}
+
+	/**
+	 * @return patterns whose support is at least minSupport, with labels as
+	 *         nominal values
+	 */
+	public ExampleSet compose(PackedPatterns patterns, int minSupport,
+			int nbThreads) {
+		PackedPatterns translated = this.translate(patterns, minSupport,
+				nbThreads);
+		List<Attribute> attributes = this.createAttributes(PatternsExampleTable
+				.getMaxLength(translated));
+		return new PatternsExampleTable(translated, attributes)
+				.createExampleSet();
+	}
+
+	/**
+	 * Copies patterns whose support is at least minSupport, replacing items by
+	 * their label's index in getMapping() (or -1). Each thread counts then
+	 * copies a range of patterns, at its position in the result's arrays.
+	 */
+	public PackedPatterns translate(PackedPatterns patterns, int minSupport,
+			int nbThreads) {
+		final int size = patterns.size();
+		nbThreads = Math.max(1, Math.min(nbThreads, size));
+
+		TranslateThread[] threads = new TranslateThread[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			threads[i] = new TranslateThread(patterns, minSupport,
+					(int) ((long) size * i / nbThreads),
+					(int) ((long) size * (i + 1) / nbThreads));
+			threads[i].start();
+		}
+		join(threads);
+
+		// each range's position in the result
+		int kept = 0;
+		long items = 0;
+		for (TranslateThread t : threads) {
+			t.firstPattern = kept;
+			t.firstItem = (int) items;
+			kept += t.kept;
+			items += t.items;
+		}
+		if (items > Integer.MAX_VALUE - 8) {
+			throw new RuntimeException(
+					"Packed patterns can't contain more than 2^31 items");
+		}
+
+		int[] arena = new int[(int) items];
+		int[] offsets = new int[kept + 1];
+		int[] supports = new int[kept];
+		for (int i = 0; i < nbThreads; i++) {
+			threads[i] = new TranslateThread(threads[i], arena, offsets,
+					supports);
+			threads[i].start();
+		}
+		join(threads);
+		offsets[kept] = (int) items;
+
+		return PackedPatterns.wrap(arena, offsets, supports, kept);
+	}
+
+	private static void join(TranslateThread[] threads) {
+		for (TranslateThread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if (t.error != null) {
+				throw t.error;
+			}
+		}
+	}
+
+	/**
+	 * Works on patterns [from, to[ : counts kept patterns and items if no
+	 * output arrays are given, otherwise copies them
+	 */
+	private final class TranslateThread extends Thread {
+		private final PackedPatterns patterns;
+		private final int minSupport;
+		private final int from;
+		private final int to;
+
+		private final int[] arena;
+		private final int[] offsets;
+		private final int[] supports;
+
+		int kept = 0;
+		long items = 0;
+
+		int firstPattern;
+		int firstItem;
+
+		RuntimeException error = null;
+
+		TranslateThread(PackedPatterns patterns, int minSupport, int from,
+				int to) {
+			super("LabelsComposer" + from);
+			this.patterns = patterns;
+			this.minSupport = minSupport;
+			this.from = from;
+			this.to = to;
+			this.arena = null;
+			this.offsets = null;
+			this.supports = null;
+		}
+
+		/**
+		 * copying thread for the range counted by counter
+		 */
+		TranslateThread(TranslateThread counter, int[] arena, int[] offsets,
+				int[] supports) {
+			super("LabelsComposer" + counter.from);
+			this.patterns = counter.patterns;
+			this.minSupport = counter.minSupport;
+			this.from = counter.from;
+			this.to = counter.to;
+			this.firstPattern = counter.firstPattern;
+			this.firstItem = counter.firstItem;
+			this.arena = arena;
+			this.offsets = offsets;
+			this.supports = supports;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (this.arena == null) {
+					this.count();
+				} else {
+					this.copy();
+				}
+			} catch (RuntimeException e) {
+				this.error = e;
+			}
+		}
+
+		private void count() {
+			for (int i = this.from; i < this.to; i++) {
+				if (this.patterns.getSupport(i) >= this.minSupport) {
+					this.kept++;
+					this.items += this.patterns.getLength(i);
+				}
+			}
+		}
+
+		private void copy() {
+			final int[] source = this.patterns.getArena();
+			final int[] values = LabelsComposer.this.values;
+			int pattern = this.firstPattern;
+			int position = this.firstItem;
+
+			for (int i = this.from; i < this.to; i++) {
+				final int support = this.patterns.getSupport(i);
+				if (support >= this.minSupport) {
+					this.supports[pattern] = support;
+					this.offsets[pattern] = position;
+					pattern++;
+
+					final int end = this.patterns.getOffset(i + 1);
+					for (int j = this.patterns.getOffset(i); j < end; j++) {
+						final int item = source[j];
+						if (item >= 0 && item < values.length) {
+							this.arena[position++] = values[item];
+						} else {
+							this.arena[position++] = -1;
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -21,20 +21,42 @@
 package com.rapidminer.lcm.io;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.lcm.PLCM.PLCMThread;
+import com.rapidminer.lcm.util.PackedPatterns;
 
 /**
  * A thread safe PatternsCollector that will write to multiple files, one per
  * mining thread.
+ * 
+ * In streaming mode nothing is kept in memory, so memory usage does not depend
+ * on the patterns count : files can be read back through getPatternFiles().
+ * Otherwise each FileCollector keeps its own copy of its thread's patterns,
+ * which are concatenated by getResultList().
+ *
+ * Patterns collected by other threads (the initial closure, or the writer
+ * thread of an AsyncCollector) go to an additional, synchronized file, named
+ * after maxId and only created if needed.
  */
 public class MultiThreadedFileCollector implements PatternsCollector {
 
 	private final FileCollector[] collectors;
 
+	private final String prefix;
+	private final boolean streaming;
+	private final int bufferCapacity;
+	private final boolean asyncFlush;
+
+	/**
+	 * for threads which aren't PLCMThreads, guarded by sharedLock
+	 */
+	private FileCollector shared = null;
+	private final Object sharedLock = new Object();
+
 	//private SupportPatternObject spobj;
 	//private ArrayList<SupportPatternObject> res = new ArrayList<SupportPatternObject>();
-	private int [] table;
-	private ArrayList<int []> res = new ArrayList<int []>();
+	private PackedPatterns res = null;
 	
 	/**
 	 * @param prefix
@@ -46,9 +68,45 @@ public class MultiThreadedFileCollector implements PatternsCollector {
 	 */
 	public MultiThreadedFileCollector(final String prefix, final int maxId)
 			throws IOException {
+		this(prefix, maxId, false);
+	}
+
+	/**
+	 * @param prefix
+	 *            filename prefix for pattern files, each thread will append
+	 *            [ThreadID].dat
+	 * @param maxId
+	 *            higer bound on thread's getId()
+	 * @param streaming
+	 *            if true, patterns are not kept in memory
+	 * @throws IOException
+	 */
+	public MultiThreadedFileCollector(final String prefix, final int maxId,
+			final boolean streaming) throws IOException {
+		this(prefix, maxId, streaming, FileCollector.BUFFER_CAPACITY, true);
+	}
+
+	/**
+	 * @param bufferCapacity
+	 *            size of each of the two output buffers of each thread, in
+	 *            bytes
+	 * @param asyncFlush
+	 *            if true, each file gets a flusher thread so mining threads
+	 *            don't wait for disk writes
+	 * @see #MultiThreadedFileCollector(String, int, boolean)
+	 */
+	public MultiThreadedFileCollector(final String prefix, final int maxId,
+			final boolean streaming, final int bufferCapacity,
+			final boolean asyncFlush) throws IOException {
+		this.prefix = prefix;
+		this.streaming = streaming;
+		this.bufferCapacity = bufferCapacity;
+		this.asyncFlush = asyncFlush;
+
 		this.collectors = new FileCollector[maxId];
 		for (int i = 0; i < maxId; i++) {
-			this.collectors[i] = new FileCollector(prefix + i + ".dat");
+			this.collectors[i] = new FileCollector(prefix + i + ".dat",
+					!streaming, bufferCapacity, asyncFlush);
 		}
 	}
 
@@ -58,18 +116,51 @@ public class MultiThreadedFileCollector implements PatternsCollector {
 //		spobj = new SupportPatternObject(support, Arrays.toString(pattern));
 //		res.add(spobj);
 		
-		table = this.createTransactionLine(support, pattern);
-		res.add(table);
-		
-		this.collectors[(int) Thread.currentThread().getId()].collect(support,
-				pattern);
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.collectors.length) {
+				this.collectors[id].collect(support, pattern);
+				return;
+			}
+		}
+
+		synchronized (this.sharedLock) {
+			if (this.shared == null) {
+				try {
+					this.shared = new FileCollector(this.prefix
+							+ this.collectors.length + ".dat", !this.streaming,
+							this.bufferCapacity, this.asyncFlush);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			this.shared.collect(support, pattern);
+		}
+	}
+
+	/**
+	 * @return per-thread collectors, followed by the shared one if it was
+	 *         created
+	 */
+	private FileCollector[] all() {
+		synchronized (this.sharedLock) {
+			if (this.shared == null) {
+				return this.collectors;
+			}
+			FileCollector[] all = new FileCollector[this.collectors.length + 1];
+			System.arraycopy(this.collectors, 0, all, 0,
+					this.collectors.length);
+			all[this.collectors.length] = this.shared;
+			return all;
+		}
 	}
 
 	@Override
 	public long close() {
 		long total = 0;
 
-		for (FileCollector collector : this.collectors) {
+		for (FileCollector collector : this.all()) {
 			total += collector.close();
 		}
 
@@ -81,7 +172,7 @@ public class MultiThreadedFileCollector implements PatternsCollector {
 		long totalLen = 0;
 		long nbPatterns = 0;
 
-		for (FileCollector collector : this.collectors) {
+		for (FileCollector collector : this.all()) {
 			totalLen += collector.getCollectedLength();
 			nbPatterns += collector.getCollected();
 		}
@@ -89,9 +180,52 @@ public class MultiThreadedFileCollector implements PatternsCollector {
 		return (int) (totalLen / nbPatterns);
 	}
 
+	/**
+	 * @return how many patterns have been written so far
+	 */
+	public long getCollected() {
+		long total = 0;
+		for (FileCollector collector : this.all()) {
+			total += collector.getCollected();
+		}
+		return total;
+	}
+
+	/**
+	 * @return paths of the files patterns are written to
+	 */
+	public String[] getPatternFiles() {
+		FileCollector[] all = this.all();
+		String[] paths = new String[all.length];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = all[i].getPath();
+		}
+		return paths;
+	}
+
+	/**
+	 * Should only be called once mining has terminated.
+	 * 
+	 * @return collected patterns, empty in streaming mode
+	 */
+	public synchronized PackedPatterns getPatterns() {
+		if (this.res == null) {
+			this.res = new PackedPatterns();
+			for (FileCollector collector : this.all()) {
+				this.res.addAll(collector.getPatterns());
+			}
+		}
+		return this.res;
+	}
+
+	/**
+	 * Should only be called once mining has terminated.
+	 * 
+	 * @return collected patterns, or an empty list in streaming mode
+	 */
 	@Override
-	public ArrayList<int[]> getResultList() {
-		return res;
+	public List<int[]> getResultList() {
+		return this.getPatterns().lines();
 	}
 	
 	public int[] createTransactionLine(int support, int[] pattern) {
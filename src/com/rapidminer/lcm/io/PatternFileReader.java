@@ -0,0 +1,130 @@
+package com.rapidminer.lcm.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads back patterns written by FileCollector ("support\titem item item"
+ * lines), one at a time. Each pattern is returned as [support, items..., 0],
+ * as in RMCollector's result list.
+ */
+public class PatternFileReader implements Iterator<int[]> {
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private final String[] paths;
+	private int nextPath = 0;
+	private InputStream stream = null;
+
+	private int[] buffer = new int[64];
+	private int[] nextLine = null;
+
+	/**
+	 * @param paths
+	 *            files are read one after the other
+	 */
+	public PatternFileReader(String... paths) {
+		this.paths = paths;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.nextLine == null) {
+			try {
+				this.nextLine = this.readLine();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return this.nextLine != null;
+	}
+
+	@Override
+	public int[] next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int[] line = this.nextLine;
+		this.nextLine = null;
+		return line;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	public void close() {
+		if (this.stream != null) {
+			try {
+				this.stream.close();
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+			}
+			this.stream = null;
+		}
+		this.nextPath = this.paths.length;
+	}
+
+	/**
+	 * @return next pattern, or null when all files have been read
+	 */
+	private int[] readLine() throws IOException {
+		while (true) {
+			if (this.stream == null) {
+				if (this.nextPath >= this.paths.length) {
+					return null;
+				}
+				this.stream = new BufferedInputStream(new FileInputStream(
+						this.paths[this.nextPath++]), BUFFER_SIZE);
+			}
+
+			// first value is the support, it goes to buffer[0]
+			int length = 0;
+			int current = 0;
+			boolean inNumber = false;
+			int b;
+			while ((b = this.stream.read()) != -1) {
+				if (b >= '0' && b <= '9') {
+					current = current * 10 + (b - '0');
+					inNumber = true;
+				} else {
+					if (inNumber) {
+						if (length == this.buffer.length) {
+							this.buffer = Arrays.copyOf(this.buffer, length * 2);
+						}
+						this.buffer[length++] = current;
+						current = 0;
+						inNumber = false;
+					}
+					if (b == '\n' && length > 0) {
+						break;
+					}
+				}
+			}
+
+			if (inNumber) {
+				if (length == this.buffer.length) {
+					this.buffer = Arrays.copyOf(this.buffer, length * 2);
+				}
+				this.buffer[length++] = current;
+			}
+
+			if (length > 0) {
+				// trailing 0, as in RMCollector's lines
+				int[] line = Arrays.copyOf(this.buffer, length + 1);
+				line[length] = 0;
+				return line;
+			}
+
+			// end of this file
+			this.stream.close();
+			this.stream = null;
+		}
+	}
+}
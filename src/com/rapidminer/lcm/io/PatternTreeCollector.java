@@ -0,0 +1,54 @@
+package com.rapidminer.lcm.io;
+
+import java.util.List;
+
+import com.rapidminer.lcm.util.PatternTree;
+
+/**
+ * Collects patterns in memory as a PatternTree : a pattern shares its
+ * parent's nodes, so each pattern only costs a node per item added by its
+ * closure. Patterns are materialized when the result list is read.
+ */
+public class PatternTreeCollector implements PatternsCollector {
+
+	private final PatternTree tree = new PatternTree();
+
+	private long collected = -1;
+	private long collectedLength = 0;
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		this.tree.insert(support, pattern);
+	}
+
+	@Override
+	public synchronized long close() {
+		if (this.collected < 0) {
+			this.collected = this.tree.size();
+			this.collectedLength = this.tree.getCollectedLength();
+		}
+		return this.collected;
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		long count = this.close();
+		if (count == 0) {
+			return 0;
+		} else {
+			return (int) (this.collectedLength / count);
+		}
+	}
+
+	/**
+	 * @return a view creating each pattern when it's read
+	 */
+	@Override
+	public List<int[]> getResultList() {
+		return this.tree.lines();
+	}
+
+	public PatternTree getTree() {
+		return this.tree;
+	}
+}
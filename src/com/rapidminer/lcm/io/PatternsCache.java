@@ -0,0 +1,300 @@
+package com.rapidminer.lcm.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.rapidminer.lcm.internals.TransactionReader;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Mining results kept on local disk, keyed by the fingerprint of the mined
+ * dataset (see fingerprint()) and the minimum support.
+ *
+ * Closed patterns at a support are those at a lower support having at least
+ * this support : a run can be answered by filtering the results of a run at a
+ * lower support, the closest one being preferred. Each entry is a binary
+ * patterns file (see BinaryPatternsFile) named
+ * [fingerprint]-s[support]-n[transactions count].plcp, so its blocks can be
+ * skipped by support when reading.
+ *
+ * Files' modification dates give the LRU order : they're updated when an
+ * entry is read, and least recently used entries are deleted once files
+ * exceed the cache size. Adding an entry also deletes entries of the same
+ * dataset at higher supports, which it can answer.
+ */
+public final class PatternsCache {
+
+	private static final String EXTENSION = ".plcp";
+
+	private static final Pattern ENTRY_NAME = Pattern
+			.compile("([0-9a-f]+)-s([0-9]+)-n([0-9]+)\\.plcp");
+
+	private final File directory;
+	private final long maxSize;
+
+	/**
+	 * @param maxSize
+	 *            in bytes, the cache's size on disk
+	 */
+	public PatternsCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return a SHA-256 digest of transactions' items and supports, in
+	 *         hexadecimal
+	 */
+	public static String fingerprint(RMTransactions dataSet) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+
+		Iterator<TransactionReader> transactions;
+		if (dataSet instanceof RMCompactTransactions) {
+			transactions = ((RMCompactTransactions) dataSet).iterator();
+		} else {
+			transactions = new RMAdapter(dataSet);
+		}
+
+		final byte[] buffer = new byte[64 * 1024];
+		int position = 0;
+		while (transactions.hasNext()) {
+			TransactionReader transaction = transactions.next();
+			if (position > buffer.length - 8) {
+				digest.update(buffer, 0, position);
+				position = 0;
+			}
+			position = putInt(buffer, position,
+					transaction.getTransactionSupport());
+			while (transaction.hasNext()) {
+				if (position > buffer.length - 8) {
+					digest.update(buffer, 0, position);
+					position = 0;
+				}
+				position = putInt(buffer, position, transaction.next());
+			}
+			// items are positive : this ends the transaction
+			position = putInt(buffer, position, -1);
+		}
+		digest.update(buffer, 0, position);
+
+		StringBuilder builder = new StringBuilder(64);
+		for (byte b : digest.digest()) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static int putInt(byte[] buffer, int position, int value) {
+		buffer[position++] = (byte) (value >>> 24);
+		buffer[position++] = (byte) (value >>> 16);
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) value;
+		return position;
+	}
+
+	/**
+	 * @return closed patterns of this dataset at this minimum support, or null
+	 *         if there's no entry for this dataset at this support or a lower
+	 *         one
+	 */
+	public synchronized Entry get(String fingerprint, int minSupport) {
+		File best = null;
+		int bestSupport = 0;
+		int transactionsCount = 0;
+
+		for (File file : this.listEntries()) {
+			Matcher matcher = ENTRY_NAME.matcher(file.getName());
+			if (matcher.matches() && matcher.group(1).equals(fingerprint)) {
+				int support = Integer.parseInt(matcher.group(2));
+				if (support <= minSupport && support > bestSupport) {
+					best = file;
+					bestSupport = support;
+					transactionsCount = Integer.parseInt(matcher.group(3));
+				}
+			}
+		}
+
+		if (best == null) {
+			return null;
+		}
+
+		try {
+			BinaryPatternsFile file = new BinaryPatternsFile(best);
+			PackedPatterns patterns;
+			try {
+				patterns = file.readAll(minSupport, null);
+			} finally {
+				file.close();
+			}
+			best.setLastModified(System.currentTimeMillis());
+			return new Entry(patterns, bestSupport, transactionsCount);
+		} catch (IOException e) {
+			// a broken entry is dropped, patterns will be mined again
+			e.printStackTrace(System.err);
+			best.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores results, mined at their support, then deletes least recently
+	 * used entries if the cache is too big. Errors are printed, the cache
+	 * being left as it was.
+	 *
+	 * Results which are not complete (truncated, or top-N) are refused : other
+	 * runs would take them for all closed patterns.
+	 */
+	public synchronized void put(String fingerprint, ResultListIOObject results) {
+		if (!results.isComplete()) {
+			System.err.println("Results cache: incomplete results are not stored"
+					+ (results.isTruncated() ? " (" + results.getTruncation()
+							+ ")" : ""));
+			return;
+		}
+		int minSupport = results.getSupport();
+		int transactionsCount = results.getTransactionsCount();
+		PackedPatterns patterns = results.getPatterns();
+
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			System.err.println("Can't create the results cache directory "
+					+ this.directory);
+			return;
+		}
+
+		String name = fingerprint + "-s" + minSupport + "-n"
+				+ transactionsCount + EXTENSION;
+		File entry = new File(this.directory, name);
+		File temporary = new File(this.directory, name + "."
+				+ System.nanoTime() + ".tmp");
+
+		try {
+			BinaryPatternsCollector writer = new BinaryPatternsCollector(
+					temporary.getPath(), 0, minSupport);
+			for (int i = 0; i < patterns.size(); i++) {
+				writer.collect(patterns.getSupport(i), patterns.getPattern(i));
+			}
+			writer.close();
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			temporary.delete();
+			return;
+		}
+
+		entry.delete();
+		if (!temporary.renameTo(entry)) {
+			System.err.println("Can't write the results cache entry " + entry);
+			temporary.delete();
+			return;
+		}
+
+		for (File file : this.listEntries()) {
+			Matcher matcher = ENTRY_NAME.matcher(file.getName());
+			if (matcher.matches() && matcher.group(1).equals(fingerprint)
+					&& Integer.parseInt(matcher.group(2)) > minSupport) {
+				file.delete();
+			}
+		}
+
+		this.evict();
+	}
+
+	/**
+	 * Deletes least recently used entries until the cache fits in maxSize
+	 */
+	private void evict() {
+		File[] entries = this.listEntries();
+		long size = 0;
+		for (File file : entries) {
+			size += file.length();
+		}
+		if (size <= this.maxSize) {
+			return;
+		}
+
+		final long[] lastUses = new long[entries.length];
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			lastUses[i] = entries[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return lastUses[a] < lastUses[b] ? -1
+						: (lastUses[a] == lastUses[b] ? 0 : 1);
+			}
+		});
+
+		for (int i = 0; i < order.length && size > this.maxSize; i++) {
+			File file = entries[order[i]];
+			long length = file.length();
+			if (file.delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	/**
+	 * @return files named as entries, other files are never deleted
+	 */
+	private File[] listEntries() {
+		File[] entries = this.directory.listFiles();
+		if (entries == null) {
+			return new File[0];
+		}
+		int kept = 0;
+		for (File file : entries) {
+			if (file.isFile() && ENTRY_NAME.matcher(file.getName()).matches()) {
+				entries[kept++] = file;
+			}
+		}
+		return Arrays.copyOf(entries, kept);
+	}
+
+	/**
+	 * Patterns read from the cache
+	 */
+	public static final class Entry {
+		private final PackedPatterns patterns;
+		private final int minedSupport;
+		private final int transactionsCount;
+
+		Entry(PackedPatterns patterns, int minedSupport, int transactionsCount) {
+			this.patterns = patterns;
+			this.minedSupport = minedSupport;
+			this.transactionsCount = transactionsCount;
+		}
+
+		public PackedPatterns getPatterns() {
+			return this.patterns;
+		}
+
+		/**
+		 * @return support of the run whose results were filtered, lower or
+		 *         equal to the requested one
+		 */
+		public int getMinedSupport() {
+			return this.minedSupport;
+		}
+
+		public int getTransactionsCount() {
+			return this.transactionsCount;
+		}
+	}
+}
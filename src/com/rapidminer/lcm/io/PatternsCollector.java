@@ -21,7 +21,7 @@
 
 package com.rapidminer.lcm.io;
 
-import java.util.ArrayList;
+import java.util.List;
 
 
 public interface PatternsCollector {
@@ -41,6 +41,10 @@ public interface PatternsCollector {
 	 */
 	public int getAveragePatternLength();
 	
-	public ArrayList<int[]> getResultList();
+	/**
+	 * @return collected patterns as [support, items..., 0] arrays - collectors
+	 *         keeping results in memory return a PackedPatterns.lines() view
+	 */
+	public List<int[]> getResultList();
 	//public ArrayList<SupportPatternObject> getRes();
 }
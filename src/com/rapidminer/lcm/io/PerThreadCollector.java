@@ -0,0 +1,138 @@
+package com.rapidminer.lcm.io;
+
+import java.util.List;
+
+import com.rapidminer.lcm.PLCM.PLCMThread;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Collects patterns in memory, as RMCollector, but without any lock : each
+ * mining thread appends to its own PackedPatterns, found through its
+ * PLCMThread ID. Patterns collected by other threads (the initial closure is
+ * collected by the thread calling PLCM.lcm) go to a shared, synchronized
+ * buffer.
+ *
+ * Buffers are concatenated when getPatterns() or getResultList() is called,
+ * which should happen once mining has terminated. They're then replaced by
+ * empty ones : patterns collected afterwards are appended to the previous
+ * result by the next call.
+ *
+ * Because work stealing makes patterns' order vary from one run to another,
+ * the collector can sort them at concatenation : items of each pattern are
+ * sorted, then patterns are ordered by decreasing support and
+ * lexicographically.
+ */
+public class PerThreadCollector implements PatternsCollector {
+
+	private final PackedPatterns[] buffers;
+
+	private final PackedPatterns sharedBuffer = new PackedPatterns(16, 64);
+
+	private final boolean ordered;
+
+	private PackedPatterns res = null;
+
+	/**
+	 * @param nbThreads
+	 *            higher bound on PLCMThreads' getId()
+	 * @param ordered
+	 *            if true, results will be sorted in a deterministic order
+	 */
+	public PerThreadCollector(int nbThreads, boolean ordered) {
+		this.buffers = new PackedPatterns[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			this.buffers[i] = new PackedPatterns();
+		}
+		this.ordered = ordered;
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.buffers.length) {
+				this.buffers[id].add(support, pattern);
+				return;
+			}
+		}
+
+		synchronized (this.sharedBuffer) {
+			this.sharedBuffer.add(support, pattern);
+		}
+	}
+
+	@Override
+	public synchronized long close() {
+		long total = this.sharedBuffer.size();
+		for (PackedPatterns buffer : this.buffers) {
+			total += buffer.size();
+		}
+		if (this.res != null) {
+			total += this.res.size();
+		}
+		return total;
+	}
+
+	@Override
+	public synchronized int getAveragePatternLength() {
+		long collected = this.close();
+		if (collected == 0) {
+			return 0;
+		}
+
+		long collectedLength = this.sharedBuffer.getCollectedLength();
+		for (PackedPatterns buffer : this.buffers) {
+			collectedLength += buffer.getCollectedLength();
+		}
+		if (this.res != null) {
+			collectedLength += this.res.getCollectedLength();
+		}
+		return (int) (collectedLength / collected);
+	}
+
+	/**
+	 * @return all collected patterns
+	 */
+	public synchronized PackedPatterns getPatterns() {
+		long pending = this.sharedBuffer.size();
+		long items = this.sharedBuffer.getOffset(this.sharedBuffer.size());
+		for (PackedPatterns buffer : this.buffers) {
+			pending += buffer.size();
+			items += buffer.getOffset(buffer.size());
+		}
+
+		if (this.res == null || pending > 0) {
+			// a previous result may be held by the caller : it's copied
+			if (this.res != null) {
+				pending += this.res.size();
+				items += this.res.getOffset(this.res.size());
+			}
+			PackedPatterns all = new PackedPatterns((int) pending,
+					(int) Math.min(items, Integer.MAX_VALUE - 8));
+			if (this.res != null) {
+				all.addAll(this.res);
+			}
+
+			synchronized (this.sharedBuffer) {
+				all.addAll(this.sharedBuffer);
+				this.sharedBuffer.clear();
+			}
+			for (int i = 0; i < this.buffers.length; i++) {
+				all.addAll(this.buffers[i]);
+				this.buffers[i] = new PackedPatterns();
+			}
+
+			if (this.ordered) {
+				all = all.sorted();
+			}
+			this.res = all;
+		}
+		return this.res;
+	}
+
+	@Override
+	public List<int[]> getResultList() {
+		return this.getPatterns().lines();
+	}
+}
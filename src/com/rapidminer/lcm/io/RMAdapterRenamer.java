@@ -33,9 +33,10 @@ public class RMAdapterRenamer  implements Iterator<TransactionReader> {
 			filteredTransaction = new ArrayList<Integer>();
 			TIntIterator items = transactions.next().iterator();
 			while (items.hasNext()) {
-				int item = renaming[items.next()];
-				if (item >= 0) {
-					filteredTransaction.add(item);
+				int item = items.next();
+				// items above the renaming's range have no support
+				if (item < renaming.length && renaming[item] >= 0) {
+					filteredTransaction.add(renaming[item]);
 				}
 			}
 			Collections.sort(filteredTransaction);
@@ -0,0 +1,105 @@
+package com.rapidminer.lcm.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.rapidminer.lcm.obj.BinaryPatternsIOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeFile;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.ParameterTypeString;
+
+/**
+ * Reads patterns written by BinaryPatternsCollector. Its output is lazy :
+ * patterns are only decoded when an operator asks for them, and blocks which
+ * can't match the support or items filters are not even read.
+ */
+public class RMBinaryPatternsReader extends Operator {
+
+	private static final String FILE_LOCATION = "file";
+	private static final String minimumSupport = "Minimum support";
+	private static final String containedItems = "Contained items";
+
+	private OutputPort output = this.getOutputPorts().createPort("trs");
+
+	public RMBinaryPatternsReader(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		File file = this.getParameterAsFile(FILE_LOCATION);
+		int minSupport = this.getParameterAsInt(minimumSupport);
+		int[] items = parseItems(this.getParameterAsString(containedItems));
+
+		// validates the file and gets the support used for mining
+		int miningSupport;
+		long patternsCount;
+		try {
+			BinaryPatternsFile patterns = new BinaryPatternsFile(file);
+			miningSupport = patterns.getMinimumSupport();
+			patternsCount = patterns.getPatternsCount();
+			patterns.close();
+		} catch (IOException e) {
+			throw new OperatorException("Can't read binary patterns from "
+					+ file + ": " + e.getMessage(), e);
+		}
+
+		System.out.println(patternsCount + " patterns in " + file);
+
+		output.deliver(new BinaryPatternsIOObject(file, minSupport, items,
+				Math.max(minSupport, miningSupport)));
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println("open binary patterns in milliseconds: "
+				+ difference);
+	}
+
+	/**
+	 * @return items found in a space-separated list, or null if there's none
+	 */
+	private static int[] parseItems(String list) throws OperatorException {
+		if (list == null || list.trim().isEmpty()) {
+			return null;
+		}
+		String[] values = list.trim().split("\\s+");
+		int[] items = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			try {
+				items[i] = Integer.parseInt(values[i]);
+			} catch (NumberFormatException e) {
+				throw new OperatorException("Contained items should be item IDs, found "
+						+ values[i], e);
+			}
+		}
+		return items;
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeFile(FILE_LOCATION,
+				"Location of the binary patterns file to read", "plcp", false));
+
+		types.add(new ParameterTypeInt(minimumSupport,
+				"Only patterns having at least this support are read", 0,
+				Integer.MAX_VALUE, 0, false));
+
+		types.add(new ParameterTypeString(containedItems,
+				"Only patterns containing all these (space-separated) items are read",
+				true));
+
+		return types;
+	}
+}
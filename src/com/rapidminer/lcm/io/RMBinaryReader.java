@@ -0,0 +1,126 @@
+package com.rapidminer.lcm.io;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.internals.transactions.RMTransactions;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeFile;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Reads a binary transactions file written by RMBinaryWriter. Its output
+ * already contains items' supports, so PLCM skips its counting pass.
+ */
+public class RMBinaryReader extends Operator implements FIMIReader {
+
+	private static final String FILE_LOCATION = "file";
+
+	private OutputPort proutput = this.getOutputPorts().createPort("out");
+	private OutputPort stdoutput = this.getOutputPorts().createPort("data");
+
+	private RMCompactTransactions transactions;
+
+	public RMBinaryReader(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		File file = this.getParameterAsFile(FILE_LOCATION);
+		try {
+			transactions = BinaryTransactionsFile.read(file);
+		} catch (IOException e) {
+			throw new OperatorException("Can't read binary transactions from "
+					+ file + ": " + e.getMessage(), e);
+		}
+
+		if (stdoutput.isConnected()) {
+			stdoutput.deliver(this.showOriginalData(this.transactions));
+		}
+
+		proutput.deliver(this.transactions);
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println("read binary file in milliseconds: " + difference);
+	}
+
+	@Override
+	public void readFile() {
+		try {
+			transactions = BinaryTransactionsFile.read(this
+					.getParameterAsFile(FILE_LOCATION));
+		} catch (IOException e) {
+			System.err.println("can't read this file!");
+			e.printStackTrace();
+		} catch (UserError e) {
+			System.err.println("please check your file type!");
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public int getLengthOfLongestTransaction() {
+		if (transactions == null) {
+			return 0;
+		}
+		return transactions.getLongestTransaction();
+	}
+
+	@Override
+	public ExampleSet showOriginalData(RMTransactions transactions) {
+		Attribute[] attributes = new Attribute[this
+				.getLengthOfLongestTransaction()];
+
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = AttributeFactory.createAttribute("att" + i,
+					Ontology.INTEGER);
+		}
+
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+
+		DataRowFactory ROW_FACTORY = new DataRowFactory(0, '.');
+		Integer[] data = new Integer[attributes.length];
+		for (TIntArrayList transaction : transactions.getTransactions()) {
+			Arrays.fill(data, null);
+			for (int j = 0; j < transaction.size(); j++) {
+				data[j] = transaction.get(j);
+			}
+			DataRow dataRow = ROW_FACTORY.create(data, attributes);
+			table.addDataRow(dataRow);
+		}
+		return table.createExampleSet();
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeFile(FILE_LOCATION,
+				"Location of the binary transactions file to read", "plct",
+				false));
+
+		return types;
+	}
+}
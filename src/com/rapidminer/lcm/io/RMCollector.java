@@ -2,6 +2,9 @@ package com.rapidminer.lcm.io;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.lcm.util.PackedPatterns;
 
 /**
  * This class is offered for collecting result of PLCM calculate.
@@ -13,13 +16,12 @@ public class RMCollector implements PatternsCollector {
 
 	protected long collected = 0;
 	protected long collectedLength = 0;
-	private int[] table;
 
 	// private SupportPatternObject spobj;
 	// private SupportPatternObject spRMobj = new SupportPatternObject(null, new
 	// int [0]);
 
-	private ArrayList<int[]> res = new ArrayList<int[]>();
+	private PackedPatterns res = new PackedPatterns();
 
 	@Override
 	synchronized public void collect(final int support, final int[] pattern) {
@@ -30,8 +32,7 @@ public class RMCollector implements PatternsCollector {
 		if(support == 0){
 			System.out.println("error  ... ...");
 		}
-		table = this.createTransactionLine(support, pattern);
-		res.add(table);
+		res.add(support, pattern);
 		this.collected++;
 		this.collectedLength += pattern.length;
 	}
@@ -51,7 +52,11 @@ public class RMCollector implements PatternsCollector {
 	}
 
 	@Override
-	public ArrayList<int[]> getResultList() {
+	public List<int[]> getResultList() {
+		return this.res.lines();
+	}
+
+	public PackedPatterns getPatterns() {
 		return this.res;
 	}
 
@@ -73,6 +78,6 @@ public class RMCollector implements PatternsCollector {
 	}
 
 	public void setRes(ArrayList<int[]> res) {
-		this.res = res;
+		this.res = PackedPatterns.pack(res);
 	}
 }
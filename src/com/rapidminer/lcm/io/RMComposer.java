@@ -1,29 +1,24 @@
 package com.rapidminer.lcm.io;
 
-import gnu.trove.map.hash.THashMap;
+import java.util.List;
 
-import java.util.Arrays;
-import java.util.Map.Entry;
-
-import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.AttributeFactory;
-import com.rapidminer.example.table.DataRow;
-import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.lcm.obj.IdentifyHashMapIOObject;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
 import com.rapidminer.lcm.obj.ResultListIOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
-import com.rapidminer.operator.ports.metadata.MetaData;
-import com.rapidminer.operator.ports.metadata.SimplePrecondition;
-import com.rapidminer.tools.Ontology;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
 
 public class RMComposer extends Operator {
 
+	private static final String threads = "Number of threads";
+
 	private InputPort map = this.getInputPorts().createPort(
 			"map input");
 	// The input can be RMTransactions or ResultListIOObject(output of PLCM)
@@ -60,69 +55,36 @@ public class RMComposer extends Operator {
 		System.out.println("Composer in milliseconds: " + difference);
 	}
 
+	/**
+	 * @return patterns as a table of support and item labels, translated by
+	 *         a LabelsComposer
+	 */
 	public ExampleSet transformResultTransactionsAsString(
 			ResultListIOObject resultList, IdentifyHashMapIOObject identifyMap) {
-
-		Attribute[] attributes = new Attribute[this
-				.getLengthOfLongestPattern(resultList)];
-
-		attributes[0] = AttributeFactory.createAttribute("Support",
-				Ontology.INTEGER);
-		for (int i = 1; i < attributes.length; i++) {
-			attributes[i] = AttributeFactory.createAttribute("item " + i,
-					Ontology.STRING);
+		int nbThreads = 1;
+		try {
+			nbThreads = this.getParameterAsInt(threads);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
 		}
 
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
-		DataRowFactory ROW_FACTORY = new DataRowFactory(0, ',');
-		String data[] = new String[attributes.length];
-		Arrays.fill(data, null);
-
-		boolean isSupport;
-
-		for (int[] pattern : resultList.getResultlist()) {
-			isSupport = true;
-			if (pattern[0] >= resultList.getSupport()) {
-				for (int i = 0; i < pattern.length - 1; i++) {
-					if (isSupport) {
-						data[i] = String.valueOf(pattern[i]);
-						// System.out.print("Support: " + data[i]);
-					} else {
-						data[i] = identifyMap.getHashmap().get(pattern[i]);
-						// data[i] =
-						// this.getKeyByValue(identifyMap.getHashmap(),
-						// pattern[i]);
-						// System.out.print(" item: " + data[i]);
-					}
-					isSupport = false;
-				}
-				DataRow dataRow = ROW_FACTORY.create(data, attributes);
-				table.addDataRow(dataRow);
-			}
-			Arrays.fill(data, null);
-		}
-		ExampleSet newExampleSet = table.createExampleSet();
-		return newExampleSet;
+		LabelsComposer composer = LabelsComposer.fromIdentifyMap(identifyMap);
+		return composer.compose(resultList.getPatterns(),
+				resultList.getSupport(), nbThreads);
 	}
 
 	public int getLengthOfLongestPattern(ResultListIOObject data) {
-		int length = 0;
-		for (int[] item : data.getResultlist()) {
-			if (item.length > length) {
-				length = item.length;
-			}
-		}
-		return length;
+		return PatternsExampleTable.getMaxLength(data.getPatterns()) + 2;
 	}
 
-	@SuppressWarnings("hiding")
-	public <String, Integer> String getKeyByValue(
-			THashMap<String, Integer> map, Integer value) {
-		for (Entry<String, Integer> entry : map.entrySet()) {
-			if (value.equals(entry.getValue())) {
-				return entry.getKey();
-			}
-		}
-		return null;
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeInt(threads,
+				"How many threads will translate patterns", 1, Runtime
+						.getRuntime().availableProcessors() * 4, Runtime
+						.getRuntime().availableProcessors(), true));
+		return types;
 	}
 }
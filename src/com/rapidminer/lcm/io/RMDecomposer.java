@@ -1,11 +1,9 @@
 package com.rapidminer.lcm.io;
 
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.hash.THashMap;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map.Entry;
+import java.util.List;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
@@ -17,11 +15,15 @@ import com.rapidminer.lcm.internals.transactions.RMStringTransactions;
 import com.rapidminer.lcm.internals.transactions.RMTransaction;
 import com.rapidminer.lcm.internals.transactions.RMTransactions;
 import com.rapidminer.lcm.obj.IdentifyHashMapIOObject;
+import com.rapidminer.lcm.util.SupportOrderedDictionary;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ports.InputPort;
 import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.Ontology;
 
 public class RMDecomposer extends Operator {
@@ -35,10 +37,10 @@ public class RMDecomposer extends Operator {
 	private OutputPort stdoutput = this.getOutputPorts().createPort(
 			"orginal data");
 
-	private int key = 1;
+	private static final String minimumSupport = "Minimum item support";
+	private static final String threads = "Number of threads";
 
-	private THashMap<String, Integer> map = new THashMap<String, Integer>();
-	private THashMap<Integer, String> idmap = new THashMap<Integer, String>();
+	private SupportOrderedDictionary dictionary;
 
 	private RMTransactions transactions;
 
@@ -53,11 +55,21 @@ public class RMDecomposer extends Operator {
 		long lStartTime = System.currentTimeMillis();
 		RMStringTransactions data = input.getData(RMStringTransactions.class);
 
-		createIdentifyMap(data);
-		transformTransactions(data);
+		int minSupport = 1;
+		int nbThreads = 1;
+		try {
+			minSupport = this.getParameterAsInt(minimumSupport);
+			nbThreads = this.getParameterAsInt(threads);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		createIdentifyMap(data, minSupport, nbThreads);
+		transformTransactions(data, nbThreads);
 
 		IdentifyHashMapIOObject identifyHashMap = new IdentifyHashMapIOObject(
-				idmap);
+				dictionary.getLabels());
 
 		matchedOutput.deliver(identifyHashMap);
 
@@ -94,42 +106,41 @@ public class RMDecomposer extends Operator {
 		// }
 	}
 
-	private void transformTransactions(RMStringTransactions data) {
+	/**
+	 * Encodes string transactions with the dictionary built by
+	 * createIdentifyMap. Infrequent items are dropped on the way.
+	 * 
+	 * @param data
+	 * @param nbThreads
+	 */
+	private void transformTransactions(RMStringTransactions data, int nbThreads) {
 
 		transactions = new RMTransactions();
-		for (ArrayList<String> stringTransaction : data.getTransactions()) {
-			TIntArrayList transaction = new TIntArrayList();
-			for (int i = 0; i < stringTransaction.size(); i++) {
-				transaction.add(map.get(stringTransaction.get(i)));
-			}
-
-			if (stringTransaction.size() > sizeofLongestTransaction) {
-				sizeofLongestTransaction = stringTransaction.size();
+		for (TIntArrayList transaction : dictionary.encode(
+				data.getTransactions(), nbThreads)) {
+			if (transaction.size() > sizeofLongestTransaction) {
+				sizeofLongestTransaction = transaction.size();
 			}
 
-			RMTransaction intTransaction = new RMTransaction(transaction);
-			transactions.add(intTransaction);
+			transactions.add(new RMTransaction(transaction));
 		}
 	}
 
-	public THashMap<Integer, String> createIdentifyMap(RMStringTransactions data) {
-		// map.clear();
-
-		for (ArrayList<String> stringTransaction : data.getTransactions()) {
-
-			for (int i = 0; i < stringTransaction.size(); i++) {
-				if (!map.containsKey(stringTransaction.get(i))) {
-					// map.put(i, value)
-					map.put(stringTransaction.get(i), key++);
-					// map.put(i + 1, stringTransaction.get(i));
-				}
-			}
-		}
-
-		for (Entry<String, Integer> element : map.entrySet()) {
-			idmap.put(element.getValue(), element.getKey());
-		}
-		return idmap;
+	/**
+	 * Identifiers are given by decreasing support, so PLCM's initial renaming
+	 * will leave them (almost) unchanged.
+	 * 
+	 * @param data
+	 * @param minSupport
+	 *            items below this support will not be identified
+	 * @param nbThreads
+	 * @return the dictionary, which gives back an item from its identifier
+	 */
+	public SupportOrderedDictionary createIdentifyMap(
+			RMStringTransactions data, int minSupport, int nbThreads) {
+		dictionary = SupportOrderedDictionary.build(data.getTransactions(),
+				minSupport, nbThreads);
+		return dictionary;
 	}
 
 	public ExampleSet showOriginalData(RMTransactions transactions) {
@@ -162,4 +173,21 @@ public class RMDecomposer extends Operator {
 	public int getLengthOfLongestTransaction() {
 		return sizeofLongestTransaction;
 	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeInt(
+				minimumSupport,
+				"Items occurring in less transactions than this support are removed (set it to PLCM's support to drop them as early as possible)",
+				1, Integer.MAX_VALUE, 1, false));
+
+		types.add(new ParameterTypeInt(threads,
+				"How many threads will count and translate items", 1,
+				Runtime.getRuntime().availableProcessors() * 4, Runtime
+						.getRuntime().availableProcessors(), true));
+
+		return types;
+	}
 }
@@ -0,0 +1,94 @@
+package com.rapidminer.lcm.io;
+
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.obj.IdentifyHashMapIOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+
+/**
+ * Converts an ExampleSet to transactions which can be mined by PLCM, see
+ * ExampleTableAdapter.
+ */
+public class RMExampleSetAdapter extends Operator {
+
+	private static final String layoutParameter = "Layout";
+	private static final String threads = "Number of threads";
+
+	private InputPort input = this.getInputPorts().createPort("in");
+
+	private OutputPort output = this.getOutputPorts().createPort("out");
+
+	// in "one column per item" layout, gives attributes' names of items
+	private OutputPort matchedOutput = this.getOutputPorts()
+			.createPort("map");
+
+	public RMExampleSetAdapter(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		ExampleSet exampleSet = input.getData(ExampleSet.class);
+
+		int layout = ExampleTableAdapter.ITEM_VALUES;
+		int nbThreads = 1;
+		try {
+			layout = this.getParameterAsInt(layoutParameter);
+			nbThreads = this.getParameterAsInt(threads);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		ExampleTableAdapter adapter = new ExampleTableAdapter(exampleSet,
+				layout);
+		RMCompactTransactions transactions = adapter.convert(nbThreads);
+
+		output.deliver(transactions);
+
+		if (layout == ExampleTableAdapter.ONE_COLUMN_PER_ITEM
+				&& matchedOutput.isConnected()) {
+			String[] labels = new String[adapter.getColumnsCount()];
+			for (int i = 0; i < labels.length; i++) {
+				labels[i] = adapter.getItemAttribute(i).getName();
+			}
+			matchedOutput.deliver(new IdentifyHashMapIOObject(labels));
+		}
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println("ExampleSet conversion in milliseconds: "
+				+ difference);
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeCategory(layoutParameter,
+				"How transactions are represented in the example set",
+				ExampleTableAdapter.LAYOUTS, ExampleTableAdapter.ITEM_VALUES,
+				false));
+
+		types.add(new ParameterTypeInt(threads,
+				"How many threads will convert examples", 1, Runtime
+						.getRuntime().availableProcessors() * 4, Runtime
+						.getRuntime().availableProcessors(), true));
+
+		return types;
+	}
+}
@@ -9,15 +9,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.Arrays;
 import java.util.List;
 
-import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.AttributeFactory;
-import com.rapidminer.example.table.DataRow;
-import com.rapidminer.example.table.DataRowFactory;
-import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.lcm.obj.PatternsExampleTable;
 import com.rapidminer.lcm.obj.ResultListIOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
@@ -28,10 +23,10 @@ import com.rapidminer.operator.ports.OutputPort;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeFile;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.conditions.BooleanParameterCondition;
-import com.rapidminer.tools.Ontology;
 
 public class RMReaderWithComposer extends Operator {
 
@@ -43,6 +38,7 @@ public class RMReaderWithComposer extends Operator {
 
 	private static final String USE_REGEX = "Special separator (Default: blank space)";
 	private static final String REGEX = "File-Separator ";
+	private static final String THREADS = "Number of threads";
 
 	private boolean useregex = false;
 
@@ -136,61 +132,26 @@ public class RMReaderWithComposer extends Operator {
 	}
 
 	public int getLengthOfLongestPattern(ResultListIOObject data) {
-		int length = 0;
-		for (int[] item : data.getResultlist()) {
-			if (item.length > length) {
-				length = item.length;
-			}
-		}
-		return length;
+		return PatternsExampleTable.getMaxLength(data.getPatterns()) + 2;
 	}
 
+	/**
+	 * @return patterns as a table of support and item labels, translated by
+	 *         a LabelsComposer
+	 */
 	public ExampleSet getMatchedTable(ResultListIOObject result,
 			THashMap<Integer, String> map) {
-
-		Attribute[] attributes = new Attribute[this
-				.getLengthOfLongestPattern(result)];
-
-		// System.out.println("att length : "+ attributes.length);
-
-		attributes[0] = AttributeFactory.createAttribute("Support",
-				Ontology.INTEGER);
-		for (int i = 1; i < attributes.length; i++) {
-			attributes[i] = AttributeFactory.createAttribute("item " + i,
-					Ontology.STRING);
-		}
-
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
-		DataRowFactory ROW_FACTORY = new DataRowFactory(0, ',');
-		String data[] = new String[attributes.length];
-		Arrays.fill(data, null);
-		// System.out.println("length "+ data.length);
-		// TIntArrayList line = new TIntArrayList();
-
-		boolean isSupport;
-		for (int[] pattern : result.getResultlist()) {
-			if (pattern[0] >= result.getSupport()) {
-				isSupport = true;
-				for (int i = 0; i < pattern.length - 1; i++) {
-					// data[i]=pattern[i];
-					if (isSupport) {
-						data[i] = String.valueOf(pattern[i]);
-						//System.out.print("Support: " + data[i]);
-					} else {
-						data[i] = map.get(pattern[i]);
-						//System.out.print(" item: " + data[i]);
-					}
-					isSupport = false;
-				}
-				//System.out.println(" ");
-				DataRow dataRow = ROW_FACTORY.create(data, attributes);
-				table.addDataRow(dataRow);
-			}
-			Arrays.fill(data, null);
+		int nbThreads = 1;
+		try {
+			nbThreads = this.getParameterAsInt(THREADS);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
 		}
 
-		ExampleSet newExampleSet = table.createExampleSet();
-		return newExampleSet;
+		LabelsComposer composer = LabelsComposer.fromMap(map);
+		return composer.compose(result.getPatterns(), result.getSupport(),
+				nbThreads);
 	}
 
 	@Override
@@ -209,6 +170,11 @@ public class RMReaderWithComposer extends Operator {
 				this, USE_REGEX, true, true));
 
 		types.add(regexMatcher);
+
+		types.add(new ParameterTypeInt(THREADS,
+				"How many threads will translate patterns", 1, Runtime
+						.getRuntime().availableProcessors() * 4, Runtime
+						.getRuntime().availableProcessors(), true));
 		return types;
 	}
 }
@@ -0,0 +1,114 @@
+package com.rapidminer.lcm.io;
+
+import java.util.List;
+
+import com.rapidminer.lcm.obj.ResultListIOObject;
+import com.rapidminer.lcm.obj.RulesExampleTable;
+import com.rapidminer.lcm.util.PackedRules;
+import com.rapidminer.lcm.util.RulesGenerator;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ports.InputPort;
+import com.rapidminer.operator.ports.OutputPort;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+
+/**
+ * Generates association rules from PLCM's closed patterns, see
+ * RulesGenerator.
+ */
+public class RMRulesGenerator extends Operator {
+
+	private static final String minConfidence = "Minimum confidence";
+	private static final String minLift = "Minimum lift";
+	private static final String maxLength = "Maximum pattern length";
+	private static final String threads = "Number of threads";
+
+	private InputPort input = this.getInputPorts().createPort("in");
+
+	private OutputPort output = this.getOutputPorts().createPort("rules");
+
+	public RMRulesGenerator(OperatorDescription description) {
+		super(description);
+	}
+
+	@Override
+	public void doWork() throws OperatorException {
+		long lStartTime = System.currentTimeMillis();
+
+		ResultListIOObject patterns = input.getData(ResultListIOObject.class);
+
+		double confidence = 0.8;
+		double lift = 0;
+		int length = 16;
+		int nbThreads = 1;
+		try {
+			confidence = this.getParameterAsDouble(minConfidence);
+			lift = this.getParameterAsDouble(minLift);
+			length = this.getParameterAsInt(maxLength);
+			nbThreads = this.getParameterAsInt(threads);
+		} catch (UndefinedParameterError e) {
+			System.err.println("Get Parameter error");
+			e.printStackTrace();
+		}
+
+		if (!patterns.isComplete()) {
+			throw new OperatorException(
+					"Rules need all closed patterns at the mined support, these ones are a selection (top-N patterns, filtered or partial results)");
+		}
+
+		if (lift > 0 && patterns.getTransactionsCount() == 0) {
+			throw new OperatorException(
+					"Lift needs the transactions count, which isn't known for these patterns: set Minimum lift to 0");
+		}
+
+		RulesGenerator generator = new RulesGenerator(patterns.getPatterns(),
+				patterns.getSupport(), patterns.getTransactionsCount(),
+				confidence, lift, length);
+		PackedRules rules;
+		try {
+			rules = generator.generate(nbThreads);
+		} catch (IllegalStateException e) {
+			throw new OperatorException("Can't generate rules: "
+					+ e.getMessage(), e);
+		}
+
+		output.deliver(new RulesExampleTable(rules).createExampleSet());
+
+		long lEndTime = System.currentTimeMillis();
+
+		long difference = lEndTime - lStartTime;
+
+		System.out.println(rules.size() + " rules generated in milliseconds: "
+				+ difference);
+	}
+
+	@Override
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+
+		types.add(new ParameterTypeDouble(minConfidence,
+				"Rules having a lower confidence are not generated", 0, 1,
+				0.8, false));
+
+		types.add(new ParameterTypeDouble(
+				minLift,
+				"Rules having a lower lift are not outputted (0 disables this filter, which needs patterns mined by PLCM in this process)",
+				0, Double.POSITIVE_INFINITY, 0, false));
+
+		types.add(new ParameterTypeInt(
+				maxLength,
+				"Longer patterns don't give rules: a pattern of n items may give up to 2^n rules",
+				2, RulesGenerator.MAX_PATTERN_LENGTH, 16, true));
+
+		types.add(new ParameterTypeInt(threads,
+				"How many threads will generate rules", 1, Runtime
+						.getRuntime().availableProcessors() * 4, Runtime
+						.getRuntime().availableProcessors(), true));
+
+		return types;
+	}
+}
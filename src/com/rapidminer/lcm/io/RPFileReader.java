@@ -11,6 +11,11 @@ import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.lcm.internals.TransactionReader;
 
+/**
+ * @deprecated parses each value from its String form - use
+ *             ExampleTableAdapter instead
+ */
+@Deprecated
 public class RPFileReader implements Iterator<TransactionReader> {
 
 	private ExampleSet dataSet;
@@ -0,0 +1,111 @@
+package com.rapidminer.lcm.io;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts patterns into a SQLite database (see SQLitePatternsWriter) while
+ * they're mined, and optionally passes them to another collector too.
+ *
+ * If an insert fails, the error is printed and following patterns are only
+ * given to the other collector ; getError() then returns the exception.
+ */
+public class SQLiteCollector implements PatternsCollector {
+
+	private final SQLitePatternsWriter writer;
+
+	/**
+	 * may be null
+	 */
+	private final PatternsCollector next;
+
+	private volatile SQLException error = null;
+
+	private boolean closed = false;
+
+	/**
+	 * @param next
+	 *            also receives all patterns - may be null
+	 */
+	public SQLiteCollector(SQLitePatternsWriter writer, PatternsCollector next) {
+		this.writer = writer;
+		this.next = next;
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		if (this.error == null) {
+			try {
+				this.writer.add(support, pattern);
+			} catch (SQLException e) {
+				this.fail(e);
+			}
+		}
+		if (this.next != null) {
+			this.next.collect(support, pattern);
+		}
+	}
+
+	private synchronized void fail(SQLException e) {
+		if (this.error == null) {
+			this.error = e;
+			System.err.println("Can't insert patterns in the database anymore");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Also closes the database : its indexes are created here
+	 */
+	@Override
+	public synchronized long close() {
+		if (!this.closed) {
+			this.closed = true;
+			if (this.error == null) {
+				try {
+					this.writer.close();
+				} catch (SQLException e) {
+					this.fail(e);
+				}
+			} else {
+				this.writer.abort();
+			}
+		}
+		if (this.next != null) {
+			return this.next.close();
+		}
+		return this.writer.getInserted();
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		if (this.next != null) {
+			return this.next.getAveragePatternLength();
+		}
+		return 0;
+	}
+
+	@Override
+	public List<int[]> getResultList() {
+		if (this.next != null) {
+			return this.next.getResultList();
+		}
+		return new ArrayList<int[]>(0);
+	}
+
+	public PatternsCollector getNext() {
+		return this.next;
+	}
+
+	/**
+	 * @return the first insert failure, or null
+	 */
+	public SQLException getError() {
+		return this.error;
+	}
+
+	public int getInserted() {
+		return this.writer.getInserted();
+	}
+}
@@ -0,0 +1,180 @@
+package com.rapidminer.lcm.io;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Loads patterns in two SQLite tables, through a single connection :
+ *
+ * - [table]FP (PATTERNID, SUPPORT, PATTERNDESCRIPTION), the description being
+ * the pattern's items as "[1, 2, 3]"
+ *
+ * - [table]ITEM (ITEM, PATTERNID), a row per item of each pattern
+ *
+ * Inserts go through two prepared statements whose batches are executed every
+ * batchSize patterns, and committed every commitInterval patterns. While
+ * loading, the journal is kept in memory and SQLite doesn't wait for the disk
+ * (synchronous = OFF) : the database may be corrupted if the process crashes
+ * during the load. Indexes on ITEM and PATTERNID are created by close(), once
+ * all rows are inserted.
+ *
+ * add() is synchronized, so this can be fed by mining threads directly.
+ */
+public class SQLitePatternsWriter {
+
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	public static final int DEFAULT_COMMIT_INTERVAL = 100000;
+
+	private final Connection connection;
+	private final String patternsTable;
+	private final String itemsTable;
+
+	private final int batchSize;
+	private final int commitInterval;
+
+	private PreparedStatement insertPattern;
+	private PreparedStatement insertItem;
+
+	private int nextId = 1;
+	private int batched = 0;
+	private int uncommitted = 0;
+
+	/**
+	 * Opens the database, then drops and creates both tables
+	 *
+	 * @param database
+	 *            database file path, without its ".db" extension
+	 * @param table
+	 *            tables' prefix
+	 */
+	public SQLitePatternsWriter(String database, String table, int batchSize,
+			int commitInterval) throws SQLException {
+		try {
+			Class.forName("org.sqlite.JDBC");
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("SQLite JDBC driver not found", e);
+		}
+
+		this.connection = DriverManager.getConnection("jdbc:sqlite:"
+				+ database + ".db");
+		this.patternsTable = table + "FP";
+		this.itemsTable = table + "ITEM";
+		this.batchSize = Math.max(batchSize, 1);
+		this.commitInterval = Math.max(commitInterval, this.batchSize);
+
+		try {
+			Statement stmt = this.connection.createStatement();
+			stmt.execute("PRAGMA journal_mode = MEMORY;");
+			stmt.execute("PRAGMA synchronous = OFF;");
+
+			this.connection.setAutoCommit(false);
+
+			stmt.execute("DROP TABLE IF EXISTS " + this.itemsTable + ";");
+			stmt.execute("DROP TABLE IF EXISTS " + this.patternsTable + ";");
+			stmt.execute("CREATE TABLE "
+					+ this.patternsTable
+					+ " (PATTERNID INTEGER PRIMARY KEY  NOT NULL, SUPPORT INT NOT NULL, PATTERNDESCRIPTION TEXT NOT NULL);");
+			stmt.execute("CREATE TABLE " + this.itemsTable
+					+ "(ITEM INT NOT NULL,PATTERNID INT NOT NULL, FOREIGN KEY(PATTERNID) REFERENCES "
+					+ this.patternsTable + "(PATTERNID));");
+			stmt.close();
+
+			this.insertPattern = this.connection.prepareStatement("INSERT INTO "
+					+ this.patternsTable
+					+ " (PATTERNID,SUPPORT,PATTERNDESCRIPTION) VALUES (?,?,?);");
+			this.insertItem = this.connection.prepareStatement("INSERT INTO "
+					+ this.itemsTable + " (ITEM,PATTERNID) VALUES (?,?);");
+		} catch (SQLException e) {
+			this.connection.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Inserts pattern[from, to[ with the given support
+	 */
+	public synchronized void add(int support, int[] pattern, int from, int to)
+			throws SQLException {
+		final int id = this.nextId++;
+
+		this.insertPattern.setInt(1, id);
+		this.insertPattern.setInt(2, support);
+		this.insertPattern.setString(3,
+				Arrays.toString(Arrays.copyOfRange(pattern, from, to)));
+		this.insertPattern.addBatch();
+
+		for (int i = from; i < to; i++) {
+			this.insertItem.setInt(1, pattern[i]);
+			this.insertItem.setInt(2, id);
+			this.insertItem.addBatch();
+		}
+
+		if (++this.batched == this.batchSize) {
+			this.executeBatches();
+		}
+		if (++this.uncommitted == this.commitInterval) {
+			this.executeBatches();
+			this.connection.commit();
+			this.uncommitted = 0;
+		}
+	}
+
+	public void add(int support, int[] pattern) throws SQLException {
+		this.add(support, pattern, 0, pattern.length);
+	}
+
+	private void executeBatches() throws SQLException {
+		if (this.batched > 0) {
+			this.insertPattern.executeBatch();
+			this.insertItem.executeBatch();
+			this.batched = 0;
+		}
+	}
+
+	/**
+	 * @return inserted patterns count
+	 */
+	public synchronized int getInserted() {
+		return this.nextId - 1;
+	}
+
+	/**
+	 * Inserts remaining rows, creates indexes and closes the connection
+	 */
+	public synchronized void close() throws SQLException {
+		try {
+			this.executeBatches();
+			this.insertPattern.close();
+			this.insertItem.close();
+
+			Statement stmt = this.connection.createStatement();
+			stmt.execute("CREATE INDEX " + this.itemsTable + "_ITEM ON "
+					+ this.itemsTable + " (ITEM);");
+			stmt.execute("CREATE INDEX " + this.itemsTable + "_PATTERNID ON "
+					+ this.itemsTable + " (PATTERNID);");
+			stmt.close();
+
+			this.connection.commit();
+		} finally {
+			this.connection.close();
+		}
+	}
+
+	/**
+	 * Closes the connection without committing pending rows
+	 */
+	public synchronized void abort() {
+		try {
+			if (!this.connection.isClosed()) {
+				this.connection.rollback();
+				this.connection.close();
+			}
+		} catch (SQLException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+}
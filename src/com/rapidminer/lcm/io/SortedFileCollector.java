@@ -0,0 +1,421 @@
+package com.rapidminer.lcm.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.rapidminer.lcm.PLCM.PLCMThread;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Writes patterns to a single text file (as FileCollector does), ordered by
+ * decreasing support then by their sorted items, with a bounded memory usage.
+ *
+ * Each mining thread fills its own buffer (found through its PLCMThread ID,
+ * other threads sharing a synchronized one). When a buffer uses more than its
+ * share of the memory budget, it's sorted and written as a "run" : a temporary
+ * binary file next to the output. close() merges runs and buffers remaining
+ * in memory into the output file ; if there are too many runs to give each
+ * of them a decent read buffer, they're first merged into bigger runs.
+ */
+public class SortedFileCollector implements PatternsCollector {
+
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+	private static final int MIN_READ_BUFFER = 64 * 1024;
+	private static final int MAX_READ_BUFFER = 1024 * 1024;
+
+	/**
+	 * counters of different threads are 16 longs apart, so they're not in the
+	 * same cache line
+	 */
+	private static final int COUNTERS_STRIDE = 16;
+
+	private final String path;
+	private final File runsDirectory;
+	private final long memoryBudget;
+	private final long bufferBudget;
+
+	private final PackedPatterns[] buffers;
+	private final PackedPatterns sharedBuffer = new PackedPatterns(16, 64);
+
+	/**
+	 * [patterns count, items count] per thread, the shared buffer's ones at
+	 * the end
+	 */
+	private final long[] counters;
+
+	private final List<File> runs = new ArrayList<File>();
+
+	private long collected = -1;
+	private long collectedLength = 0;
+
+	/**
+	 * @param nbThreads
+	 *            higher bound on PLCMThreads' getId()
+	 * @param memoryBudget
+	 *            bytes used by patterns' buffers, shared among threads
+	 */
+	public SortedFileCollector(String path, int nbThreads, long memoryBudget) {
+		this.path = path;
+		this.runsDirectory = new File(path).getAbsoluteFile().getParentFile();
+		this.memoryBudget = Math.max(memoryBudget, 2 * MIN_READ_BUFFER);
+		this.bufferBudget = this.memoryBudget / (nbThreads + 1);
+
+		this.buffers = new PackedPatterns[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			this.buffers[i] = new PackedPatterns(16, 64);
+		}
+		this.counters = new long[(nbThreads + 1) * COUNTERS_STRIDE];
+	}
+
+	public SortedFileCollector(String path, int nbThreads) {
+		this(path, nbThreads, DEFAULT_MEMORY_BUDGET);
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.buffers.length) {
+				this.add(this.buffers[id], id * COUNTERS_STRIDE, support,
+						pattern);
+				return;
+			}
+		}
+
+		synchronized (this.sharedBuffer) {
+			this.add(this.sharedBuffer, this.buffers.length * COUNTERS_STRIDE,
+					support, pattern);
+		}
+	}
+
+	private void add(PackedPatterns buffer, int countersIndex, int support,
+			int[] pattern) {
+		buffer.add(support, pattern);
+		this.counters[countersIndex]++;
+		this.counters[countersIndex + 1] += pattern.length;
+
+		if (buffer.getMemoryUsage() > this.bufferBudget) {
+			try {
+				this.addRun(this.spill(buffer));
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			buffer.clear();
+		}
+	}
+
+	private synchronized void addRun(File run) {
+		this.runs.add(run);
+	}
+
+	/**
+	 * Writes buffer's patterns to a new run, sorted
+	 */
+	private File spill(PackedPatterns buffer) throws IOException {
+		File run = File.createTempFile("plcm-run", ".tmp", this.runsDirectory);
+		run.deleteOnExit();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(run), MIN_READ_BUFFER));
+		try {
+			int[] arena = buffer.getArena();
+			for (int i : buffer.sortedOrder()) {
+				int from = buffer.getOffset(i);
+				int to = buffer.getOffset(i + 1);
+				out.writeInt(buffer.getSupport(i));
+				out.writeInt(to - from);
+				for (int j = from; j < to; j++) {
+					out.writeInt(arena[j]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+		return run;
+	}
+
+	/**
+	 * Merges all runs and remaining buffers into the output file. Mining
+	 * threads must have terminated.
+	 *
+	 * @throws RuntimeException
+	 *             wrapping the IOException if the output can't be written
+	 */
+	@Override
+	public synchronized long close() {
+		if (this.collected >= 0) {
+			return this.collected;
+		}
+
+		this.collected = 0;
+		for (int i = 0; i < this.counters.length; i += COUNTERS_STRIDE) {
+			this.collected += this.counters[i];
+			this.collectedLength += this.counters[i + 1];
+		}
+
+		try {
+			// runs are merged while buffers are still in memory, so they only
+			// get the memory left by buffers
+			long inMemory = this.sharedBuffer.getMemoryUsage();
+			for (PackedPatterns buffer : this.buffers) {
+				inMemory += buffer.getMemoryUsage();
+			}
+			long available = Math.max(this.memoryBudget - inMemory, 0);
+			int fanIn = (int) Math.max(2, available / MIN_READ_BUFFER);
+			while (this.runs.size() > fanIn) {
+				this.mergeRuns(fanIn, available);
+			}
+
+			List<Source> sources = new ArrayList<Source>();
+			int readBuffer = readBufferSize(available, this.runs.size());
+			for (File run : this.runs) {
+				sources.add(new RunSource(run, readBuffer));
+			}
+			sources.add(new BufferSource(this.sharedBuffer));
+			for (PackedPatterns buffer : this.buffers) {
+				sources.add(new BufferSource(buffer));
+			}
+
+			FileCollector output = new FileCollector(this.path, false);
+			try {
+				merge(sources, output);
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Can't write sorted patterns to "
+					+ this.path, e);
+		} finally {
+			for (File run : this.runs) {
+				run.delete();
+			}
+			this.runs.clear();
+			this.sharedBuffer.clear();
+			for (int i = 0; i < this.buffers.length; i++) {
+				this.buffers[i] = null;
+			}
+		}
+
+		return this.collected;
+	}
+
+	private static int readBufferSize(long memory, int runsCount) {
+		if (runsCount == 0) {
+			return MIN_READ_BUFFER;
+		}
+		return (int) Math.min(MAX_READ_BUFFER,
+				Math.max(MIN_READ_BUFFER, memory / runsCount));
+	}
+
+	/**
+	 * Replaces the first fanIn runs by their merge
+	 *
+	 * @param available
+	 *            bytes available for read and write buffers
+	 */
+	private void mergeRuns(int fanIn, long available) throws IOException {
+		List<File> merged = new ArrayList<File>(this.runs.subList(0, fanIn));
+		int readBuffer = readBufferSize(available, fanIn + 1);
+
+		List<Source> sources = new ArrayList<Source>();
+		for (File run : merged) {
+			sources.add(new RunSource(run, readBuffer));
+		}
+
+		File run = File.createTempFile("plcm-run", ".tmp", this.runsDirectory);
+		run.deleteOnExit();
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(run), readBuffer));
+		try {
+			merge(sources, new Sink() {
+				@Override
+				public void write(int support, int[] items, int length)
+						throws IOException {
+					out.writeInt(support);
+					out.writeInt(length);
+					for (int i = 0; i < length; i++) {
+						out.writeInt(items[i]);
+					}
+				}
+			});
+		} finally {
+			out.close();
+		}
+
+		for (File done : merged) {
+			done.delete();
+		}
+		this.runs.subList(0, fanIn).clear();
+		this.runs.add(run);
+	}
+
+	private static void merge(List<Source> sources, final FileCollector output)
+			throws IOException {
+		merge(sources, new Sink() {
+			private int[] pattern = new int[0];
+
+			@Override
+			public void write(int support, int[] items, int length) {
+				if (this.pattern.length != length) {
+					this.pattern = new int[length];
+				}
+				System.arraycopy(items, 0, this.pattern, 0, length);
+				output.collect(support, this.pattern);
+			}
+		});
+	}
+
+	private static void merge(List<Source> sources, Sink sink)
+			throws IOException {
+		PriorityQueue<Source> heap = new PriorityQueue<Source>(Math.max(
+				sources.size(), 1));
+		try {
+			for (Source source : sources) {
+				if (source.advance()) {
+					heap.add(source);
+				}
+			}
+
+			while (!heap.isEmpty()) {
+				Source first = heap.poll();
+				sink.write(first.support, first.items, first.length);
+				if (first.advance()) {
+					heap.add(first);
+				}
+			}
+		} finally {
+			for (Source source : sources) {
+				source.close();
+			}
+		}
+	}
+
+	@Override
+	public int getAveragePatternLength() {
+		long count = this.close();
+		if (count == 0) {
+			return 0;
+		} else {
+			return (int) (this.collectedLength / count);
+		}
+	}
+
+	/**
+	 * @return an empty list : patterns are only written to the file
+	 */
+	@Override
+	public List<int[]> getResultList() {
+		return new ArrayList<int[]>(0);
+	}
+
+	/**
+	 * @return collected patterns count, once closed
+	 */
+	public long getCollected() {
+		return this.close();
+	}
+
+	public String getPath() {
+		return this.path;
+	}
+
+	private interface Sink {
+		void write(int support, int[] items, int length) throws IOException;
+	}
+
+	/**
+	 * A sorted sequence of patterns, ordered in the merge heap by its current
+	 * pattern
+	 */
+	private static abstract class Source implements Comparable<Source> {
+		int support;
+		int[] items = new int[64];
+		int length;
+
+		/**
+		 * @return false if there's no more pattern
+		 */
+		abstract boolean advance() throws IOException;
+
+		void close() throws IOException {
+		}
+
+		void ensureCapacity(int capacity) {
+			if (this.items.length < capacity) {
+				this.items = new int[Math.max(capacity, this.items.length * 2)];
+			}
+		}
+
+		@Override
+		public int compareTo(Source other) {
+			return PackedPatterns.compare(this.support, this.items, 0,
+					this.length, other.support, other.items, 0, other.length);
+		}
+	}
+
+	private static final class BufferSource extends Source {
+		private final PackedPatterns buffer;
+		private final int[] order;
+		private int next = 0;
+
+		BufferSource(PackedPatterns buffer) {
+			this.buffer = buffer;
+			this.order = buffer.sortedOrder();
+		}
+
+		@Override
+		boolean advance() {
+			if (this.next == this.order.length) {
+				return false;
+			}
+			int i = this.order[this.next++];
+			int from = this.buffer.getOffset(i);
+			this.length = this.buffer.getOffset(i + 1) - from;
+			this.support = this.buffer.getSupport(i);
+			this.ensureCapacity(this.length);
+			System.arraycopy(this.buffer.getArena(), from, this.items, 0,
+					this.length);
+			return true;
+		}
+	}
+
+	private static final class RunSource extends Source {
+		private final DataInputStream in;
+
+		RunSource(File run, int bufferSize) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(run), bufferSize));
+		}
+
+		@Override
+		boolean advance() throws IOException {
+			try {
+				this.support = this.in.readInt();
+			} catch (EOFException e) {
+				return false;
+			}
+			this.length = this.in.readInt();
+			this.ensureCapacity(this.length);
+			for (int i = 0; i < this.length; i++) {
+				this.items[i] = this.in.readInt();
+			}
+			return true;
+		}
+
+		@Override
+		void close() throws IOException {
+			this.in.close();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package com.rapidminer.lcm.io;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.lcm.PLCM.PLCMThread;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Collects patterns mined at the lowest of several supports, and sorts them
+ * out for all supports at once : each pattern goes to the bucket of the
+ * highest support it reaches, where patterns are counted by length.
+ *
+ * Buckets are concatenated from the highest support to the lowest, so
+ * patterns at a support are a prefix of getPatterns(), given by
+ * getPatterns(k). Counts and length histograms of each support include
+ * buckets of higher supports.
+ *
+ * As PerThreadCollector, each mining thread fills its own buckets, found
+ * through its PLCMThread ID. getPatterns() and statistics should only be read
+ * once mining has terminated.
+ */
+public class SweepCollector implements PatternsCollector {
+
+	private final int[] supports;
+
+	private final Buckets[] threadBuckets;
+
+	private final Buckets sharedBuckets;
+
+	private PackedPatterns res = null;
+	private long[] counts = null;
+	private long[][] lengths = null;
+
+	/**
+	 * @param nbThreads
+	 *            higher bound on PLCMThreads' getId()
+	 * @param supports
+	 *            in increasing order - patterns should be mined at
+	 *            supports[0]
+	 */
+	public SweepCollector(int nbThreads, int[] supports) {
+		this.supports = supports;
+		this.threadBuckets = new Buckets[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			this.threadBuckets[i] = new Buckets(supports.length);
+		}
+		this.sharedBuckets = new Buckets(supports.length);
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		// highest bucket this pattern reaches
+		int k = this.supports.length - 1;
+		while (k >= 0 && this.supports[k] > support) {
+			k--;
+		}
+		if (k < 0) {
+			return;
+		}
+
+		Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			int id = (int) current.getId();
+			if (id < this.threadBuckets.length) {
+				this.threadBuckets[id].add(k, support, pattern);
+				return;
+			}
+		}
+
+		synchronized (this.sharedBuckets) {
+			this.sharedBuckets.add(k, support, pattern);
+		}
+	}
+
+	@Override
+	public synchronized long close() {
+		this.build();
+		return this.res.size();
+	}
+
+	@Override
+	public synchronized int getAveragePatternLength() {
+		this.build();
+		if (this.res.size() == 0) {
+			return 0;
+		}
+		return (int) (this.res.getCollectedLength() / this.res.size());
+	}
+
+	public int[] getSupports() {
+		return this.supports;
+	}
+
+	/**
+	 * @return patterns at supports[0], by decreasing buckets
+	 */
+	public synchronized PackedPatterns getPatterns() {
+		this.build();
+		return this.res;
+	}
+
+	/**
+	 * @return patterns having at least supports[k], a view of the beginning
+	 *         of getPatterns()
+	 */
+	public synchronized PackedPatterns getPatterns(int k) {
+		this.build();
+		return this.res.head((int) this.counts[k]);
+	}
+
+	/**
+	 * @return how many patterns have at least supports[k]
+	 */
+	public synchronized long getCount(int k) {
+		this.build();
+		return this.counts[k];
+	}
+
+	/**
+	 * @return how many patterns have at least supports[k], by length (index
+	 *         0 is unused)
+	 */
+	public synchronized long[] getLengthHistogram(int k) {
+		this.build();
+		return this.lengths[k];
+	}
+
+	/**
+	 * @return length of the longest pattern, at any support
+	 */
+	public synchronized int getMaxLength() {
+		this.build();
+		return this.lengths[0].length - 1;
+	}
+
+	@Override
+	public List<int[]> getResultList() {
+		return this.getPatterns().lines();
+	}
+
+	/**
+	 * concatenates buckets and accumulates statistics, once
+	 */
+	private void build() {
+		if (this.res != null) {
+			return;
+		}
+
+		final int nbSupports = this.supports.length;
+		Buckets[] all = Arrays.copyOf(this.threadBuckets,
+				this.threadBuckets.length + 1);
+		all[this.threadBuckets.length] = this.sharedBuckets;
+
+		long patterns = 0;
+		long items = 0;
+		int maxLength = 0;
+		for (Buckets buckets : all) {
+			for (PackedPatterns bucket : buckets.patterns) {
+				patterns += bucket.size();
+				items += bucket.getOffset(bucket.size());
+			}
+			maxLength = Math.max(maxLength, buckets.maxLength);
+		}
+
+		PackedPatterns concatenated = new PackedPatterns((int) Math.min(
+				patterns, Integer.MAX_VALUE - 8), (int) Math.min(items,
+				Integer.MAX_VALUE - 8));
+		this.counts = new long[nbSupports];
+		this.lengths = new long[nbSupports][maxLength + 1];
+
+		for (int k = nbSupports - 1; k >= 0; k--) {
+			if (k < nbSupports - 1) {
+				this.counts[k] = this.counts[k + 1];
+				System.arraycopy(this.lengths[k + 1], 0, this.lengths[k], 0,
+						maxLength + 1);
+			}
+			for (Buckets buckets : all) {
+				concatenated.addAll(buckets.patterns[k]);
+				this.counts[k] += buckets.patterns[k].size();
+				long[] histogram = buckets.lengths[k];
+				for (int l = 0; l < histogram.length && l <= maxLength; l++) {
+					this.lengths[k][l] += histogram[l];
+				}
+				buckets.patterns[k] = null;
+			}
+		}
+
+		for (int i = 0; i < this.threadBuckets.length; i++) {
+			this.threadBuckets[i] = null;
+		}
+		this.res = concatenated;
+	}
+
+	/**
+	 * One thread's patterns and lengths counts, by bucket
+	 */
+	private static final class Buckets {
+		final PackedPatterns[] patterns;
+		final long[][] lengths;
+		int maxLength = 0;
+
+		Buckets(int nbSupports) {
+			this.patterns = new PackedPatterns[nbSupports];
+			this.lengths = new long[nbSupports][];
+			for (int k = 0; k < nbSupports; k++) {
+				this.patterns[k] = new PackedPatterns(16, 64);
+				this.lengths[k] = new long[1];
+			}
+		}
+
+		void add(int k, int support, int[] pattern) {
+			this.patterns[k].add(support, pattern);
+			if (pattern.length >= this.lengths[k].length) {
+				this.lengths[k] = Arrays.copyOf(this.lengths[k],
+						Math.max(pattern.length + 1, this.lengths[k].length * 2));
+			}
+			this.lengths[k][pattern.length]++;
+			this.maxLength = Math.max(this.maxLength, pattern.length);
+		}
+	}
+}
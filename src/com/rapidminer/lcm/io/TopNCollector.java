@@ -0,0 +1,175 @@
+package com.rapidminer.lcm.io;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Keeps only the N best patterns : highest supports first, ties being broken
+ * by the lexicographic order of sorted items (see PackedPatterns.compare), so
+ * the result doesn't depend on the order in which patterns are found.
+ *
+ * Patterns are kept in a min-heap of size N, the worst one being at its root,
+ * so memory usage doesn't depend on the number of mined patterns. Once the
+ * heap is full, patterns whose support is below the root's one are rejected
+ * without locking.
+ */
+public class TopNCollector implements PatternsCollector {
+
+	private final int n;
+
+	/**
+	 * heap, the worst pattern at 0
+	 */
+	private final int[] supports;
+	private final int[][] patterns;
+	private int size = 0;
+
+	/**
+	 * lowest support in the heap, once it's full
+	 */
+	private volatile int threshold = 0;
+
+	private PackedPatterns res = null;
+
+	/**
+	 * @param n
+	 *            patterns to keep, at least 1
+	 */
+	public TopNCollector(int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException(
+					"At least 1 pattern should be kept");
+		}
+		this.n = n;
+		this.supports = new int[n];
+		this.patterns = new int[n][];
+	}
+
+	@Override
+	public void collect(final int support, final int[] pattern) {
+		if (support < this.threshold) {
+			return;
+		}
+
+		int[] sorted = Arrays.copyOf(pattern, pattern.length);
+		Arrays.sort(sorted);
+
+		synchronized (this) {
+			if (this.size < this.n) {
+				this.supports[this.size] = support;
+				this.patterns[this.size] = sorted;
+				this.siftUp(this.size);
+				this.size++;
+			} else if (compare(support, sorted, this.supports[0],
+					this.patterns[0]) < 0) {
+				this.supports[0] = support;
+				this.patterns[0] = sorted;
+				this.siftDown(0);
+			} else {
+				return;
+			}
+
+			if (this.size == this.n) {
+				this.threshold = this.supports[0];
+			}
+			this.res = null;
+		}
+	}
+
+	private static int compare(int supportA, int[] a, int supportB, int[] b) {
+		return PackedPatterns.compare(supportA, a, 0, a.length, supportB, b,
+				0, b.length);
+	}
+
+	/**
+	 * @return true if pattern i should be nearer to the root than pattern j
+	 */
+	private boolean worse(int i, int j) {
+		return compare(this.supports[i], this.patterns[i], this.supports[j],
+				this.patterns[j]) > 0;
+	}
+
+	private void swap(int i, int j) {
+		int support = this.supports[i];
+		this.supports[i] = this.supports[j];
+		this.supports[j] = support;
+		int[] pattern = this.patterns[i];
+		this.patterns[i] = this.patterns[j];
+		this.patterns[j] = pattern;
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!this.worse(i, parent)) {
+				return;
+			}
+			this.swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int worst = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < this.size && this.worse(left, worst)) {
+				worst = left;
+			}
+			if (right < this.size && this.worse(right, worst)) {
+				worst = right;
+			}
+			if (worst == i) {
+				return;
+			}
+			this.swap(i, worst);
+			i = worst;
+		}
+	}
+
+	/**
+	 * @return kept patterns count
+	 */
+	@Override
+	public synchronized long close() {
+		return this.size;
+	}
+
+	@Override
+	public synchronized int getAveragePatternLength() {
+		if (this.size == 0) {
+			return 0;
+		}
+		long length = 0;
+		for (int i = 0; i < this.size; i++) {
+			length += this.patterns[i].length;
+		}
+		return (int) (length / this.size);
+	}
+
+	/**
+	 * @return kept patterns, best first, their items being sorted
+	 */
+	public synchronized PackedPatterns getPatterns() {
+		if (this.res == null) {
+			PackedPatterns packed = new PackedPatterns(this.size, 64);
+			for (int i = 0; i < this.size; i++) {
+				packed.add(this.supports[i], this.patterns[i]);
+			}
+			this.res = packed.sorted();
+		}
+		return this.res;
+	}
+
+	@Override
+	public List<int[]> getResultList() {
+		return this.getPatterns().lines();
+	}
+
+	public int getN() {
+		return this.n;
+	}
+}
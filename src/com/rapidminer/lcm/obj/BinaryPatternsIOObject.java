@@ -0,0 +1,107 @@
+package com.rapidminer.lcm.obj;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.rapidminer.lcm.io.BinaryPatternsFile;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Patterns stored in a binary patterns file (see BinaryPatternsFile),
+ * optionally filtered by support and contained items. Nothing is read until
+ * getPatterns() or getResultlist() is called ; openFile() allows to iterate
+ * over patterns without loading them all.
+ */
+public class BinaryPatternsIOObject extends ResultListIOObject {
+
+	private static final long serialVersionUID = -2703381923946271946L;
+
+	private final File file;
+
+	private final int minSupport;
+
+	/**
+	 * may be null
+	 */
+	private final int[] items;
+
+	private transient PackedPatterns loaded = null;
+
+	/**
+	 * @param minSupport
+	 *            patterns with a lower support are filtered out
+	 * @param items
+	 *            only patterns containing all these items are kept - may be
+	 *            null
+	 * @param support
+	 *            minimum support used for mining
+	 */
+	public BinaryPatternsIOObject(File file, int minSupport, int[] items,
+			int support) {
+		super((PackedPatterns) null, support);
+		this.file = file;
+		this.minSupport = minSupport;
+		this.items = items;
+	}
+
+	/**
+	 * Loads selected patterns in memory, on the first call only
+	 */
+	@Override
+	public synchronized PackedPatterns getPatterns() {
+		if (this.loaded == null) {
+			try {
+				BinaryPatternsFile patterns = this.openFile();
+				try {
+					this.loaded = patterns.readAll(this.minSupport, this.items);
+				} finally {
+					patterns.close();
+				}
+			} catch (IOException e) {
+				System.err.println("can't read " + this.file);
+				e.printStackTrace();
+				this.loaded = new PackedPatterns(1, 1);
+			}
+		}
+		return this.loaded;
+	}
+
+	@Override
+	public void setResultlist(List<int[]> resultlist) {
+		this.loaded = PackedPatterns.pack(resultlist);
+	}
+
+	/**
+	 * The caller should close the returned file, and apply filters itself
+	 * through getMinSupport() and getItems()
+	 */
+	public BinaryPatternsFile openFile() throws IOException {
+		return new BinaryPatternsFile(this.file);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getMinSupport() {
+		return minSupport;
+	}
+
+	public int[] getItems() {
+		return items;
+	}
+
+	/**
+	 * @return true if patterns are in memory, after getPatterns() or
+	 *         setResultlist()
+	 */
+	public synchronized boolean isLoaded() {
+		return this.loaded != null;
+	}
+
+	@Override
+	public String toString() {
+		return "binary patterns in " + this.file;
+	}
+}
@@ -7,22 +7,70 @@ import com.rapidminer.operator.ResultObjectAdapter;
 public class IdentifyHashMapIOObject extends ResultObjectAdapter {
 
 	/**
-	 * 
+	 *
 	 */
 	private static final long serialVersionUID = 3706608715539303155L;
 
 	private THashMap<Integer, String> hashmap;
 
+	/**
+	 * item identifier => item, may be null if this object was created from a
+	 * hashmap
+	 */
+	private String[] labels;
+
 	public IdentifyHashMapIOObject(THashMap<Integer, String> hashmap) {
 		this.hashmap = hashmap;
 	}
 
+	/**
+	 * @param labels
+	 *            dense reverse dictionary, indexed by item identifiers
+	 */
+	public IdentifyHashMapIOObject(String[] labels) {
+		this.labels = labels;
+	}
+
+	/**
+	 * When created from a labels array the map is only built on the first
+	 * call, prefer getLabel
+	 */
 	public THashMap<Integer, String> getHashmap() {
+		if (hashmap == null) {
+			hashmap = new THashMap<Integer, String>(labels.length);
+			for (int i = 0; i < labels.length; i++) {
+				hashmap.put(i, labels[i]);
+			}
+		}
 		return hashmap;
 	}
 
 	public void setHashmap(THashMap<Integer, String> hashmap) {
 		this.hashmap = hashmap;
+		this.labels = null;
+	}
+
+	/**
+	 * @return the item identified by id, or null if it's unknown
+	 */
+	public String getLabel(int id) {
+		if (labels != null) {
+			if (id >= 0 && id < labels.length) {
+				return labels[id];
+			} else {
+				return null;
+			}
+		} else {
+			return hashmap.get(id);
+		}
+	}
+
+	/**
+	 * @return the reverse dictionary indexed by identifiers, or null if this
+	 *         object was created from a hashmap
+	 */
+	public String[] getLabels() {
+		return labels;
 	}
 
 }
@@ -0,0 +1,187 @@
+package com.rapidminer.lcm.obj;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AbstractExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+
+/**
+ * An ExampleTable whose values are read from packed mining results when
+ * accessed : a DataRow is only a (row index) flyweight created on access, so
+ * the table costs nothing besides the results themselves.
+ *
+ * Results are never modified : the first write to a row copies its values in
+ * an array kept by the table, which is read and written from then on. So
+ * operators setting values or adding attributes work as on any table, and
+ * only rows they wrote cost memory. Columns of added attributes are missing
+ * in rows which weren't written.
+ */
+public abstract class LazyExampleTable extends AbstractExampleTable {
+
+	private static final long serialVersionUID = -2166209535417326281L;
+
+	/**
+	 * columns given by read(), others were added
+	 */
+	private final int readColumns;
+
+	/**
+	 * values of rows which were written, by row index
+	 */
+	private final TIntObjectHashMap<double[]> written = new TIntObjectHashMap<double[]>();
+
+	/**
+	 * false until a row is written, so reads don't lock before
+	 */
+	private volatile boolean anyWritten = false;
+
+	protected LazyExampleTable(List<Attribute> attributes) {
+		super(attributes);
+		this.readColumns = attributes.size();
+	}
+
+	/**
+	 * @param column
+	 *            in [0, number of attributes given to the constructor[
+	 * @return value of column in row [index] of the results
+	 */
+	protected abstract double read(int index, int column);
+
+	/**
+	 * @return row [index] of the results, as text
+	 */
+	protected abstract String toString(int index);
+
+	@Override
+	public DataRow getDataRow(int index) {
+		return new LazyDataRow(index);
+	}
+
+	@Override
+	public DataRowReader getDataRowReader() {
+		return new DataRowReader() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < size();
+			}
+
+			@Override
+			public DataRow next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return new LazyDataRow(this.next++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return values of row [index] if it was written, or null
+	 */
+	private double[] getWritten(int index) {
+		if (!this.anyWritten) {
+			return null;
+		}
+		synchronized (this.written) {
+			return this.written.get(index);
+		}
+	}
+
+	/**
+	 * @return values of row [index], copied from the results on the first
+	 *         call, with at least [columns] columns
+	 */
+	private double[] write(int index, int columns) {
+		synchronized (this.written) {
+			double[] values = this.written.get(index);
+			if (values == null) {
+				values = new double[Math.max(columns,
+						Math.max(this.readColumns, this.getAttributeCount()))];
+				for (int column = 0; column < values.length; column++) {
+					values[column] = (column < this.readColumns) ? this.read(
+							index, column) : Double.NaN;
+				}
+				this.written.put(index, values);
+				this.anyWritten = true;
+			} else if (values.length < columns) {
+				int length = values.length;
+				values = Arrays.copyOf(values, columns);
+				Arrays.fill(values, length, columns, Double.NaN);
+				this.written.put(index, values);
+			}
+			return values;
+		}
+	}
+
+	/**
+	 * Reads row [index] in the results, or its values once it was written
+	 */
+	private final class LazyDataRow extends DataRow {
+
+		private static final long serialVersionUID = -3452581932166447316L;
+
+		private final int index;
+
+		LazyDataRow(int index) {
+			this.index = index;
+		}
+
+		@Override
+		protected double get(int column, double defaultValue) {
+			double[] values = getWritten(this.index);
+			if (values != null) {
+				return (column < values.length) ? values[column] : Double.NaN;
+			}
+			return (column < readColumns) ? read(this.index, column)
+					: Double.NaN;
+		}
+
+		@Override
+		protected void set(int column, double value, double defaultValue) {
+			write(this.index, column + 1)[column] = value;
+		}
+
+		@Override
+		protected void ensureNumberOfColumns(int numberOfColumns) {
+			if (getWritten(this.index) != null) {
+				write(this.index, numberOfColumns);
+			}
+		}
+
+		@Override
+		public void trim() {
+			// nothing to trim
+		}
+
+		/**
+		 * copies of these rows are best stored as double arrays
+		 */
+		@Override
+		public int getType() {
+			return DataRowFactory.TYPE_DOUBLE_ARRAY;
+		}
+
+		@Override
+		public String toString() {
+			double[] values = getWritten(this.index);
+			if (values != null) {
+				return Arrays.toString(values);
+			}
+			return LazyExampleTable.this.toString(this.index);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.rapidminer.lcm.obj;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.rapidminer.lcm.io.PatternFileReader;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Results of a mining run which were only written to files (see
+ * MultiThreadedFileCollector's streaming mode). Nothing is loaded until
+ * getPatterns() or getResultlist() is called, and iterator() reads patterns
+ * one at a time without loading them all.
+ */
+public class PatternFilesIOObject extends ResultListIOObject {
+
+	private static final long serialVersionUID = 2219420926405306165L;
+
+	private final String[] paths;
+
+	private final long patternsCount;
+
+	private transient PackedPatterns loaded = null;
+
+	public PatternFilesIOObject(String[] paths, long patternsCount, int support) {
+		super((PackedPatterns) null, support);
+		this.paths = paths;
+		this.patternsCount = patternsCount;
+	}
+
+	/**
+	 * Loads all patterns in memory, on the first call only
+	 */
+	@Override
+	public synchronized PackedPatterns getPatterns() {
+		if (this.loaded == null) {
+			PackedPatterns patterns = new PackedPatterns((int) Math.min(
+					this.patternsCount, Integer.MAX_VALUE - 8), 1024);
+			Iterator<int[]> iterator = this.iterator();
+			while (iterator.hasNext()) {
+				int[] line = iterator.next();
+				patterns.add(line[0], line, 1, line.length - 1);
+			}
+			this.loaded = patterns;
+		}
+		return this.loaded;
+	}
+
+	@Override
+	public void setResultlist(List<int[]> resultlist) {
+		this.loaded = PackedPatterns.pack(resultlist);
+	}
+
+	/**
+	 * @return patterns as [support, items..., 0], read from files on the fly
+	 */
+	public Iterator<int[]> iterator() {
+		return new PatternFileReader(this.paths);
+	}
+
+	public String[] getPaths() {
+		return paths;
+	}
+
+	public long getPatternsCount() {
+		return patternsCount;
+	}
+
+	/**
+	 * @return true if patterns are in memory, after getPatterns() or
+	 *         setResultlist()
+	 */
+	public synchronized boolean isLoaded() {
+		return this.loaded != null;
+	}
+
+	@Override
+	public String toString() {
+		return this.patternsCount + " patterns in " + this.paths.length
+				+ " file(s)";
+	}
+}
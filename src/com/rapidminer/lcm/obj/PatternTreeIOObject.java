@@ -0,0 +1,73 @@
+package com.rapidminer.lcm.obj;
+
+import java.util.List;
+
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.lcm.util.PatternTree;
+
+/**
+ * Results collected by PatternTreeCollector. The tree is what gets serialized
+ * ; it's only packed if getPatterns() is called, while getResultlist() reads
+ * patterns from the tree directly.
+ */
+public class PatternTreeIOObject extends ResultListIOObject {
+
+	private static final long serialVersionUID = -5306923453018436524L;
+
+	private final PatternTree tree;
+
+	private transient PackedPatterns loaded = null;
+
+	public PatternTreeIOObject(PatternTree tree, int support) {
+		super((PackedPatterns) null, support);
+		this.tree = tree;
+	}
+
+	/**
+	 * Packs patterns, on the first call only
+	 */
+	@Override
+	public synchronized PackedPatterns getPatterns() {
+		if (this.loaded == null) {
+			this.loaded = this.tree.toPackedPatterns();
+		}
+		return this.loaded;
+	}
+
+	@Override
+	public synchronized List<int[]> getResultlist() {
+		if (this.loaded != null) {
+			return this.loaded.lines();
+		}
+		return this.tree.lines();
+	}
+
+	@Override
+	public synchronized void setResultlist(List<int[]> resultlist) {
+		this.loaded = PackedPatterns.pack(resultlist);
+	}
+
+	/**
+	 * @see PatternTree#getSupport(int[])
+	 */
+	public int getSupport(int[] itemset) {
+		return this.tree.getSupport(itemset);
+	}
+
+	public PatternTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * @return true if patterns are in memory, after getPatterns() or
+	 *         setResultlist()
+	 */
+	public synchronized boolean isLoaded() {
+		return this.loaded != null;
+	}
+
+	@Override
+	public String toString() {
+		return "patterns tree, " + this.tree.getNodesCount() + " nodes";
+	}
+}
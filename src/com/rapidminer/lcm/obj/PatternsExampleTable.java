@@ -0,0 +1,96 @@
+package com.rapidminer.lcm.obj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * An ExampleTable showing PackedPatterns directly : column 0 is the support,
+ * column j the j-th item, missing once the pattern is over or if the item is
+ * negative (see LabelsComposer). Rows are decoded from the packed arrays when
+ * a value is read, and written rows are copied (see LazyExampleTable).
+ */
+public class PatternsExampleTable extends LazyExampleTable {
+
+	private static final long serialVersionUID = 1907514658209738815L;
+
+	private final PackedPatterns patterns;
+
+	/**
+	 * @param attributes
+	 *            "Support" then an attribute per item position, as created by
+	 *            createAttributes
+	 */
+	public PatternsExampleTable(PackedPatterns patterns,
+			List<Attribute> attributes) {
+		super(attributes);
+		this.patterns = patterns;
+	}
+
+	public PatternsExampleTable(PackedPatterns patterns) {
+		this(patterns, createAttributes(getMaxLength(patterns)));
+	}
+
+	/**
+	 * @return "Support" then "item 1" ... "item [maxLength]", all integers
+	 */
+	public static List<Attribute> createAttributes(int maxLength) {
+		List<Attribute> attributes = new ArrayList<Attribute>(maxLength + 1);
+		attributes.add(AttributeFactory.createAttribute("Support",
+				Ontology.INTEGER));
+		for (int i = 1; i <= maxLength; i++) {
+			attributes.add(AttributeFactory.createAttribute("item " + i,
+					Ontology.INTEGER));
+		}
+		return attributes;
+	}
+
+	/**
+	 * @return length of the longest pattern
+	 */
+	public static int getMaxLength(PackedPatterns patterns) {
+		int max = 0;
+		for (int i = 0; i < patterns.size(); i++) {
+			max = Math.max(max, patterns.getLength(i));
+		}
+		return max;
+	}
+
+	public PackedPatterns getPatterns() {
+		return this.patterns;
+	}
+
+	@Override
+	public int size() {
+		return this.patterns.size();
+	}
+
+	@Override
+	protected double read(int index, int column) {
+		if (column == 0) {
+			return this.patterns.getSupport(index);
+		}
+		if (column <= this.patterns.getLength(index)) {
+			int item = this.patterns.getItem(index, column - 1);
+			if (item >= 0) {
+				return item;
+			}
+		}
+		return Double.NaN;
+	}
+
+	@Override
+	protected String toString(int index) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(this.patterns.getSupport(index));
+		for (int j = 0; j < this.patterns.getLength(index); j++) {
+			builder.append(',');
+			builder.append(this.patterns.getItem(index, j));
+		}
+		return builder.toString();
+	}
+}
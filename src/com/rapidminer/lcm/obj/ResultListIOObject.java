@@ -1,35 +1,167 @@
-package com.rapidminer.lcm.obj;
-
-import java.util.ArrayList;
-
-import com.rapidminer.operator.ResultObjectAdapter;
-
-public class ResultListIOObject extends ResultObjectAdapter {
-	/**
-	 * 
-	 */
-	private static final long serialVersionUID = -4757579767660123618L;
-	private ArrayList<int[]> resultlist;
-	private int support;
-	
-	public ResultListIOObject(ArrayList<int[]> resultlist, int support) {
-		this.resultlist = resultlist;
-		this.support=support;
-	}
-
-	public ArrayList<int[]> getResultlist() {
-		return resultlist;
-	}
-
-	public void setResultlist(ArrayList<int[]> resultlist) {
-		this.resultlist = resultlist;
-	}
-
-	public int getSupport() {
-		return support;
-	}
-
-	public void setSupport(int support) {
-		this.support = support;
-	}
-}
+package com.rapidminer.lcm.obj;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * Mining results, stored as PackedPatterns : serializing this object writes a
+ * few int arrays in bulk. Objects serialized when results were a list of
+ * [support, items..., 0] arrays (the resultlist field) are still read.
+ */
+public class ResultListIOObject extends ResultObjectAdapter {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -4757579767660123618L;
+
+	/**
+	 * the legacy resultlist field is still declared (and written as null), so
+	 * streams of both layouts have all fields
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("patterns", PackedPatterns.class),
+			new ObjectStreamField("support", Integer.TYPE),
+			new ObjectStreamField("transactionsCount", Integer.TYPE),
+			new ObjectStreamField("complete", Boolean.TYPE),
+			new ObjectStreamField("truncation", String.class),
+			new ObjectStreamField("resultlist", ArrayList.class) };
+
+	private PackedPatterns patterns;
+	private int support;
+
+	/**
+	 * transactions in the mined dataset, 0 if it's unknown
+	 */
+	private int transactionsCount = 0;
+
+	/**
+	 * true if patterns are all closed patterns of the mined transactions at
+	 * support, as needed to find any itemset's support from them
+	 */
+	private boolean complete = false;
+
+	/**
+	 * why mining stopped before its end (a limit was reached), null if it
+	 * didn't
+	 */
+	private String truncation = null;
+	
+	/**
+	 * @param resultlist
+	 *            [support, items..., 0] arrays, packed unless it's already a
+	 *            PackedPatterns view - may be null for subclasses loading
+	 *            patterns lazily
+	 */
+	public ResultListIOObject(List<int[]> resultlist, int support) {
+		if (resultlist != null) {
+			this.patterns = PackedPatterns.pack(resultlist);
+		}
+		this.support=support;
+	}
+
+	public ResultListIOObject(PackedPatterns patterns, int support) {
+		this.patterns = patterns;
+		this.support=support;
+	}
+
+	public PackedPatterns getPatterns() {
+		return patterns;
+	}
+
+	/**
+	 * @return a view of patterns as [support, items..., 0] arrays
+	 */
+	public List<int[]> getResultlist() {
+		return this.getPatterns().lines();
+	}
+
+	public void setResultlist(List<int[]> resultlist) {
+		this.patterns = PackedPatterns.pack(resultlist);
+	}
+
+	public int getSupport() {
+		return support;
+	}
+
+	public void setSupport(int support) {
+		this.support = support;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("patterns", this.patterns);
+		fields.put("support", this.support);
+		fields.put("transactionsCount", this.transactionsCount);
+		fields.put("complete", this.complete);
+		fields.put("truncation", this.truncation);
+		fields.put("resultlist", null);
+		out.writeFields();
+	}
+
+	/**
+	 * Reads fields by name, so the legacy resultlist field is packed into
+	 * patterns
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		this.support = fields.get("support", 0);
+		this.transactionsCount = fields.get("transactionsCount", 0);
+		// legacy results could only come from complete runs
+		this.complete = fields.get("complete", true);
+		this.truncation = (String) fields.get("truncation", null);
+		this.patterns = (PackedPatterns) fields.get("patterns", null);
+
+		ArrayList<int[]> resultlist = (ArrayList<int[]>) fields.get(
+				"resultlist", null);
+		if (this.patterns == null && resultlist != null) {
+			this.patterns = PackedPatterns.pack(resultlist);
+		}
+	}
+
+	public int getTransactionsCount() {
+		return transactionsCount;
+	}
+
+	public void setTransactionsCount(int transactionsCount) {
+		this.transactionsCount = transactionsCount;
+	}
+
+	/**
+	 * @return false if patterns were truncated
+	 */
+	public boolean isComplete() {
+		return complete && truncation == null;
+	}
+
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	public boolean isTruncated() {
+		return truncation != null;
+	}
+
+	/**
+	 * @return why mining stopped before its end, or null
+	 */
+	public String getTruncation() {
+		return truncation;
+	}
+
+	/**
+	 * @param reason
+	 *            why mining stopped before its end, null if it didn't
+	 */
+	public void setTruncation(String reason) {
+		this.truncation = reason;
+	}
+}
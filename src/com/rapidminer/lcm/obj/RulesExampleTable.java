@@ -0,0 +1,128 @@
+package com.rapidminer.lcm.obj;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.lcm.util.PackedRules;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * An ExampleTable showing PackedRules, as PatternsExampleTable does for
+ * patterns : columns are the support, confidence and lift, then premise items
+ * and conclusion items (missing once the premise or conclusion is over).
+ * Values are read from the packed arrays when accessed, and written rows are
+ * copied (see LazyExampleTable).
+ */
+public class RulesExampleTable extends LazyExampleTable {
+
+	private static final long serialVersionUID = -5239781260212960553L;
+
+	/**
+	 * columns before items
+	 */
+	private static final int MEASURES = 3;
+
+	private final PackedRules rules;
+	private final int maxPremiseLength;
+
+	public RulesExampleTable(PackedRules rules) {
+		this(rules, rules.getMaxPremiseLength(), rules
+				.getMaxConclusionLength());
+	}
+
+	private RulesExampleTable(PackedRules rules, int maxPremiseLength,
+			int maxConclusionLength) {
+		super(createAttributes(maxPremiseLength, maxConclusionLength));
+		this.rules = rules;
+		this.maxPremiseLength = maxPremiseLength;
+	}
+
+	/**
+	 * @return "Support", "Confidence", "Lift", then "premise 1" ... "premise
+	 *         [maxPremiseLength]" and "conclusion 1" ... "conclusion
+	 *         [maxConclusionLength]"
+	 */
+	public static List<Attribute> createAttributes(int maxPremiseLength,
+			int maxConclusionLength) {
+		List<Attribute> attributes = new ArrayList<Attribute>(MEASURES
+				+ maxPremiseLength + maxConclusionLength);
+		attributes.add(AttributeFactory.createAttribute("Support",
+				Ontology.INTEGER));
+		attributes.add(AttributeFactory.createAttribute("Confidence",
+				Ontology.REAL));
+		attributes
+				.add(AttributeFactory.createAttribute("Lift", Ontology.REAL));
+		for (int i = 1; i <= maxPremiseLength; i++) {
+			attributes.add(AttributeFactory.createAttribute("premise " + i,
+					Ontology.INTEGER));
+		}
+		for (int i = 1; i <= maxConclusionLength; i++) {
+			attributes.add(AttributeFactory.createAttribute("conclusion " + i,
+					Ontology.INTEGER));
+		}
+		return attributes;
+	}
+
+	public PackedRules getRules() {
+		return this.rules;
+	}
+
+	@Override
+	public int size() {
+		return this.rules.size();
+	}
+
+	@Override
+	protected double read(int index, int column) {
+		switch (column) {
+		case 0:
+			return this.rules.getSupport(index);
+		case 1:
+			return this.rules.getConfidence(index);
+		case 2:
+			return this.rules.getLift(index);
+		}
+
+		int j = column - MEASURES;
+		if (j < this.maxPremiseLength) {
+			if (j < this.rules.getPremiseLength(index)) {
+				return this.rules.getPremiseItem(index, j);
+			}
+			return Double.NaN;
+		}
+
+		j -= this.maxPremiseLength;
+		if (j < this.rules.getConclusionLength(index)) {
+			return this.rules.getConclusionItem(index, j);
+		}
+		return Double.NaN;
+	}
+
+	@Override
+	protected String toString(int index) {
+		StringBuilder builder = new StringBuilder();
+		for (int j = 0; j < this.rules.getPremiseLength(index); j++) {
+			if (j > 0) {
+				builder.append(',');
+			}
+			builder.append(this.rules.getPremiseItem(index, j));
+		}
+		builder.append(" => ");
+		for (int j = 0; j < this.rules.getConclusionLength(index); j++) {
+			if (j > 0) {
+				builder.append(',');
+			}
+			builder.append(this.rules.getConclusionItem(index, j));
+		}
+		builder.append(" (");
+		builder.append(this.rules.getSupport(index));
+		builder.append(", ");
+		builder.append(this.rules.getConfidence(index));
+		builder.append(", ");
+		builder.append(this.rules.getLift(index));
+		builder.append(')');
+		return builder.toString();
+	}
+}
@@ -27,9 +27,16 @@ public class IdentifyHashMapRenderer extends AbstractTableModelTableRenderer {
 
 		if (renderable instanceof IdentifyHashMapIOObject) {
 			IdentifyHashMapIOObject object = (IdentifyHashMapIOObject) renderable;
-			for (Integer key : object.getHashmap().keySet()) {
-				values.add(new Pair<Integer, String>(key, object.getHashmap()
-						.get(key)));
+			if (object.getLabels() != null) {
+				String[] labels = object.getLabels();
+				for (int i = 0; i < labels.length; i++) {
+					values.add(new Pair<Integer, String>(i, labels[i]));
+				}
+			} else {
+				for (Integer key : object.getHashmap().keySet()) {
+					values.add(new Pair<Integer, String>(key, object
+							.getHashmap().get(key)));
+				}
 			}
 
 			return new AbstractTableModel() {
@@ -0,0 +1,402 @@
+package com.rapidminer.lcm.renderer;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * A table model reading PackedPatterns when cells are displayed : column 0 is
+ * the support, column j the j-th item (empty once the pattern is over). Only
+ * values JTable asks for are boxed.
+ *
+ * Rows are shown by pages of pageSize patterns. Sorting never moves patterns
+ * : it computes a permutation of their indexes, over all pages, from the
+ * sorted column's primitive values.
+ *
+ * Patterns which aren't in memory (files, trees) are given as a Source
+ * instead : only the current page is loaded. Sorting them reads the sorted
+ * column's values in one pass, so it costs 12 bytes per pattern while
+ * sorting and 4 afterwards, and each page of sorted rows is then picked by a
+ * pass over the source.
+ */
+public class PatternsTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = -6094474108526633224L;
+
+	public static final int DEFAULT_PAGE_SIZE = 100000;
+
+	/**
+	 * all patterns, or the current page's if they're read from source
+	 */
+	private PackedPatterns patterns;
+	private final Source source;
+	private final int rows;
+	private final int columns;
+	private final int pageSize;
+
+	/**
+	 * row i of the whole table is pattern order[i], or i if order is null
+	 */
+	private int[] order = null;
+
+	/**
+	 * if patterns are read from source and sorted : row i of the page is
+	 * pattern pageOrder[i] of the loaded page
+	 */
+	private int[] pageOrder = null;
+
+	private int sortedColumn = -1;
+	private boolean ascending = true;
+
+	private int page = 0;
+
+	/**
+	 * @param pageSize
+	 *            rows shown at once, at least 1
+	 */
+	public PatternsTableModel(PackedPatterns patterns, int pageSize) {
+		this.patterns = patterns;
+		this.source = null;
+		this.pageSize = Math.max(pageSize, 1);
+		this.rows = patterns.size();
+
+		int maxLength = 0;
+		for (int i = 0; i < patterns.size(); i++) {
+			maxLength = Math.max(maxLength, patterns.getLength(i));
+		}
+		this.columns = maxLength + 1;
+	}
+
+	public PatternsTableModel(PackedPatterns patterns) {
+		this(patterns, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Patterns are counted by a first pass over source, which doesn't keep
+	 * them, then the first page is loaded.
+	 *
+	 * @param pageSize
+	 *            rows shown at once, at least 1
+	 */
+	public PatternsTableModel(Source source, int pageSize) {
+		this.source = source;
+		this.pageSize = Math.max(pageSize, 1);
+
+		long count = 0;
+		int maxLength = 0;
+		Iterator<int[]> iterator = source.open();
+		try {
+			while (iterator.hasNext()) {
+				maxLength = Math.max(maxLength, iterator.next().length - 2);
+				count++;
+			}
+		} finally {
+			source.close(iterator);
+		}
+		this.rows = (int) Math.min(count, Integer.MAX_VALUE - 8);
+		this.columns = maxLength + 1;
+
+		this.loadPage();
+	}
+
+	public PatternsTableModel(Source source) {
+		this(source, DEFAULT_PAGE_SIZE);
+	}
+
+	@Override
+	public int getRowCount() {
+		if (this.source != null) {
+			return this.patterns.size();
+		}
+		int first = this.page * this.pageSize;
+		return Math.max(0, Math.min(this.pageSize, this.rows - first));
+	}
+
+	@Override
+	public int getColumnCount() {
+		return this.columns;
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		if (column == 0) {
+			return "Support";
+		}
+		return "item_" + column;
+	}
+
+	@Override
+	public Class<?> getColumnClass(int columnIndex) {
+		return Integer.class;
+	}
+
+	@Override
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		int i;
+		if (this.source == null) {
+			int row = this.page * this.pageSize + rowIndex;
+			i = (this.order == null) ? row : this.order[row];
+		} else {
+			i = (this.pageOrder == null) ? rowIndex : this.pageOrder[rowIndex];
+		}
+		if (columnIndex == 0) {
+			return Integer.valueOf(this.patterns.getSupport(i));
+		}
+		if (columnIndex <= this.patterns.getLength(i)) {
+			return Integer.valueOf(this.patterns.getItem(i, columnIndex - 1));
+		}
+		return null;
+	}
+
+	public int getPage() {
+		return this.page;
+	}
+
+	public int getPageCount() {
+		return Math.max(1, (this.rows + this.pageSize - 1) / this.pageSize);
+	}
+
+	public void setPage(int page) {
+		int newPage = Math.max(0, Math.min(page, this.getPageCount() - 1));
+		if (newPage != this.page) {
+			this.page = newPage;
+			if (this.source != null) {
+				this.loadPage();
+			}
+			this.fireTableDataChanged();
+		}
+	}
+
+	/**
+	 * @return index (over all pages) of the first row of the current page
+	 */
+	public int getFirstRow() {
+		return this.page * this.pageSize;
+	}
+
+	public int getTotalRowCount() {
+		return this.rows;
+	}
+
+	public int getSortedColumn() {
+		return this.sortedColumn;
+	}
+
+	public boolean isAscending() {
+		return this.ascending;
+	}
+
+	/**
+	 * Sorts all rows by this column, ascending if it wasn't already the sorted
+	 * column, otherwise reverses the order. Missing items come first in
+	 * ascending order. Then shows the first page.
+	 */
+	public void sortBy(int column) {
+		if (column == this.sortedColumn) {
+			this.ascending = !this.ascending;
+		} else {
+			this.sortedColumn = column;
+			this.ascending = true;
+		}
+
+		this.order = this.sortedOrder(column);
+		this.page = 0;
+		if (this.source != null) {
+			this.loadPage();
+		}
+		this.fireTableDataChanged();
+	}
+
+	/**
+	 * Reads the current page's patterns from source
+	 */
+	private void loadPage() {
+		long first = (long) this.page * this.pageSize;
+		if (this.order == null) {
+			this.patterns = this.source.read(first, this.pageSize);
+			this.pageOrder = null;
+			return;
+		}
+
+		int from = (int) first;
+		int to = Math.min(this.rows, from + this.pageSize);
+		int[] wanted = Arrays.copyOfRange(this.order, from, to);
+		int[] sorted = wanted.clone();
+		Arrays.sort(sorted);
+		this.patterns = this.source.read(sorted);
+		this.pageOrder = new int[wanted.length];
+		for (int i = 0; i < wanted.length; i++) {
+			this.pageOrder[i] = Arrays.binarySearch(sorted, wanted[i]);
+		}
+	}
+
+	private int[] sortedOrder(int column) {
+		final int[] keys = new int[this.rows];
+		if (this.source == null) {
+			for (int i = 0; i < this.rows; i++) {
+				if (column == 0) {
+					keys[i] = this.key(this.patterns.getSupport(i), true);
+				} else {
+					boolean present = column <= this.patterns.getLength(i);
+					keys[i] = this.key(present ? this.patterns.getItem(i,
+							column - 1) : 0, present);
+				}
+			}
+		} else {
+			Iterator<int[]> iterator = this.source.scan();
+			try {
+				for (int i = 0; i < this.rows && iterator.hasNext(); i++) {
+					// [support, items..., 0]
+					int[] line = iterator.next();
+					boolean present = column == 0 || column <= line.length - 2;
+					keys[i] = this.key(present ? line[column] : 0, present);
+				}
+			} finally {
+				this.source.close(iterator);
+			}
+		}
+
+		int[] indexes = new int[this.rows];
+		for (int i = 0; i < this.rows; i++) {
+			indexes[i] = i;
+		}
+		mergeSort(keys, indexes, new int[this.rows], 0, this.rows);
+		return indexes;
+	}
+
+	/**
+	 * @return sort key of a value, or of a missing item if it's not present
+	 */
+	private int key(int value, boolean present) {
+		// below any item, and its complement above any item
+		int key = present ? value : Integer.MIN_VALUE;
+		return this.ascending ? key : ~key;
+	}
+
+	/**
+	 * Patterns which aren't in memory, read by pages. Pages are read forward
+	 * from the same iterator, which is re-opened when going back.
+	 */
+	public abstract static class Source {
+
+		private Iterator<int[]> iterator = null;
+		private long position = 0;
+
+		/**
+		 * @return patterns as [support, items..., 0], from the first one
+		 */
+		protected abstract Iterator<int[]> open();
+
+		/**
+		 * Releases an iterator returned by open(), which does nothing by
+		 * default
+		 */
+		protected void close(Iterator<int[]> opened) {
+		}
+
+		/**
+		 * @return a new iterator from the first pattern, to be given back to
+		 *         close()
+		 */
+		Iterator<int[]> scan() {
+			this.release();
+			return this.open();
+		}
+
+		/**
+		 * @param indexes
+		 *            ascending
+		 * @return patterns at these indexes, in the same order
+		 */
+		PackedPatterns read(int[] indexes) {
+			this.release();
+			PackedPatterns page = new PackedPatterns();
+			Iterator<int[]> iterator = this.open();
+			try {
+				int position = 0;
+				int i = 0;
+				while (i < indexes.length && iterator.hasNext()) {
+					int[] line = iterator.next();
+					if (position == indexes[i]) {
+						page.add(line[0], line, 1, line.length - 1);
+						i++;
+					}
+					position++;
+				}
+			} finally {
+				this.close(iterator);
+			}
+			return page;
+		}
+
+		/**
+		 * closes the iterator kept by read(from, count)
+		 */
+		private void release() {
+			if (this.iterator != null) {
+				this.close(this.iterator);
+				this.iterator = null;
+			}
+		}
+
+		/**
+		 * @return patterns from-th to (from + count)-th, or less at the end
+		 */
+		PackedPatterns read(long from, int count) {
+			if (this.iterator == null || this.position > from) {
+				if (this.iterator != null) {
+					this.close(this.iterator);
+				}
+				this.iterator = this.open();
+				this.position = 0;
+			}
+			while (this.position < from && this.iterator.hasNext()) {
+				this.iterator.next();
+				this.position++;
+			}
+
+			PackedPatterns page = new PackedPatterns();
+			while (page.size() < count && this.iterator.hasNext()) {
+				int[] line = this.iterator.next();
+				this.position++;
+				page.add(line[0], line, 1, line.length - 1);
+			}
+			if (!this.iterator.hasNext()) {
+				this.close(this.iterator);
+				this.iterator = null;
+			}
+			return page;
+		}
+	}
+
+	/**
+	 * stable, by keys[indexes[i]]
+	 */
+	private static void mergeSort(int[] keys, int[] indexes, int[] tmp,
+			int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		final int middle = (from + to) >>> 1;
+		mergeSort(keys, indexes, tmp, from, middle);
+		mergeSort(keys, indexes, tmp, middle, to);
+
+		if (keys[indexes[middle - 1]] <= keys[indexes[middle]]) {
+			return;
+		}
+
+		System.arraycopy(indexes, from, tmp, from, to - from);
+		int i = from;
+		int j = middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < middle && keys[tmp[i]] <= keys[tmp[j]])) {
+				indexes[k] = tmp[i++];
+			} else {
+				indexes[k] = tmp[j++];
+			}
+		}
+	}
+}
@@ -1,21 +1,43 @@
 package com.rapidminer.lcm.renderer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 
-import javax.swing.table.AbstractTableModel;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 
 import com.rapidminer.gui.renderer.AbstractTableModelTableRenderer;
+import com.rapidminer.lcm.io.BinaryPatternsFile;
+import com.rapidminer.lcm.io.PatternFileReader;
+import com.rapidminer.lcm.obj.BinaryPatternsIOObject;
+import com.rapidminer.lcm.obj.PatternFilesIOObject;
+import com.rapidminer.lcm.obj.PatternTreeIOObject;
 import com.rapidminer.lcm.obj.ResultListIOObject;
 import com.rapidminer.operator.IOContainer;
-import com.rapidminer.tools.container.MultidimensionalArraySet;
 
+/**
+ * Shows patterns through a PatternsTableModel : rows are read from the
+ * patterns' packed arrays when displayed, by pages, and clicking a column's
+ * header sorts all rows by it.
+ *
+ * Patterns still in files or in a tree aren't loaded : pages are read from
+ * their iterators, and sorting only applies to the current page.
+ */
 public class ResultListRenderer extends AbstractTableModelTableRenderer{
 
-	private int length=0;
-	
 	@Override
 	public String getName() {
 		return "ResultListIOObject";
@@ -25,66 +47,154 @@ public class ResultListRenderer extends AbstractTableModelTableRenderer{
 	public TableModel getTableModel(Object renderable, IOContainer ioContainer,
 			boolean isReporting) {
 
-		//final List<Pair<Integer, String>> values = new ArrayList<Pair<Integer, String>>();
-		final List<MultidimensionalArraySet<Integer>> values = new ArrayList<MultidimensionalArraySet<Integer>>();
-		
-		
+		if (renderable instanceof PatternFilesIOObject) {
+			final PatternFilesIOObject files = (PatternFilesIOObject) renderable;
+			if (!files.isLoaded()) {
+				return new PatternsTableModel(new PatternsTableModel.Source() {
+					@Override
+					protected Iterator<int[]> open() {
+						return files.iterator();
+					}
+
+					@Override
+					protected void close(Iterator<int[]> opened) {
+						((PatternFileReader) opened).close();
+					}
+				});
+			}
+		} else if (renderable instanceof BinaryPatternsIOObject) {
+			BinaryPatternsIOObject binary = (BinaryPatternsIOObject) renderable;
+			if (!binary.isLoaded()) {
+				return new PatternsTableModel(new BinarySource(binary));
+			}
+		} else if (renderable instanceof PatternTreeIOObject) {
+			final PatternTreeIOObject tree = (PatternTreeIOObject) renderable;
+			if (!tree.isLoaded()) {
+				return new PatternsTableModel(new PatternsTableModel.Source() {
+					@Override
+					protected Iterator<int[]> open() {
+						return tree.getTree().iterator();
+					}
+				});
+			}
+		}
+
 		if (renderable instanceof ResultListIOObject) {
 			ResultListIOObject object = (ResultListIOObject) renderable;
-//			for (Integer key : object.getHashmap().keySet()) {
-//				values.add(new MultidimensionalArraySet<>(dimensions));
-//			}
-
-			for (int[] array : object.getResultlist()) {
-				values.add(new MultidimensionalArraySet<Integer>(array));
-				if(array.length>length){
-					length = array.length;
-				}
-				//values.add(new MultidimensionalArraySet<>(array));
+			return new PatternsTableModel(object.getPatterns());
+		}
+		return new DefaultTableModel();
+	}
+
+	@Override
+	public Component getVisualizationComponent(Object renderable,
+			IOContainer ioContainer) {
+		TableModel tableModel = this.getTableModel(renderable, ioContainer,
+				false);
+		if (!(tableModel instanceof PatternsTableModel)) {
+			return super.getVisualizationComponent(renderable, ioContainer);
+		}
+		final PatternsTableModel model = (PatternsTableModel) tableModel;
+
+		final JTable table = new JTable(model);
+		table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+		table.getTableHeader().setReorderingAllowed(false);
+
+		final JLabel position = new JLabel();
+		final JButton previous = new JButton("<");
+		final JButton next = new JButton(">");
+
+		final Runnable update = new Runnable() {
+			@Override
+			public void run() {
+				int first = model.getFirstRow();
+				int total = model.getTotalRowCount();
+				position.setText("rows " + Math.min(first + 1, total) + " - "
+						+ (first + model.getRowCount()) + " of " + total);
+				previous.setEnabled(model.getPage() > 0);
+				next.setEnabled(model.getPage() < model.getPageCount() - 1);
 			}
-			
-			return new AbstractTableModel() {
-
-				/**
-			 * 
-			 */
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public Object getValueAt(int rowIndex, int columnIndex) {
-					//Pair<Integer, String> pair = values.get(rowIndex);
-					MultidimensionalArraySet<Integer> multidimensionalArraySet = values.get(rowIndex);
-					//if (columnIndex == 0)
-						//return pair.getFirst();
-						//return multidimensionalArraySet.get(columnIndex);
-					//return pair.getSecond();
-					return multidimensionalArraySet.get(columnIndex);
-				}
+		};
 
-				@Override
-				public int getColumnCount() {
-					return length;
+		previous.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				model.setPage(model.getPage() - 1);
+				update.run();
+			}
+		});
+		next.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				model.setPage(model.getPage() + 1);
+				update.run();
+			}
+		});
+		table.getTableHeader().addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int column = table.columnAtPoint(e.getPoint());
+				if (column >= 0) {
+					model.sortBy(table.convertColumnIndexToModel(column));
+					update.run();
 				}
+			}
+		});
+		update.run();
 
-				@Override
-				public int getRowCount() {
-					return values.size();
-				}
+		JPanel pages = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		pages.add(previous);
+		pages.add(next);
+		pages.add(position);
 
-				@Override
-				public String getColumnName(int column) {
-					if (column == 0)
-						return "Support";
-					return "item_"+column;
-				}
-			};
-		}
-		return new DefaultTableModel();
+		JPanel panel = new JPanel(new BorderLayout());
+		panel.add(new JScrollPane(table), BorderLayout.CENTER);
+		panel.add(pages, BorderLayout.SOUTH);
+		return panel;
 	}
 
+	/**
+	 * sorting is done by PatternsTableModel, without a row sorter boxing
+	 * every row
+	 */
 	@Override
 	public boolean isSortable() {
-		return true;
+		return false;
+	}
+
+	/**
+	 * Each iterator has its own BinaryPatternsFile, closed with it
+	 */
+	private static final class BinarySource extends PatternsTableModel.Source {
+
+		private final BinaryPatternsIOObject binary;
+
+		private BinaryPatternsFile file = null;
+
+		BinarySource(BinaryPatternsIOObject binary) {
+			this.binary = binary;
+		}
+
+		@Override
+		protected Iterator<int[]> open() {
+			try {
+				this.file = this.binary.openFile();
+			} catch (IOException e) {
+				System.err.println("can't read " + this.binary.getFile());
+				e.printStackTrace();
+				return Collections.<int[]> emptyList().iterator();
+			}
+			return this.file.iterator(this.binary.getMinSupport(),
+					this.binary.getItems());
+		}
+
+		@Override
+		protected void close(Iterator<int[]> opened) {
+			if (this.file != null) {
+				this.file.close();
+				this.file = null;
+			}
+		}
 	}
 
 }
@@ -0,0 +1,117 @@
+package com.rapidminer.lcm.util;
+
+import com.rapidminer.lcm.PLCM;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.ProcessStoppedException;
+
+/**
+ * Periodically checks a PLCM run against its limits, and stops it (see
+ * PLCM.stop) as soon as one of them is reached : its RapidMiner process was
+ * stopped, it collected too many patterns, it ran for too long or the heap is
+ * too full. Mining threads then return and patterns collected so far are
+ * kept.
+ *
+ * Interrupt this thread once mining has terminated.
+ */
+public class LimitsWatcherThread extends Thread {
+	/**
+	 * check delay, in milliseconds
+	 */
+	private static final long CHECK_DELAY = 50;
+
+	/**
+	 * shortest delay between two garbage collections triggered when the heap
+	 * looks full, in milliseconds
+	 */
+	private static final long GC_DELAY = 1000;
+
+	private final PLCM miner;
+	private final Operator operator;
+	private final long maxPatterns;
+	private final long maxTime;
+	private final long maxHeap;
+
+	private final Runtime runtime = Runtime.getRuntime();
+
+	private long lastGc = 0;
+
+	/**
+	 * @param operator
+	 *            the run is stopped with its process - may be null
+	 * @param maxPatterns
+	 *            0 for no limit
+	 * @param maxTime
+	 *            in milliseconds, 0 for no limit
+	 * @param maxHeap
+	 *            in bytes, 0 for no limit
+	 */
+	public LimitsWatcherThread(PLCM miner, Operator operator,
+			long maxPatterns, long maxTime, long maxHeap) {
+		super("LimitsWatcher");
+		this.setDaemon(true);
+		this.miner = miner;
+		this.operator = operator;
+		this.maxPatterns = maxPatterns;
+		this.maxTime = maxTime;
+		this.maxHeap = maxHeap;
+	}
+
+	@Override
+	public void run() {
+		final long start = System.currentTimeMillis();
+		while (true) {
+			try {
+				Thread.sleep(CHECK_DELAY);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			String reason = this.check(System.currentTimeMillis() - start);
+			if (reason != null) {
+				this.miner.stop(reason);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return why the run should stop, or null
+	 */
+	private String check(long elapsed) {
+		if (this.operator != null) {
+			try {
+				this.operator.checkForStop();
+			} catch (ProcessStoppedException e) {
+				return "process stopped";
+			}
+		}
+
+		if (this.maxPatterns > 0
+				&& this.miner.getCollectedCount() >= this.maxPatterns) {
+			return "pattern limit reached (" + this.maxPatterns + ")";
+		}
+
+		if (this.maxTime > 0 && elapsed >= this.maxTime) {
+			return "time limit reached (" + this.maxTime + " ms)";
+		}
+
+		if (this.maxHeap > 0 && this.usedMemory() >= this.maxHeap) {
+			// used memory includes garbage, which may be enough to go below
+			final long now = System.currentTimeMillis();
+			if (now - this.lastGc >= GC_DELAY) {
+				this.lastGc = now;
+				this.runtime.gc();
+				if (this.usedMemory() >= this.maxHeap) {
+					return "heap limit reached (" + (this.maxHeap >> 20)
+							+ " MB)";
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private long usedMemory() {
+		return this.runtime.totalMemory() - this.runtime.freeMemory();
+	}
+}
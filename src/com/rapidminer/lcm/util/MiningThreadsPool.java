@@ -0,0 +1,109 @@
+package com.rapidminer.lcm.util;
+
+import com.rapidminer.parameter.ParameterTypeInt;
+
+/**
+ * Bounds the number of mining threads running at once, over all PLCM
+ * instances sharing this pool. Concurrent runs thus share the machine's
+ * processors instead of each one starting all its threads.
+ *
+ * Each run gets its fair share of the pool when it starts : size divided by
+ * the number of runs, including itself, rounded up - and no more than what is
+ * left. A run never waits : if nothing is left it still gets one thread, so
+ * concurrent runs aren't serialized, at the cost of one thread over size per
+ * such run. Threads are kept until the run ends. A run started alone gets all
+ * the threads it asks for, even more than size : then runs started meanwhile
+ * get one thread each.
+ *
+ * The shared pool has a thread per processor, and PLCM tells when it gets
+ * fewer threads than it was configured with.
+ *
+ * Mining threads themselves are still created by each run, because
+ * collectors identify them as PLCMThreads (see PerThreadCollector).
+ */
+public final class MiningThreadsPool {
+
+	private static final MiningThreadsPool shared = new MiningThreadsPool(
+			Runtime.getRuntime().availableProcessors());
+
+	private final int size;
+
+	/**
+	 * granted threads, and runs holding them
+	 */
+	private int running = 0;
+	private int runs = 0;
+
+	/**
+	 * @param size
+	 *            maximum number of mining threads running at once
+	 */
+	public MiningThreadsPool(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size has to be > 0, given "
+					+ size);
+		}
+		this.size = size;
+	}
+
+	/**
+	 * @return the mining threads parameter of operators running PLCM : up to 4
+	 *         threads per processor, a thread per processor by default
+	 */
+	public static ParameterTypeInt createThreadsParameter(String key) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return new ParameterTypeInt(
+				key,
+				"How many threads will be launched. A run alone gets them all, concurrent runs share one thread per processor",
+				1, processors * 4, processors, true);
+	}
+
+	/**
+	 * @return the pool used by default, with a thread per processor
+	 */
+	public static MiningThreadsPool getShared() {
+		return shared;
+	}
+
+	/**
+	 * @return how many threads the caller may run, between 1 and wanted -
+	 *         they must be given back with release
+	 */
+	public synchronized int acquire(int wanted) {
+		int granted;
+		if (this.runs == 0) {
+			granted = Math.max(1, wanted);
+		} else {
+			int share = (this.size + this.runs) / (this.runs + 1);
+			granted = Math.max(1, Math.min(wanted,
+					Math.min(share, this.size - this.running)));
+		}
+
+		this.running += granted;
+		this.runs++;
+		return granted;
+	}
+
+	public synchronized void release(int granted) {
+		this.running -= granted;
+		this.runs--;
+	}
+
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return threads currently available
+	 */
+	public synchronized int getAvailable() {
+		return Math.max(0, this.size - this.running);
+	}
+
+	/**
+	 * @return runs currently holding threads
+	 */
+	public synchronized int getRuns() {
+		return this.runs;
+	}
+}
@@ -0,0 +1,396 @@
+package com.rapidminer.lcm.util;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * In-memory storage for mining results : items of all patterns are packed in
+ * a single int array (the arena), pattern i being in [offsets[i],
+ * offsets[i+1][, and supports are in a parallel array. This costs 8 bytes per
+ * pattern plus 4 bytes per item, instead of an array per pattern.
+ *
+ * lines() gives a view in the historical format, a list of [support,
+ * items..., 0] arrays, for code which was written for ArrayList<int[]>
+ * results. Each of its get() allocates the returned array.
+ *
+ * Not thread-safe : each thread should fill its own instance, which can then
+ * be concatenated with addAll.
+ */
+public final class PackedPatterns implements Serializable {
+
+	private static final long serialVersionUID = -6015012306735593766L;
+
+	private static final int INITIAL_PATTERNS = 1024;
+
+	private int[] arena;
+
+	/**
+	 * offsets[i] is the start of pattern i in arena, offsets[size] is the end
+	 * of the last pattern
+	 */
+	private int[] offsets;
+
+	private int[] supports;
+
+	private int size = 0;
+
+	private long collectedLength = 0;
+
+	public PackedPatterns() {
+		this(INITIAL_PATTERNS, INITIAL_PATTERNS * 4);
+	}
+
+	/**
+	 * @param patterns
+	 *            initial patterns capacity
+	 * @param items
+	 *            initial arena capacity
+	 */
+	public PackedPatterns(int patterns, int items) {
+		this.supports = new int[Math.max(patterns, 1)];
+		this.offsets = new int[Math.max(patterns, 1) + 1];
+		this.arena = new int[Math.max(items, 1)];
+	}
+
+	/**
+	 * Packs lines in the historical format
+	 *
+	 * @param lines
+	 *            [support, items..., 0] arrays
+	 */
+	public static PackedPatterns pack(Collection<int[]> lines) {
+		if (lines instanceof Lines) {
+			return ((Lines) lines).getPatterns();
+		}
+
+		long items = 0;
+		for (int[] line : lines) {
+			items += line.length - 2;
+		}
+		PackedPatterns packed = new PackedPatterns(lines.size(), (int) Math
+				.min(items, Integer.MAX_VALUE - 8));
+		for (int[] line : lines) {
+			packed.add(line[0], line, 1, line.length - 1);
+		}
+		return packed;
+	}
+
+	/**
+	 * Uses arrays filled by a bulk writer, without copying them
+	 *
+	 * @param offsets
+	 *            size + 1 offsets in arena, as returned by getOffset,
+	 *            starting at 0
+	 */
+	public static PackedPatterns wrap(int[] arena, int[] offsets,
+			int[] supports, int size) {
+		PackedPatterns packed = new PackedPatterns(0, 0);
+		packed.arena = arena;
+		packed.offsets = offsets;
+		packed.supports = supports;
+		packed.size = size;
+		packed.collectedLength = offsets[size];
+		return packed;
+	}
+
+	/**
+	 * @return a view of the first size patterns, sharing this instance's
+	 *         arrays : neither should be modified afterwards
+	 */
+	public PackedPatterns head(int size) {
+		return wrap(this.arena, this.offsets, this.supports, size);
+	}
+
+	public void add(int support, int[] pattern) {
+		this.add(support, pattern, 0, pattern.length);
+	}
+
+	/**
+	 * Adds pattern[from, to[ with the given support
+	 */
+	public void add(int support, int[] pattern, int from, int to) {
+		final int length = to - from;
+		this.ensureCapacity(1, length);
+
+		final int start = this.offsets[this.size];
+		System.arraycopy(pattern, from, this.arena, start, length);
+		this.supports[this.size] = support;
+		this.size++;
+		this.offsets[this.size] = start + length;
+		this.collectedLength += length;
+	}
+
+	public void addAll(PackedPatterns other) {
+		final int itemsCount = other.offsets[other.size];
+		this.ensureCapacity(other.size, itemsCount);
+
+		final int start = this.offsets[this.size];
+		System.arraycopy(other.arena, 0, this.arena, start, itemsCount);
+		System.arraycopy(other.supports, 0, this.supports, this.size,
+				other.size);
+		for (int i = 1; i <= other.size; i++) {
+			this.offsets[this.size + i] = start + other.offsets[i];
+		}
+		this.size += other.size;
+		this.collectedLength += other.collectedLength;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int getSupport(int i) {
+		return this.supports[i];
+	}
+
+	public int getLength(int i) {
+		return this.offsets[i + 1] - this.offsets[i];
+	}
+
+	/**
+	 * @return j-th item of pattern i
+	 */
+	public int getItem(int i, int j) {
+		return this.arena[this.offsets[i] + j];
+	}
+
+	/**
+	 * @return a copy of pattern i's items
+	 */
+	public int[] getPattern(int i) {
+		return Arrays.copyOfRange(this.arena, this.offsets[i],
+				this.offsets[i + 1]);
+	}
+
+	/**
+	 * @return pattern i in the historical format : [support, items..., 0]
+	 */
+	public int[] getLine(int i) {
+		final int start = this.offsets[i];
+		final int length = this.offsets[i + 1] - start;
+		int[] line = new int[length + 2];
+		line[0] = this.supports[i];
+		System.arraycopy(this.arena, start, line, 1, length);
+		return line;
+	}
+
+	/**
+	 * @return sum of patterns' lengths
+	 */
+	public long getCollectedLength() {
+		return this.collectedLength;
+	}
+
+	/**
+	 * Direct access to the arena, for bulk readers - valid indexes are given
+	 * by getOffset
+	 */
+	public int[] getArena() {
+		return this.arena;
+	}
+
+	/**
+	 * @return start of pattern i in the arena (getOffset(size()) is the end of
+	 *         the last pattern)
+	 */
+	public int getOffset(int i) {
+		return this.offsets[i];
+	}
+
+	/**
+	 * @return a read-only view of patterns as [support, items..., 0] arrays
+	 */
+	public List<int[]> lines() {
+		return new Lines(this);
+	}
+
+	/**
+	 * Sorts items of each pattern (in place), then patterns by decreasing
+	 * support and lexicographically. Patterns are ordered through a
+	 * permutation of their indexes, then copied once.
+	 *
+	 * @return a sorted copy
+	 */
+	public PackedPatterns sorted() {
+		int[] permutation = this.sortedOrder();
+
+		PackedPatterns sorted = new PackedPatterns(this.size,
+				this.offsets[this.size]);
+		for (int i : permutation) {
+			sorted.add(this.supports[i], this.arena, this.offsets[i],
+					this.offsets[i + 1]);
+		}
+		return sorted;
+	}
+
+	/**
+	 * Sorts items of each pattern (in place), then returns patterns' indexes
+	 * by decreasing support and lexicographic order, without moving patterns.
+	 */
+	public int[] sortedOrder() {
+		for (int i = 0; i < this.size; i++) {
+			Arrays.sort(this.arena, this.offsets[i], this.offsets[i + 1]);
+		}
+
+		int[] permutation = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			permutation[i] = i;
+		}
+		this.mergeSort(permutation, new int[this.size], 0, this.size);
+		return permutation;
+	}
+
+	/**
+	 * Removes all patterns, but keeps allocated arrays
+	 */
+	public void clear() {
+		this.size = 0;
+		this.collectedLength = 0;
+	}
+
+	/**
+	 * @return bytes used by stored patterns - arrays grow by doubling, so
+	 *         they may use up to twice as much
+	 */
+	public long getMemoryUsage() {
+		return 4L * (this.offsets[this.size] + 2L * this.size);
+	}
+
+	/**
+	 * Order used by sorted() : decreasing support, then items (which should be
+	 * sorted) in lexicographic order, a prefix coming first.
+	 *
+	 * @return a negative value if pattern a comes before pattern b
+	 */
+	public static int compare(int supportA, int[] a, int fromA, int toA,
+			int supportB, int[] b, int fromB, int toB) {
+		if (supportA != supportB) {
+			return (supportA > supportB) ? -1 : 1;
+		}
+		final int lengthA = toA - fromA;
+		final int lengthB = toB - fromB;
+		final int length = Math.min(lengthA, lengthB);
+		for (int i = 0; i < length; i++) {
+			final int itemA = a[fromA + i];
+			final int itemB = b[fromB + i];
+			if (itemA != itemB) {
+				return (itemA < itemB) ? -1 : 1;
+			}
+		}
+		return lengthA - lengthB;
+	}
+
+	/**
+	 * Shrinks arrays to their content
+	 */
+	public void trimToSize() {
+		if (this.supports.length > this.size) {
+			this.supports = Arrays.copyOf(this.supports, Math.max(this.size, 1));
+		}
+		if (this.offsets.length > this.size + 1) {
+			this.offsets = Arrays.copyOf(this.offsets, this.size + 1);
+		}
+		final int itemsCount = this.offsets[this.size];
+		if (this.arena.length > itemsCount) {
+			this.arena = Arrays.copyOf(this.arena, Math.max(itemsCount, 1));
+		}
+	}
+
+	/**
+	 * arrays are trimmed first, so they're written as they are, in bulk
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		this.trimToSize();
+		out.defaultWriteObject();
+	}
+
+	private void ensureCapacity(int patterns, int items) {
+		if (this.size + patterns > this.supports.length) {
+			int newLength = Math.max(this.size + patterns,
+					this.supports.length * 2);
+			this.supports = Arrays.copyOf(this.supports, newLength);
+			this.offsets = Arrays.copyOf(this.offsets, newLength + 1);
+		}
+
+		final long needed = (long) this.offsets[this.size] + items;
+		if (needed > this.arena.length) {
+			if (needed > Integer.MAX_VALUE - 8) {
+				throw new RuntimeException(
+						"Packed patterns can't contain more than 2^31 items");
+			}
+			this.arena = Arrays.copyOf(this.arena, (int) Math.min(
+					Math.max(needed, (long) this.arena.length * 2),
+					Integer.MAX_VALUE - 8));
+		}
+	}
+
+	/**
+	 * decreasing support, then items in lexicographic order
+	 */
+	private int compare(int a, int b) {
+		return compare(this.supports[a], this.arena, this.offsets[a],
+				this.offsets[a + 1], this.supports[b], this.arena,
+				this.offsets[b], this.offsets[b + 1]);
+	}
+
+	private void mergeSort(int[] indexes, int[] tmp, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		final int middle = (from + to) >>> 1;
+		this.mergeSort(indexes, tmp, from, middle);
+		this.mergeSort(indexes, tmp, middle, to);
+
+		if (this.compare(indexes[middle - 1], indexes[middle]) <= 0) {
+			return;
+		}
+
+		System.arraycopy(indexes, from, tmp, from, to - from);
+		int i = from;
+		int j = middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < middle && this.compare(tmp[i], tmp[j]) <= 0)) {
+				indexes[k] = tmp[i++];
+			} else {
+				indexes[k] = tmp[j++];
+			}
+		}
+	}
+
+	/**
+	 * view given by lines()
+	 */
+	public static final class Lines extends AbstractList<int[]> implements
+			RandomAccess {
+
+		private final PackedPatterns patterns;
+
+		Lines(PackedPatterns patterns) {
+			this.patterns = patterns;
+		}
+
+		public PackedPatterns getPatterns() {
+			return this.patterns;
+		}
+
+		@Override
+		public int[] get(int index) {
+			if (index < 0 || index >= this.patterns.size) {
+				throw new IndexOutOfBoundsException("index " + index
+						+ ", size " + this.patterns.size);
+			}
+			return this.patterns.getLine(index);
+		}
+
+		@Override
+		public int size() {
+			return this.patterns.size;
+		}
+	}
+}
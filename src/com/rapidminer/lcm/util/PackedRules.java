@@ -0,0 +1,216 @@
+package com.rapidminer.lcm.util;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Association rules stored as PackedPatterns does : items of all rules are in
+ * a single arena, rule i being in [offsets[i], offsets[i+1][ with its premise
+ * first, then its conclusion. Measures are in parallel arrays.
+ *
+ * Not thread-safe : each thread should fill its own instance, which can then
+ * be concatenated with addAll.
+ */
+public final class PackedRules implements Serializable {
+
+	private static final long serialVersionUID = 2630418117508232961L;
+
+	private int[] arena;
+	private int[] offsets;
+	private int[] premiseLengths;
+	private int[] supports;
+	private double[] confidences;
+	private double[] lifts;
+
+	private int size = 0;
+
+	/**
+	 * @param rules
+	 *            initial rules capacity
+	 * @param items
+	 *            initial arena capacity
+	 */
+	public PackedRules(int rules, int items) {
+		rules = Math.max(rules, 1);
+		this.arena = new int[Math.max(items, 1)];
+		this.offsets = new int[rules + 1];
+		this.premiseLengths = new int[rules];
+		this.supports = new int[rules];
+		this.confidences = new double[rules];
+		this.lifts = new double[rules];
+	}
+
+	public PackedRules() {
+		this(1024, 4096);
+	}
+
+	/**
+	 * Adds the rule premise => conclusion
+	 *
+	 * @param support
+	 *            support of premise UNION conclusion
+	 */
+	public void add(int[] premise, int premiseLength, int[] conclusion,
+			int conclusionLength, int support, double confidence, double lift) {
+		this.ensureCapacity(1, premiseLength + conclusionLength);
+
+		final int start = this.offsets[this.size];
+		System.arraycopy(premise, 0, this.arena, start, premiseLength);
+		System.arraycopy(conclusion, 0, this.arena, start + premiseLength,
+				conclusionLength);
+		this.premiseLengths[this.size] = premiseLength;
+		this.supports[this.size] = support;
+		this.confidences[this.size] = confidence;
+		this.lifts[this.size] = lift;
+		this.size++;
+		this.offsets[this.size] = start + premiseLength + conclusionLength;
+	}
+
+	public void addAll(PackedRules other) {
+		final int itemsCount = other.offsets[other.size];
+		this.ensureCapacity(other.size, itemsCount);
+
+		final int start = this.offsets[this.size];
+		System.arraycopy(other.arena, 0, this.arena, start, itemsCount);
+		System.arraycopy(other.premiseLengths, 0, this.premiseLengths,
+				this.size, other.size);
+		System.arraycopy(other.supports, 0, this.supports, this.size,
+				other.size);
+		System.arraycopy(other.confidences, 0, this.confidences, this.size,
+				other.size);
+		System.arraycopy(other.lifts, 0, this.lifts, this.size, other.size);
+		for (int i = 1; i <= other.size; i++) {
+			this.offsets[this.size + i] = start + other.offsets[i];
+		}
+		this.size += other.size;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int getSupport(int i) {
+		return this.supports[i];
+	}
+
+	public double getConfidence(int i) {
+		return this.confidences[i];
+	}
+
+	/**
+	 * @return rule i's lift, NaN if it's unknown
+	 */
+	public double getLift(int i) {
+		return this.lifts[i];
+	}
+
+	public int getPremiseLength(int i) {
+		return this.premiseLengths[i];
+	}
+
+	public int getConclusionLength(int i) {
+		return this.offsets[i + 1] - this.offsets[i] - this.premiseLengths[i];
+	}
+
+	/**
+	 * @return j-th item of rule i's premise
+	 */
+	public int getPremiseItem(int i, int j) {
+		return this.arena[this.offsets[i] + j];
+	}
+
+	/**
+	 * @return j-th item of rule i's conclusion
+	 */
+	public int getConclusionItem(int i, int j) {
+		return this.arena[this.offsets[i] + this.premiseLengths[i] + j];
+	}
+
+	/**
+	 * @return a copy of rule i's premise
+	 */
+	public int[] getPremise(int i) {
+		return Arrays.copyOfRange(this.arena, this.offsets[i], this.offsets[i]
+				+ this.premiseLengths[i]);
+	}
+
+	/**
+	 * @return a copy of rule i's conclusion
+	 */
+	public int[] getConclusion(int i) {
+		return Arrays.copyOfRange(this.arena, this.offsets[i]
+				+ this.premiseLengths[i], this.offsets[i + 1]);
+	}
+
+	/**
+	 * @return sum of rules' lengths
+	 */
+	public int getItemsCount() {
+		return this.offsets[this.size];
+	}
+
+	/**
+	 * @return length of the longest premise
+	 */
+	public int getMaxPremiseLength() {
+		int max = 0;
+		for (int i = 0; i < this.size; i++) {
+			max = Math.max(max, this.premiseLengths[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * @return length of the longest conclusion
+	 */
+	public int getMaxConclusionLength() {
+		int max = 0;
+		for (int i = 0; i < this.size; i++) {
+			max = Math.max(max, this.getConclusionLength(i));
+		}
+		return max;
+	}
+
+	/**
+	 * Shrinks arrays to their content
+	 */
+	public void trimToSize() {
+		this.arena = Arrays.copyOf(this.arena,
+				Math.max(this.offsets[this.size], 1));
+		this.offsets = Arrays.copyOf(this.offsets, this.size + 1);
+		this.premiseLengths = Arrays.copyOf(this.premiseLengths, this.size);
+		this.supports = Arrays.copyOf(this.supports, this.size);
+		this.confidences = Arrays.copyOf(this.confidences, this.size);
+		this.lifts = Arrays.copyOf(this.lifts, this.size);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		this.trimToSize();
+		out.defaultWriteObject();
+	}
+
+	private void ensureCapacity(int rules, int items) {
+		if (this.size + rules > this.supports.length) {
+			int newLength = Math.max(this.size + rules,
+					this.supports.length * 2);
+			this.offsets = Arrays.copyOf(this.offsets, newLength + 1);
+			this.premiseLengths = Arrays.copyOf(this.premiseLengths, newLength);
+			this.supports = Arrays.copyOf(this.supports, newLength);
+			this.confidences = Arrays.copyOf(this.confidences, newLength);
+			this.lifts = Arrays.copyOf(this.lifts, newLength);
+		}
+
+		final long needed = (long) this.offsets[this.size] + items;
+		if (needed > this.arena.length) {
+			if (needed > Integer.MAX_VALUE - 8) {
+				throw new RuntimeException(
+						"Packed rules can't contain more than 2^31 items");
+			}
+			this.arena = Arrays.copyOf(this.arena, (int) Math.min(
+					Math.max(needed, (long) this.arena.length * 2),
+					Integer.MAX_VALUE - 8));
+		}
+	}
+}
@@ -0,0 +1,545 @@
+package com.rapidminer.lcm.util;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Mining results stored as a prefix tree of (item, support) nodes having a
+ * pointer to their parent.
+ *
+ * ExplorationStep builds each pattern as [closure..., extension, parent's
+ * pattern...] (see ItemsetsFactory.extendRename), so patterns are inserted
+ * from their last item to their first one : the parent's pattern is then a
+ * path already present in the tree, and each new pattern only adds a node per
+ * new item. Going up from a node to the root gives the pattern back in its
+ * original order.
+ *
+ * A node's support is the support of the itemset along its path : nodes added
+ * for a pattern's closure items all have the pattern's support, so any node
+ * can answer getSupport(), but only "closed" nodes are outputted patterns.
+ *
+ * insert() can be called concurrently : children arrays are sorted by item and
+ * replaced (copy-on-write) under the parent node's lock, so reads never lock.
+ * Patterns are only materialized when iterating.
+ *
+ * getSupport() uses an item => nodes index, built by the first lookup
+ * following an insertion.
+ */
+public final class PatternTree implements Serializable {
+
+	private static final long serialVersionUID = 3378405617016590562L;
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private transient Node root = new Node(-1, null, 0);
+
+	private transient volatile NodesIndex index = null;
+
+	/**
+	 * Inserts pattern, read from its last item to the first one
+	 */
+	public void insert(final int support, final int[] pattern) {
+		Node node = this.root;
+		for (int i = pattern.length - 1; i >= 0; i--) {
+			node = node.child(pattern[i], support);
+		}
+		if (node != this.root) {
+			node.support = support;
+			node.closed = true;
+		}
+		if (this.index != null) {
+			this.index = null;
+		}
+	}
+
+	/**
+	 * Support of any itemset, in any order. Results are exact for itemsets
+	 * having at least the mining's minimum support, provided all patterns
+	 * were inserted.
+	 *
+	 * The tree is first searched for a path made of exactly these items,
+	 * which only follows children among itemset. Otherwise, the support is
+	 * the highest one among nodes whose path contains itemset (the support of
+	 * its closure). Such a path goes through a node of each of itemset's
+	 * items, so only subtrees rooted at nodes of its least present item are
+	 * searched, by decreasing support, and subtrees having a lower support
+	 * than the best one found so far are skipped. A miss costs at most the
+	 * size of these subtrees, not the tree's.
+	 *
+	 * @param itemset
+	 *            not empty
+	 * @return itemset's support, or 0 if it's not frequent
+	 */
+	public int getSupport(final int[] itemset) {
+		int[] sorted = Arrays.copyOf(itemset, itemset.length);
+		Arrays.sort(sorted);
+
+		Node exact = findPath(this.root, sorted, 0);
+		if (exact != null) {
+			return exact.support;
+		}
+
+		NodesIndex nodesIndex = this.index;
+		if (nodesIndex == null) {
+			nodesIndex = new NodesIndex(this.root);
+			this.index = nodesIndex;
+		}
+
+		Node[] starts = null;
+		for (int item : sorted) {
+			Node[] nodes = nodesIndex.get(item);
+			if (nodes == null) {
+				return 0;
+			}
+			if (starts == null || nodes.length < starts.length) {
+				starts = nodes;
+			}
+		}
+
+		int best = 0;
+		for (Node start : starts) {
+			if (start.support <= best) {
+				// starts are sorted by decreasing support
+				break;
+			}
+			int matched = 0;
+			for (Node node = start; node.parent != null; node = node.parent) {
+				if (Arrays.binarySearch(sorted, node.item) >= 0) {
+					matched++;
+				}
+			}
+			if (matched == sorted.length) {
+				best = start.support;
+			} else {
+				best = bestSuperset(start, sorted, matched, best);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if itemset is one of the inserted patterns
+	 */
+	public boolean contains(final int[] itemset) {
+		int[] sorted = Arrays.copyOf(itemset, itemset.length);
+		Arrays.sort(sorted);
+		Node exact = findPath(this.root, sorted, 0);
+		return exact != null && exact.closed;
+	}
+
+	private static Node findPath(Node node, int[] sorted, int depth) {
+		if (depth == sorted.length) {
+			return node;
+		}
+		Node[] children = node.children;
+		for (int item : sorted) {
+			int pos = Node.search(children, item);
+			if (pos >= 0) {
+				Node found = findPath(children[pos], sorted, depth + 1);
+				if (found != null) {
+					return found;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int bestSuperset(Node node, int[] sorted, int matched,
+			int best) {
+		for (Node child : node.children) {
+			if (child.support <= best) {
+				continue;
+			}
+			int childMatched = matched;
+			if (Arrays.binarySearch(sorted, child.item) >= 0) {
+				childMatched++;
+			}
+			if (childMatched == sorted.length) {
+				// descendants can't have a higher support
+				best = child.support;
+			} else {
+				best = bestSuperset(child, sorted, childMatched, best);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return inserted patterns count (this walks the whole tree)
+	 */
+	public long size() {
+		long count = 0;
+		Iterator<Node> nodes = new ClosedNodesIterator();
+		while (nodes.hasNext()) {
+			nodes.next();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return sum of inserted patterns' lengths (this walks the whole tree)
+	 */
+	public long getCollectedLength() {
+		long length = 0;
+		Iterator<Node> nodes = new ClosedNodesIterator();
+		while (nodes.hasNext()) {
+			length += nodes.next().depth();
+		}
+		return length;
+	}
+
+	/**
+	 * @return nodes count, excluding the root
+	 */
+	public long getNodesCount() {
+		long count = 0;
+		ArrayList<Node> stack = new ArrayList<Node>();
+		stack.add(this.root);
+		while (!stack.isEmpty()) {
+			Node node = stack.remove(stack.size() - 1);
+			count += node.children.length;
+			stack.addAll(Arrays.asList(node.children));
+		}
+		return count;
+	}
+
+	/**
+	 * @return patterns as [support, items..., 0] arrays, each one created
+	 *         when next() is called. Items are in their insertion order, and
+	 *         patterns in depth-first order with children sorted by item, so
+	 *         the order only depends on the tree's content.
+	 */
+	public Iterator<int[]> iterator() {
+		final Iterator<Node> nodes = new ClosedNodesIterator();
+		return new Iterator<int[]>() {
+			@Override
+			public boolean hasNext() {
+				return nodes.hasNext();
+			}
+
+			@Override
+			public int[] next() {
+				return nodes.next().getLine();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return a read-only view of patterns as [support, items..., 0] arrays,
+	 *         in iterator()'s order. It only references closed nodes inserted
+	 *         before this call ; each of its get() allocates the returned
+	 *         array.
+	 */
+	public List<int[]> lines() {
+		ArrayList<Node> closed = new ArrayList<Node>();
+		Iterator<Node> nodes = new ClosedNodesIterator();
+		while (nodes.hasNext()) {
+			closed.add(nodes.next());
+		}
+		return new Lines(closed.toArray(new Node[closed.size()]));
+	}
+
+	/**
+	 * @return a copy of all patterns, packed
+	 */
+	public PackedPatterns toPackedPatterns() {
+		PackedPatterns packed = new PackedPatterns();
+		Iterator<int[]> iterator = this.iterator();
+		while (iterator.hasNext()) {
+			int[] line = iterator.next();
+			packed.add(line[0], line, 1, line.length - 1);
+		}
+		return packed;
+	}
+
+	/**
+	 * Nodes are written in depth-first order, each as variable-length
+	 * integers : its item, its support (shifted left, the lowest bit telling
+	 * if it's closed) and its children count. A prefix shared by many
+	 * patterns is written once.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		writeNode(out, this.root);
+	}
+
+	private static void writeNode(ObjectOutputStream out, Node node)
+			throws IOException {
+		Node[] children = node.children;
+		writeVInt(out, children.length);
+		for (Node child : children) {
+			writeVInt(out, child.item);
+			writeVInt(out, (child.support << 1) | (child.closed ? 1 : 0));
+			writeNode(out, child);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.root = new Node(-1, null, 0);
+		readNode(in, this.root);
+	}
+
+	private static void readNode(ObjectInputStream in, Node node)
+			throws IOException {
+		Node[] children = new Node[readVInt(in)];
+		for (int i = 0; i < children.length; i++) {
+			int item = readVInt(in);
+			int support = readVInt(in);
+			children[i] = new Node(item, node, support >>> 1);
+			children[i].closed = (support & 1) != 0;
+			readNode(in, children[i]);
+		}
+		node.children = (children.length == 0) ? NO_CHILDREN : children;
+	}
+
+	private static void writeVInt(ObjectOutputStream out, int val)
+			throws IOException {
+		while ((val & ~0x7F) != 0) {
+			out.write((val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		out.write(val);
+	}
+
+	private static int readVInt(ObjectInputStream in) throws IOException {
+		int b = in.readUnsignedByte();
+		int res = b & 0x7F;
+		int shift = 7;
+		while ((b & 0x80) != 0) {
+			b = in.readUnsignedByte();
+			res |= (b & 0x7F) << shift;
+			shift += 7;
+		}
+		return res;
+	}
+
+	private static final class Node {
+		final int item;
+		final Node parent;
+
+		volatile int support;
+		volatile boolean closed = false;
+
+		/**
+		 * sorted by item, replaced as a whole when a child is added
+		 */
+		volatile Node[] children = NO_CHILDREN;
+
+		Node(int item, Node parent, int support) {
+			this.item = item;
+			this.parent = parent;
+			this.support = support;
+		}
+
+		/**
+		 * @return the child having this item, created with the given support
+		 *         if needed
+		 */
+		Node child(final int childItem, final int childSupport) {
+			Node[] current = this.children;
+			int pos = search(current, childItem);
+			if (pos >= 0) {
+				return current[pos];
+			}
+
+			synchronized (this) {
+				current = this.children;
+				pos = search(current, childItem);
+				if (pos >= 0) {
+					return current[pos];
+				}
+				pos = -pos - 1;
+
+				Node created = new Node(childItem, this, childSupport);
+				Node[] grown = new Node[current.length + 1];
+				System.arraycopy(current, 0, grown, 0, pos);
+				grown[pos] = created;
+				System.arraycopy(current, pos, grown, pos + 1, current.length
+						- pos);
+				this.children = grown;
+				return created;
+			}
+		}
+
+		int depth() {
+			int depth = 0;
+			for (Node node = this; node.parent != null; node = node.parent) {
+				depth++;
+			}
+			return depth;
+		}
+
+		/**
+		 * @return [support, items..., 0], items being read up to the root
+		 */
+		int[] getLine() {
+			int[] line = new int[this.depth() + 2];
+			line[0] = this.support;
+			int i = 1;
+			for (Node node = this; node.parent != null; node = node.parent) {
+				line[i++] = node.item;
+			}
+			return line;
+		}
+
+		private static int search(Node[] nodes, int item) {
+			int low = 0;
+			int high = nodes.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int middleItem = nodes[middle].item;
+				if (middleItem < item) {
+					low = middle + 1;
+				} else if (middleItem > item) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+	/**
+	 * item => all nodes having this item, by decreasing support. It's a
+	 * snapshot : insert() drops it.
+	 */
+	private static final class NodesIndex {
+
+		/**
+		 * item => its index in nodes
+		 */
+		private final TIntIntHashMap items = new TIntIntHashMap(1024, 0.5f,
+				-1, -1);
+
+		private final Node[][] nodes;
+
+		private static final Comparator<Node> BY_DECREASING_SUPPORT = new Comparator<Node>() {
+			@Override
+			public int compare(Node a, Node b) {
+				return b.support - a.support;
+			}
+		};
+
+		NodesIndex(Node root) {
+			ArrayList<ArrayList<Node>> lists = new ArrayList<ArrayList<Node>>();
+			ArrayList<Node> stack = new ArrayList<Node>();
+			stack.add(root);
+			while (!stack.isEmpty()) {
+				Node node = stack.remove(stack.size() - 1);
+				for (Node child : node.children) {
+					int index = this.items.get(child.item);
+					if (index < 0) {
+						index = lists.size();
+						this.items.put(child.item, index);
+						lists.add(new ArrayList<Node>());
+					}
+					lists.get(index).add(child);
+					stack.add(child);
+				}
+			}
+
+			this.nodes = new Node[lists.size()][];
+			for (int i = 0; i < this.nodes.length; i++) {
+				Node[] sorted = lists.get(i).toArray(
+						new Node[lists.get(i).size()]);
+				Arrays.sort(sorted, BY_DECREASING_SUPPORT);
+				this.nodes[i] = sorted;
+			}
+		}
+
+		/**
+		 * @return nodes having this item, or null
+		 */
+		Node[] get(int item) {
+			int index = this.items.get(item);
+			return (index < 0) ? null : this.nodes[index];
+		}
+	}
+
+	/**
+	 * depth-first, over closed nodes only
+	 */
+	private final class ClosedNodesIterator implements Iterator<Node> {
+		private final ArrayList<Node> stack = new ArrayList<Node>();
+		private Node next = null;
+
+		ClosedNodesIterator() {
+			this.pushChildren(root);
+		}
+
+		private void pushChildren(Node node) {
+			Node[] children = node.children;
+			for (int i = children.length - 1; i >= 0; i--) {
+				this.stack.add(children[i]);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.next == null && !this.stack.isEmpty()) {
+				Node node = this.stack.remove(this.stack.size() - 1);
+				this.pushChildren(node);
+				if (node.closed) {
+					this.next = node;
+				}
+			}
+			return this.next != null;
+		}
+
+		@Override
+		public Node next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Node node = this.next;
+			this.next = null;
+			return node;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final class Lines extends AbstractList<int[]> implements
+			RandomAccess {
+
+		private final Node[] nodes;
+
+		Lines(Node[] nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		public int[] get(int index) {
+			return this.nodes[index].getLine();
+		}
+
+		@Override
+		public int size() {
+			return this.nodes.length;
+		}
+	}
+}
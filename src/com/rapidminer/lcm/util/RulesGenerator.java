@@ -0,0 +1,258 @@
+package com.rapidminer.lcm.util;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates association rules from closed patterns, without reading
+ * transactions again : supports of premises and conclusions are found in a
+ * SupportIndex.
+ *
+ * Each closed pattern Z gives the rules X => Z \ X. Other rules are
+ * redundant : X => Y has the same support and confidence as X => closure(X
+ * UNION Y) \ X. Conclusions of a pattern are enumerated by increasing size,
+ * as bit masks over its items, and a conclusion is only extended if its rule
+ * reached the minimum confidence : moving an item from the premise to the
+ * conclusion can only lower the confidence. The minimum lift is a filter on
+ * outputted rules.
+ *
+ * Patterns are split in chunks, which threads take in turn, and rules are
+ * concatenated in chunks' order so the result doesn't depend on threads.
+ *
+ * Patterns must be all closed patterns at their support, otherwise supports
+ * found in the index are wrong : RMRulesGenerator only accepts results marked
+ * as complete. A premise or conclusion missing from the index makes generate()
+ * throw an IllegalStateException, rather than output infinite confidences or
+ * lifts.
+ */
+public final class RulesGenerator {
+
+	/**
+	 * conclusions are masks in a long
+	 */
+	public static final int MAX_PATTERN_LENGTH = 63;
+
+	private static final int CHUNK_SIZE = 256;
+
+	private final PackedPatterns patterns;
+	private final SupportIndex index;
+	private final int minSupport;
+	private final int transactionsCount;
+	private final double minConfidence;
+	private final double minLift;
+	private final int maxLength;
+
+	/**
+	 * @param minSupport
+	 *            patterns having a lower support don't give rules
+	 * @param transactionsCount
+	 *            needed to compute lifts : if it's 0, lifts are NaN and
+	 *            minLift is ignored
+	 * @param maxLength
+	 *            longer patterns don't give rules, at most
+	 *            MAX_PATTERN_LENGTH
+	 */
+	public RulesGenerator(PackedPatterns patterns, int minSupport,
+			int transactionsCount, double minConfidence, double minLift,
+			int maxLength) {
+		this.patterns = patterns;
+		this.index = new SupportIndex(patterns);
+		this.minSupport = minSupport;
+		this.transactionsCount = transactionsCount;
+		this.minConfidence = minConfidence;
+		this.minLift = minLift;
+		this.maxLength = Math.min(maxLength, MAX_PATTERN_LENGTH);
+	}
+
+	public SupportIndex getIndex() {
+		return this.index;
+	}
+
+	public PackedRules generate(int nbThreads) {
+		final int chunks = (this.patterns.size() + CHUNK_SIZE - 1)
+				/ CHUNK_SIZE;
+		final PackedRules[] results = new PackedRules[chunks];
+		final AtomicInteger nextChunk = new AtomicInteger(0);
+
+		nbThreads = Math.max(1, Math.min(nbThreads, chunks));
+		RulesThread[] threads = new RulesThread[nbThreads];
+		for (int i = 0; i < nbThreads; i++) {
+			threads[i] = new RulesThread(i, nextChunk, results);
+			threads[i].start();
+		}
+
+		long rules = 0;
+		long items = 0;
+		for (RulesThread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if (t.error != null) {
+				throw t.error;
+			}
+			rules += t.rules;
+			items += t.items;
+		}
+
+		PackedRules all = new PackedRules((int) Math.min(rules,
+				Integer.MAX_VALUE - 8), (int) Math.min(items,
+				Integer.MAX_VALUE - 8));
+		for (PackedRules chunk : results) {
+			all.addAll(chunk);
+		}
+		return all;
+	}
+
+	private final class RulesThread extends Thread {
+		private final AtomicInteger nextChunk;
+		private final PackedRules[] results;
+
+		private final int[] pattern = new int[MAX_PATTERN_LENGTH];
+		private final int[] premise = new int[MAX_PATTERN_LENGTH];
+		private final int[] conclusion = new int[MAX_PATTERN_LENGTH];
+
+		private TLongArrayList level = new TLongArrayList();
+		private TLongArrayList nextLevel = new TLongArrayList();
+		private final TLongHashSet kept = new TLongHashSet();
+
+		private PackedRules output;
+
+		long rules = 0;
+		long items = 0;
+		RuntimeException error = null;
+
+		RulesThread(int id, AtomicInteger nextChunk, PackedRules[] results) {
+			super("RulesGenerator" + id);
+			this.nextChunk = nextChunk;
+			this.results = results;
+		}
+
+		@Override
+		public void run() {
+			try {
+				int chunk;
+				while ((chunk = this.nextChunk.getAndIncrement()) < this.results.length) {
+					this.output = new PackedRules(64, 256);
+					final int from = chunk * CHUNK_SIZE;
+					final int to = Math.min(from + CHUNK_SIZE,
+							patterns.size());
+					for (int i = from; i < to; i++) {
+						this.generate(i);
+					}
+					this.output.trimToSize();
+					this.results[chunk] = this.output;
+					this.rules += this.output.size();
+					this.items += this.output.getItemsCount();
+				}
+			} catch (RuntimeException e) {
+				this.error = e;
+			}
+		}
+
+		/**
+		 * Rules given by pattern i
+		 */
+		private void generate(int i) {
+			final int length = patterns.getLength(i);
+			final int support = patterns.getSupport(i);
+			if (length < 2 || length > maxLength || support < minSupport) {
+				return;
+			}
+			for (int j = 0; j < length; j++) {
+				this.pattern[j] = patterns.getItem(i, j);
+			}
+
+			this.level.resetQuick();
+			for (int b = 0; b < length; b++) {
+				if (this.evaluate(length, support, 1L << b)) {
+					this.level.add(1L << b);
+				}
+			}
+
+			// conclusions of size k + 1, from those of size k having reached
+			// the minimum confidence
+			for (int k = 1; k + 1 < length && !this.level.isEmpty(); k++) {
+				this.kept.clear();
+				this.kept.addAll(this.level);
+				this.nextLevel.resetQuick();
+
+				for (int m = 0; m < this.level.size(); m++) {
+					final long mask = this.level.getQuick(m);
+					final int highest = 63 - Long.numberOfLeadingZeros(mask);
+
+					// each candidate is built from its subset without its
+					// highest item
+					candidates: for (int b = highest + 1; b < length; b++) {
+						final long candidate = mask | (1L << b);
+						long others = mask;
+						while (others != 0) {
+							final long bit = Long.lowestOneBit(others);
+							others ^= bit;
+							if (!this.kept.contains(candidate ^ bit)) {
+								continue candidates;
+							}
+						}
+						if (this.evaluate(length, support, candidate)) {
+							this.nextLevel.add(candidate);
+						}
+					}
+				}
+
+				TLongArrayList swap = this.level;
+				this.level = this.nextLevel;
+				this.nextLevel = swap;
+			}
+		}
+
+		/**
+		 * Outputs the rule whose conclusion is given by mask if it has enough
+		 * lift
+		 *
+		 * @return true if it has enough confidence
+		 */
+		private boolean evaluate(int length, int support, long mask) {
+			int premiseLength = 0;
+			int conclusionLength = 0;
+			for (int b = 0; b < length; b++) {
+				if ((mask & (1L << b)) == 0) {
+					this.premise[premiseLength++] = this.pattern[b];
+				} else {
+					this.conclusion[conclusionLength++] = this.pattern[b];
+				}
+			}
+
+			final int premiseSupport = index.getSupport(this.premise,
+					premiseLength);
+			if (premiseSupport == 0) {
+				throw new IllegalStateException(
+						"no pattern contains a premise : patterns are not all closed patterns at their support");
+			}
+			final double confidence = (double) support / premiseSupport;
+			if (confidence < minConfidence) {
+				return false;
+			}
+
+			double lift = Double.NaN;
+			if (transactionsCount > 0) {
+				final int conclusionSupport = index.getSupport(
+						this.conclusion, conclusionLength);
+				if (conclusionSupport == 0) {
+					throw new IllegalStateException(
+							"no pattern contains a conclusion : patterns are not all closed patterns at their support");
+				}
+				lift = confidence * transactionsCount / conclusionSupport;
+				if (lift < minLift) {
+					return true;
+				}
+			}
+
+			this.output.add(this.premise, premiseLength, this.conclusion,
+					conclusionLength, support, confidence, lift);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package com.rapidminer.lcm.util;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Gives the support of any itemset from closed patterns only : an itemset's
+ * support is the support of its closure, which is its most frequent closed
+ * superset.
+ *
+ * Patterns are ranked by decreasing support, and each item has the sorted
+ * list of ranks of patterns containing it. The first rank common to all lists
+ * of an itemset's items is its closure, so lookups intersect these lists and
+ * stop at the first match. Checking whether an itemset is closed continues
+ * the intersection while supports are at least the itemset's.
+ *
+ * Read-only once built, so it can be used by several threads.
+ */
+public final class SupportIndex {
+
+	/**
+	 * item => its index in postings
+	 */
+	private final TIntIntHashMap items;
+
+	/**
+	 * ranks of patterns containing each item, ascending
+	 */
+	private final int[][] postings;
+
+	/**
+	 * pattern rank => support
+	 */
+	private final int[] supports;
+
+	/**
+	 * pattern rank => length
+	 */
+	private final int[] lengths;
+
+	public SupportIndex(PackedPatterns patterns) {
+		final int size = patterns.size();
+
+		// ranks, by decreasing support : patterns aren't modified, so
+		// sortedOrder() isn't used
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = ((long) (Integer.MAX_VALUE - patterns.getSupport(i)) << 32)
+					| i;
+		}
+		Arrays.sort(keys);
+		int[] order = new int[size];
+		this.supports = new int[size];
+		this.lengths = new int[size];
+		for (int rank = 0; rank < size; rank++) {
+			order[rank] = (int) keys[rank];
+			this.supports[rank] = patterns.getSupport(order[rank]);
+			this.lengths[rank] = patterns.getLength(order[rank]);
+		}
+
+		this.items = new TIntIntHashMap(1024, 0.5f, -1, -1);
+		int[] counts = new int[1024];
+		final int[] arena = patterns.getArena();
+		final int end = patterns.getOffset(size);
+		for (int j = 0; j < end; j++) {
+			int index = this.items.get(arena[j]);
+			if (index < 0) {
+				index = this.items.size();
+				this.items.put(arena[j], index);
+				if (index == counts.length) {
+					counts = Arrays.copyOf(counts, index * 2);
+				}
+			}
+			counts[index]++;
+		}
+
+		this.postings = new int[this.items.size()][];
+		for (int i = 0; i < this.postings.length; i++) {
+			this.postings[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int rank = 0; rank < size; rank++) {
+			final int i = order[rank];
+			for (int j = patterns.getOffset(i); j < patterns.getOffset(i + 1); j++) {
+				final int index = this.items.get(arena[j]);
+				this.postings[index][counts[index]++] = rank;
+			}
+		}
+	}
+
+	/**
+	 * @param length
+	 *            at least 1
+	 * @return support of itemset[0, length[, or 0 if no pattern contains it
+	 */
+	public int getSupport(final int[] itemset, final int length) {
+		int rank = this.nextCommonRank(itemset, length, new int[length], -1);
+		return (rank < 0) ? 0 : this.supports[rank];
+	}
+
+	/**
+	 * @param length
+	 *            at least 1
+	 * @return true if a pattern with more items than itemset[0, length[
+	 *         contains it and has this support - itemset isn't closed then
+	 */
+	public boolean hasLongerSuperset(final int[] itemset, final int length,
+			final int support) {
+		final int[] cursors = new int[length];
+		int rank = this.nextCommonRank(itemset, length, cursors, -1);
+		while (rank >= 0 && this.supports[rank] >= support) {
+			if (this.supports[rank] == support && this.lengths[rank] > length) {
+				return true;
+			}
+			rank = this.nextCommonRank(itemset, length, cursors, rank);
+		}
+		return false;
+	}
+
+	/**
+	 * @param cursors
+	 *            lower bounds in the items' lists, kept from one call to the
+	 *            next since ranks are increasing
+	 * @return the first rank after previous contained in all lists of
+	 *         itemset[0, length[ items, or -1
+	 */
+	private int nextCommonRank(final int[] itemset, final int length,
+			final int[] cursors, final int previous) {
+		int[][] lists = new int[length][];
+		int shortest = 0;
+		for (int i = 0; i < length; i++) {
+			final int index = this.items.get(itemset[i]);
+			if (index < 0) {
+				return -1;
+			}
+			lists[i] = this.postings[index];
+			if (lists[i].length < lists[shortest].length) {
+				shortest = i;
+			}
+		}
+
+		final int[] driver = lists[shortest];
+		int start = Arrays.binarySearch(driver, previous + 1);
+		if (start < 0) {
+			start = -start - 1;
+		}
+
+		candidates: for (int d = start; d < driver.length; d++) {
+			final int rank = driver[d];
+			for (int i = 0; i < length; i++) {
+				if (i == shortest) {
+					continue;
+				}
+				final int[] list = lists[i];
+				int pos = Arrays.binarySearch(list, cursors[i],
+						list.length, rank);
+				if (pos < 0) {
+					pos = -pos - 1;
+					if (pos == list.length) {
+						// no more rank in this list
+						return -1;
+					}
+					cursors[i] = pos;
+					continue candidates;
+				}
+				cursors[i] = pos;
+			}
+			return rank;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return indexed patterns count
+	 */
+	public int size() {
+		return this.supports.length;
+	}
+}
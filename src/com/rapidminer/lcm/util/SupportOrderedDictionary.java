@@ -0,0 +1,255 @@
+package com.rapidminer.lcm.util;
+
+import gnu.trove.iterator.TObjectIntIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A dictionary between string items and the integer identifiers given to
+ * PLCM.
+ *
+ * Identifiers are assigned by decreasing support count (ties are broken by
+ * lexicographic order), so 0 is the most frequent item. This is the order in
+ * which the root Counters renames items, therefore its renaming becomes the
+ * identity, except for a shift caused by items belonging to the closure. Items
+ * occurring less than minimumSupport times get no identifier and are dropped
+ * from encoded transactions.
+ *
+ * Counting and encoding are done in parallel, each thread handling a range of
+ * transactions.
+ */
+public final class SupportOrderedDictionary {
+
+	/**
+	 * Returned by getId for unknown or infrequent items
+	 */
+	public static final int NO_ID = -1;
+
+	/**
+	 * string => identifier
+	 */
+	private final TObjectIntHashMap<String> ids;
+
+	/**
+	 * identifier => string
+	 */
+	private final String[] labels;
+
+	/**
+	 * identifier => support count
+	 */
+	private final int[] supports;
+
+	private SupportOrderedDictionary(TObjectIntHashMap<String> ids,
+			String[] labels, int[] supports) {
+		this.ids = ids;
+		this.labels = labels;
+		this.supports = supports;
+	}
+
+	/**
+	 * Counts items' support over the given transactions and assigns them an
+	 * identifier.
+	 *
+	 * @param transactions
+	 * @param minimumSupport
+	 *            items below this support count will be ignored
+	 * @param nbThreads
+	 */
+	public static SupportOrderedDictionary build(
+			final List<ArrayList<String>> transactions,
+			final int minimumSupport, final int nbThreads) {
+
+		CountingThread[] threads = new CountingThread[getThreadsCount(
+				transactions.size(), nbThreads)];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new CountingThread(transactions, rangeStart(
+					transactions.size(), threads.length, i), rangeStart(
+					transactions.size(), threads.length, i + 1));
+			threads[i].start();
+		}
+
+		TObjectIntHashMap<String> counts = null;
+		for (CountingThread t : threads) {
+			join(t);
+			if (counts == null) {
+				counts = t.counts;
+			} else {
+				TObjectIntIterator<String> iterator = t.counts.iterator();
+				while (iterator.hasNext()) {
+					iterator.advance();
+					counts.adjustOrPutValue(iterator.key(), iterator.value(),
+							iterator.value());
+				}
+			}
+		}
+
+		if (counts == null) {
+			counts = new TObjectIntHashMap<String>();
+		}
+
+		final ArrayList<String> frequents = new ArrayList<String>(
+				counts.size());
+		TObjectIntIterator<String> iterator = counts.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			if (iterator.value() >= minimumSupport) {
+				frequents.add(iterator.key());
+			}
+		}
+
+		final TObjectIntHashMap<String> finalCounts = counts;
+		String[] labels = frequents.toArray(new String[frequents.size()]);
+		Arrays.sort(labels, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				int supportA = finalCounts.get(a);
+				int supportB = finalCounts.get(b);
+				if (supportA == supportB) {
+					return a.compareTo(b);
+				} else {
+					return supportB - supportA;
+				}
+			}
+		});
+
+		TObjectIntHashMap<String> ids = new TObjectIntHashMap<String>(
+				labels.length * 2, 0.5f, NO_ID);
+		int[] supports = new int[labels.length];
+		for (int id = 0; id < labels.length; id++) {
+			ids.put(labels[id], id);
+			supports[id] = counts.get(labels[id]);
+		}
+
+		return new SupportOrderedDictionary(ids, labels, supports);
+	}
+
+	/**
+	 * Translates string transactions to identifiers, dropping infrequent
+	 * items.
+	 *
+	 * @return one list of identifiers per transaction, in the same order
+	 */
+	public TIntArrayList[] encode(final List<ArrayList<String>> transactions,
+			final int nbThreads) {
+		final TIntArrayList[] encoded = new TIntArrayList[transactions.size()];
+
+		EncodingThread[] threads = new EncodingThread[getThreadsCount(
+				transactions.size(), nbThreads)];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new EncodingThread(transactions, encoded, rangeStart(
+					transactions.size(), threads.length, i), rangeStart(
+					transactions.size(), threads.length, i + 1));
+			threads[i].start();
+		}
+
+		for (EncodingThread t : threads) {
+			join(t);
+		}
+
+		return encoded;
+	}
+
+	/**
+	 * @return item's identifier, or NO_ID if it's unknown or infrequent
+	 */
+	public int getId(String item) {
+		return this.ids.get(item);
+	}
+
+	/**
+	 * @return the reverse dictionary, indexed by identifiers
+	 */
+	public String[] getLabels() {
+		return this.labels;
+	}
+
+	/**
+	 * @return support counts, indexed by identifiers
+	 */
+	public int[] getSupports() {
+		return this.supports;
+	}
+
+	/**
+	 * @return how many items got an identifier
+	 */
+	public int size() {
+		return this.labels.length;
+	}
+
+	private static int getThreadsCount(int nbTransactions, int nbThreads) {
+		return Math.max(1, Math.min(nbThreads, nbTransactions));
+	}
+
+	private static int rangeStart(int nbTransactions, int nbRanges, int range) {
+		return (int) ((long) nbTransactions * range / nbRanges);
+	}
+
+	private static void join(Thread t) {
+		try {
+			t.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final class CountingThread extends Thread {
+		private final List<ArrayList<String>> transactions;
+		private final int from;
+		private final int to;
+		final TObjectIntHashMap<String> counts = new TObjectIntHashMap<String>();
+
+		CountingThread(List<ArrayList<String>> transactions, int from, int to) {
+			super("DictionaryCountingThread" + from);
+			this.transactions = transactions;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run() {
+			for (int i = this.from; i < this.to; i++) {
+				for (String item : this.transactions.get(i)) {
+					this.counts.adjustOrPutValue(item, 1, 1);
+				}
+			}
+		}
+	}
+
+	private final class EncodingThread extends Thread {
+		private final List<ArrayList<String>> transactions;
+		private final TIntArrayList[] encoded;
+		private final int from;
+		private final int to;
+
+		EncodingThread(List<ArrayList<String>> transactions,
+				TIntArrayList[] encoded, int from, int to) {
+			super("DictionaryEncodingThread" + from);
+			this.transactions = transactions;
+			this.encoded = encoded;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run() {
+			for (int i = this.from; i < this.to; i++) {
+				ArrayList<String> transaction = this.transactions.get(i);
+				TIntArrayList line = new TIntArrayList(transaction.size());
+				for (String item : transaction) {
+					int id = ids.get(item);
+					if (id != NO_ID) {
+						line.add(id);
+					}
+				}
+				this.encoded[i] = line;
+			}
+		}
+	}
+}
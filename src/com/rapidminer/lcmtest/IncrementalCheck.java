@@ -0,0 +1,111 @@
+package com.rapidminer.lcmtest;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import com.rapidminer.lcm.IncrementalMiner;
+import com.rapidminer.lcm.PLCM;
+import com.rapidminer.lcm.internals.ExplorationStep;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.io.PerThreadCollector;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Randomized check of IncrementalMiner : random transactions are appended by
+ * random batches, and after each append the maintained patterns are compared
+ * to those mined by PLCM.lcm from all transactions.
+ *
+ * Usage : IncrementalCheck [rounds [seed]]
+ */
+public class IncrementalCheck {
+
+	public static void main(String[] args) {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42;
+		Random random = new Random(seed);
+
+		for (int round = 0; round < rounds; round++) {
+			int items = 5 + random.nextInt(30);
+			int width = 1 + random.nextInt(Math.min(items, 12));
+			int minSupport = 1 + random.nextInt(6);
+			boolean whole = random.nextBoolean();
+
+			IncrementalMiner miner = new IncrementalMiner(minSupport,
+					1 + random.nextInt(3));
+			RMCompactTransactions all = new RMCompactTransactions();
+
+			int batches = 1 + random.nextInt(8);
+			for (int b = 0; b < batches; b++) {
+				RMCompactTransactions batch = new RMCompactTransactions();
+				int skipped = all.getTransactionsCount();
+				int size = random.nextInt(60);
+				for (int i = 0; i < size; i++) {
+					int[] transaction = randomTransaction(random, items, width);
+					batch.add(transaction, 0, transaction.length);
+					all.add(transaction, 0, transaction.length);
+				}
+
+				PackedPatterns patterns = whole ? miner.append(all, skipped)
+						: miner.append(batch);
+				check(patterns, all, minSupport, "round " + round + ", batch "
+						+ b);
+			}
+		}
+
+		System.out.println(rounds + " rounds checked");
+	}
+
+	static int[] randomTransaction(Random random, int items, int width) {
+		int[] transaction = new int[1 + random.nextInt(width)];
+		for (int i = 0; i < transaction.length; i++) {
+			// skewed towards small items, so that some are frequent
+			transaction[i] = (int) (items * Math.pow(random.nextDouble(), 2));
+		}
+		return transaction;
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             if patterns aren't the closed patterns of transactions
+	 */
+	static void check(PackedPatterns patterns,
+			RMCompactTransactions transactions, int minSupport, String where) {
+		TreeSet<String> expected = canonical(mine(transactions, minSupport));
+		TreeSet<String> found = canonical(patterns);
+		if (found.size() != patterns.size() || !found.equals(expected)) {
+			TreeSet<String> missing = new TreeSet<String>(expected);
+			missing.removeAll(found);
+			TreeSet<String> extra = new TreeSet<String>(found);
+			extra.removeAll(expected);
+			throw new IllegalStateException(where + " : " + patterns.size()
+					+ " patterns, expected " + expected.size() + ", missing "
+					+ missing + ", extra " + extra);
+		}
+	}
+
+	static PackedPatterns mine(RMCompactTransactions transactions,
+			int minSupport) {
+		PerThreadCollector collector = new PerThreadCollector(1, false);
+		if (transactions.getTransactionsCount() >= minSupport) {
+			PLCM miner = new PLCM(collector, 1);
+			miner.lcm(new ExplorationStep(minSupport, transactions));
+		}
+		collector.close();
+		return collector.getPatterns();
+	}
+
+	/**
+	 * @return patterns as "support : sorted items" strings
+	 */
+	static TreeSet<String> canonical(PackedPatterns patterns) {
+		TreeSet<String> canonical = new TreeSet<String>();
+		for (int i = 0; i < patterns.size(); i++) {
+			int[] pattern = patterns.getPattern(i);
+			Arrays.sort(pattern);
+			canonical.add(patterns.getSupport(i) + " : "
+					+ Arrays.toString(pattern));
+		}
+		return canonical;
+	}
+}
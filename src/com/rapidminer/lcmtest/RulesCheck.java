@@ -0,0 +1,196 @@
+package com.rapidminer.lcmtest;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.util.PackedPatterns;
+import com.rapidminer.lcm.util.PackedRules;
+import com.rapidminer.lcm.util.RulesGenerator;
+import com.rapidminer.lcm.util.SupportIndex;
+
+/**
+ * Randomized check of RulesGenerator and SupportIndex on tiny datasets, whose
+ * itemsets can all be enumerated : supports are counted by scanning
+ * transactions, closed itemsets are those having no superset with the same
+ * support, and each closed itemset Z gives the rules X => Z \ X having enough
+ * confidence and lift.
+ *
+ * Usage : RulesCheck [rounds [seed]]
+ */
+public class RulesCheck {
+
+	/**
+	 * itemsets are enumerated as bit masks over items
+	 */
+	private static final int MAX_ITEMS = 12;
+
+	public static void main(String[] args) {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42;
+		Random random = new Random(seed);
+
+		for (int round = 0; round < rounds; round++) {
+			int items = 2 + random.nextInt(MAX_ITEMS - 1);
+			int minSupport = 1 + random.nextInt(4);
+			double minConfidence = random.nextInt(5) / 4.0;
+			double minLift = random.nextBoolean() ? 0
+					: random.nextDouble() * 2;
+			int maxLength = 2 + random.nextInt(items);
+			String where = "round " + round;
+
+			RMCompactTransactions transactions = new RMCompactTransactions();
+			int[] masks = new int[1 + random.nextInt(40)];
+			for (int t = 0; t < masks.length; t++) {
+				int[] transaction = IncrementalCheck.randomTransaction(random,
+						items, items);
+				transactions.add(transaction, 0, transaction.length);
+				for (int item : transaction) {
+					masks[t] |= 1 << item;
+				}
+			}
+
+			int[] supports = new int[1 << items];
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				for (int mask : masks) {
+					if ((mask & itemset) == itemset) {
+						supports[itemset]++;
+					}
+				}
+			}
+
+			// the generator works from PLCM's patterns, which are checked too
+			PackedPatterns patterns = IncrementalCheck.mine(transactions,
+					minSupport);
+			TreeSet<String> closed = new TreeSet<String>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				if (supports[itemset] >= minSupport
+						&& isClosed(itemset, supports, items)) {
+					closed.add(supports[itemset] + " : "
+							+ Arrays.toString(toItems(itemset)));
+				}
+			}
+			compare(closed, IncrementalCheck.canonical(patterns), where
+					+ ", closed patterns");
+
+			checkIndex(new SupportIndex(patterns), supports, items,
+					minSupport, where);
+
+			TreeSet<String> expected = new TreeSet<String>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				int length = Integer.bitCount(itemset);
+				if (length < 2 || length > maxLength
+						|| supports[itemset] < minSupport
+						|| !isClosed(itemset, supports, items)) {
+					continue;
+				}
+				// non-empty premises, as sub-masks of the itemset
+				int premise = (itemset - 1) & itemset;
+				while (premise != 0) {
+					int conclusion = itemset & ~premise;
+					double confidence = (double) supports[itemset]
+							/ supports[premise];
+					double lift = confidence * masks.length
+							/ supports[conclusion];
+					if (confidence >= minConfidence && lift >= minLift) {
+						expected.add(rule(toItems(premise),
+								toItems(conclusion), supports[itemset],
+								confidence, lift));
+					}
+					premise = (premise - 1) & itemset;
+				}
+			}
+
+			RulesGenerator generator = new RulesGenerator(patterns,
+					minSupport, masks.length, minConfidence, minLift,
+					maxLength);
+			PackedRules rules = generator.generate(1 + random.nextInt(3));
+			TreeSet<String> found = new TreeSet<String>();
+			for (int i = 0; i < rules.size(); i++) {
+				int[] premise = rules.getPremise(i);
+				int[] conclusion = rules.getConclusion(i);
+				Arrays.sort(premise);
+				Arrays.sort(conclusion);
+				found.add(rule(premise, conclusion, rules.getSupport(i),
+						rules.getConfidence(i), rules.getLift(i)));
+			}
+			if (found.size() != rules.size()) {
+				throw new IllegalStateException(where + " : "
+						+ (rules.size() - found.size()) + " duplicate rules");
+			}
+			compare(expected, found, where + ", rules");
+		}
+
+		System.out.println(rounds + " rounds checked");
+	}
+
+	/**
+	 * Checks supports given by the index for all itemsets, and
+	 * hasLongerSuperset
+	 */
+	private static void checkIndex(SupportIndex index, int[] supports,
+			int items, int minSupport, String where) {
+		for (int itemset = 1; itemset < supports.length; itemset++) {
+			int[] sorted = toItems(itemset);
+			int support = index.getSupport(sorted, sorted.length);
+			// the index only knows frequent itemsets
+			int expected = (supports[itemset] >= minSupport) ? supports[itemset]
+					: 0;
+			if (support != expected) {
+				throw new IllegalStateException(where + " : support of "
+						+ Arrays.toString(sorted) + " is " + supports[itemset]
+						+ ", index gives " + support);
+			}
+			if (support > 0) {
+				boolean longer = index.hasLongerSuperset(sorted,
+						sorted.length, support);
+				if (longer == isClosed(itemset, supports, items)) {
+					throw new IllegalStateException(where + " : "
+							+ Arrays.toString(sorted) + " closed="
+							+ !longer + " according to the index");
+				}
+			}
+		}
+	}
+
+	private static boolean isClosed(int itemset, int[] supports, int items) {
+		for (int item = 0; item < items; item++) {
+			int superset = itemset | (1 << item);
+			if (superset != itemset
+					&& supports[superset] == supports[itemset]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int[] toItems(int itemset) {
+		int[] items = new int[Integer.bitCount(itemset)];
+		int j = 0;
+		for (int item = 0; itemset >> item != 0; item++) {
+			if ((itemset & (1 << item)) != 0) {
+				items[j++] = item;
+			}
+		}
+		return items;
+	}
+
+	private static String rule(int[] premise, int[] conclusion, int support,
+			double confidence, double lift) {
+		return Arrays.toString(premise) + " => " + Arrays.toString(conclusion)
+				+ String.format(" : %d %.9f %.9f", support, confidence, lift);
+	}
+
+	private static void compare(TreeSet<String> expected,
+			TreeSet<String> found, String where) {
+		if (!found.equals(expected)) {
+			TreeSet<String> missing = new TreeSet<String>(expected);
+			missing.removeAll(found);
+			TreeSet<String> extra = new TreeSet<String>(found);
+			extra.removeAll(expected);
+			throw new IllegalStateException(where + " : missing " + missing
+					+ ", extra " + extra);
+		}
+	}
+}
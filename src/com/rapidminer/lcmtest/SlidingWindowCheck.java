@@ -0,0 +1,66 @@
+package com.rapidminer.lcmtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.lcm.SlidingWindowMiner;
+import com.rapidminer.lcm.internals.transactions.RMCompactTransactions;
+import com.rapidminer.lcm.util.PackedPatterns;
+
+/**
+ * Randomized check of SlidingWindowMiner : random transactions enter a window
+ * by random slides, and after each slide the maintained patterns are compared
+ * to those mined by PLCM.lcm from the window's transactions.
+ *
+ * Usage : SlidingWindowCheck [rounds [seed]]
+ */
+public class SlidingWindowCheck {
+
+	public static void main(String[] args) {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42;
+		Random random = new Random(seed);
+
+		for (int round = 0; round < rounds; round++) {
+			int items = 5 + random.nextInt(30);
+			int width = 1 + random.nextInt(Math.min(items, 12));
+			int minSupport = 1 + random.nextInt(6);
+			int windowSize = 1 + random.nextInt(80);
+			boolean whole = random.nextBoolean();
+
+			SlidingWindowMiner miner = new SlidingWindowMiner(minSupport,
+					windowSize, 1 + random.nextInt(3));
+			RMCompactTransactions input = new RMCompactTransactions();
+			List<int[]> all = new ArrayList<int[]>();
+
+			int slides = 1 + random.nextInt(12);
+			for (int b = 0; b < slides; b++) {
+				RMCompactTransactions batch = new RMCompactTransactions();
+				long skipped = miner.getSeen();
+				// sometimes more than the window
+				int size = random.nextInt(windowSize + windowSize / 2 + 2);
+				for (int i = 0; i < size; i++) {
+					int[] transaction = IncrementalCheck.randomTransaction(
+							random, items, width);
+					batch.add(transaction, 0, transaction.length);
+					input.add(transaction, 0, transaction.length);
+					all.add(transaction);
+				}
+
+				PackedPatterns patterns = whole ? miner.slide(input, skipped)
+						: miner.slide(batch);
+
+				RMCompactTransactions window = new RMCompactTransactions();
+				for (int i = Math.max(0, all.size() - windowSize); i < all
+						.size(); i++) {
+					window.add(all.get(i), 0, all.get(i).length);
+				}
+				IncrementalCheck.check(patterns, window, minSupport, "round "
+						+ round + ", slide " + b);
+			}
+		}
+
+		System.out.println(rounds + " rounds checked");
+	}
+}